@@ -0,0 +1,313 @@
+package com.nimbus.agentai.city;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the QWeather city list CSV (version line, header line, then one location per line) into a {@link CityStore},
+ * in file order. Fields follow RFC 4180: quoted fields may hold commas, doubled quotes and line breaks.
+ * <p>
+ * Large files are cut into chunks at record boundaries and parsed on the common fork-join pool; chunks are appended
+ * in file order, so the result is the same as a sequential read.
+ */
+public final class CityCsvReader {
+
+    /**
+     * Target chunk size; files up to this size are parsed on the calling thread.
+     */
+    private static final int CHUNK_BYTES = 1 << 18;
+
+    private CityCsvReader() {}
+
+    public static CityStore read(InputStream in) throws IOException {
+        return read(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    /**
+     * Reads the remaining bytes of {@code csv}; its position is left unchanged.
+     */
+    public static CityStore read(ByteBuffer csv) {
+        byte[] in;
+        int from;
+        int to;
+        if (csv.hasArray()) {
+            in = csv.array();
+            from = csv.arrayOffset() + csv.position();
+            to = csv.arrayOffset() + csv.limit();
+        } else {
+            in = new byte[csv.remaining()];
+            csv.get(csv.position(), in);
+            from = 0;
+            to = in.length;
+        }
+        if (to - from >= 3 && in[from] == (byte) 0xEF && in[from + 1] == (byte) 0xBB && in[from + 2] == (byte) 0xBF) {
+            from += 3;
+        }
+        int headerStart = nextRecord(in, from, to, false); // skips the version line
+        int bodyStart = nextRecord(in, headerStart, to, false);
+        if (bodyStart == headerStart) {
+            throw new IllegalStateException("城市库 CSV 为空");
+        }
+        Columns columns = Columns.of(indexHeaders(decode(in, headerStart, bodyStart)));
+
+        int[] bounds = chunkBounds(in, bodyStart, to);
+        if (bounds.length == 2) {
+            return parseChunk(in, bodyStart, to, columns).build();
+        }
+        List<ForkJoinTask<CityStore.Builder>> chunks = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int chunkFrom = bounds[i];
+            int chunkTo = bounds[i + 1];
+            chunks.add(ForkJoinPool.commonPool().submit(() -> parseChunk(in, chunkFrom, chunkTo, columns)));
+        }
+        CityStore.Builder rows = new CityStore.Builder((to - bodyStart) / 128);
+        for (ForkJoinTask<CityStore.Builder> chunk : chunks) {
+            rows.append(chunk.join());
+        }
+        return rows.build();
+    }
+
+    private static CityStore.Builder parseChunk(byte[] in, int from, int to, Columns columns) {
+        String text = decode(in, from, to);
+        CityStore.Builder rows = new CityStore.Builder(text.length() / 96);
+        Record record = new Record(text);
+        int pos = 0;
+        while (pos < text.length()) {
+            pos = record.parse(pos);
+            if (record.size <= columns.required()) {
+                continue; // blank or short line
+            }
+
+            String locationId = record.get(columns.id());
+            String nameZh = record.get(columns.nameZh());
+            if (locationId == null || nameZh == null) {
+                continue;
+            }
+
+            rows.add(locationId,
+                    nameZh,
+                    record.get(columns.nameEn()),
+                    record.get(columns.adm1Zh()),
+                    record.get(columns.adm2Zh()),
+                    parseCoordinate(record.get(columns.latitude())),
+                    parseCoordinate(record.get(columns.longitude())));
+        }
+        return rows;
+    }
+
+    /**
+     * Chunk start offsets plus {@code to}. Quotes are counted per {@link #CHUNK_BYTES} segment in parallel; the
+     * parity of the counts before a segment tells whether it starts inside a quoted field, and the chunk starts after
+     * its first line break outside quotes. UTF-8 never uses {@code '\n'} or {@code '"'} inside a multi-byte character.
+     */
+    private static int[] chunkBounds(byte[] in, int from, int to) {
+        int segments = (int) ((to - (long) from + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        if (segments <= 1) {
+            return new int[]{from, to};
+        }
+        int[] quotes = IntStream.range(0, segments).parallel()
+                .map(k -> countQuotes(in, from + k * CHUNK_BYTES, Math.min(to, from + (k + 1) * CHUNK_BYTES)))
+                .toArray();
+        int[] bounds = new int[segments + 1];
+        int count = 0;
+        bounds[count++] = from;
+        boolean quoted = false;
+        for (int k = 1; k < segments; k++) {
+            quoted ^= (quotes[k - 1] & 1) == 1;
+            int cut = nextRecord(in, from + k * CHUNK_BYTES, to, quoted);
+            // a quoted field longer than a segment can push the cut past the next segment
+            if (cut > bounds[count - 1] && cut < to) {
+                bounds[count++] = cut;
+            }
+        }
+        bounds[count++] = to;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static int countQuotes(byte[] in, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (in[i] == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Offset just past the first line break at or after {@code from} that is outside quotes, given whether
+     * {@code from} is inside a quoted field.
+     */
+    private static int nextRecord(byte[] in, int from, int to, boolean quoted) {
+        for (int i = from; i < to; i++) {
+            byte b = in[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    private static String decode(byte[] in, int from, int to) {
+        return new String(in, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> indexHeaders(String headerLine) {
+        Record headers = new Record(headerLine);
+        headers.parse(0);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < headers.size; i++) {
+            index.put(headers.get(i), i);
+        }
+        return index;
+    }
+
+    private static int requireIndex(Map<String, Integer> headerIndex, String headerName) {
+        Integer idx = headerIndex.get(headerName);
+        if (idx == null) {
+            throw new IllegalStateException("城市库 CSV 缺少列: " + headerName);
+        }
+        return idx;
+    }
+
+    private static float parseCoordinate(String value) {
+        if (value == null) {
+            return Float.NaN;
+        }
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    /**
+     * Field boundaries of one record; strings are only cut out for the columns that are read.
+     */
+    private static final class Record {
+
+        private final String text;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        /**
+         * Whether the field was quoted and holds a doubled quote to unescape.
+         */
+        private boolean[] escaped = new boolean[16];
+        private int size;
+
+        Record(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Splits the record starting at {@code pos} and returns the offset of the next one.
+         */
+        int parse(int pos) {
+            size = 0;
+            int length = text.length();
+            while (true) {
+                if (size == starts.length) {
+                    starts = Arrays.copyOf(starts, size * 2);
+                    ends = Arrays.copyOf(ends, size * 2);
+                    escaped = Arrays.copyOf(escaped, size * 2);
+                }
+                int end;
+                if (pos < length && text.charAt(pos) == '"') {
+                    boolean doubled = false;
+                    int i = pos + 1;
+                    while (i < length) {
+                        if (text.charAt(i) != '"') {
+                            i++;
+                        } else if (i + 1 < length && text.charAt(i + 1) == '"') {
+                            doubled = true;
+                            i += 2;
+                        } else {
+                            break;
+                        }
+                    }
+                    starts[size] = pos + 1;
+                    ends[size] = i;
+                    escaped[size] = doubled;
+                    // anything between the closing quote and the delimiter is dropped
+                    end = fieldEnd(Math.min(i + 1, length));
+                } else {
+                    end = fieldEnd(pos);
+                    starts[size] = pos;
+                    ends[size] = end;
+                    escaped[size] = false;
+                }
+                size++;
+                if (end >= length || text.charAt(end) == '\n') {
+                    return end + 1;
+                }
+                pos = end + 1;
+            }
+        }
+
+        /**
+         * The trimmed field, or {@code null} when it is missing or blank (a trailing '\r' is trimmed too).
+         */
+        String get(int idx) {
+            if (idx < 0 || idx >= size) {
+                return null;
+            }
+            int start = starts[idx];
+            int end = ends[idx];
+            while (start < end && text.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                return null;
+            }
+            String value = text.substring(start, end);
+            return escaped[idx] ? value.replace("\"\"", "\"") : value;
+        }
+
+        private int fieldEnd(int from) {
+            int end = from;
+            while (end < text.length() && text.charAt(end) != ',' && text.charAt(end) != '\n') {
+                end++;
+            }
+            return end;
+        }
+    }
+
+    /**
+     * Column positions from the header; optional columns are -1 when missing.
+     */
+    private record Columns(int id, int nameZh, int nameEn, int adm1Zh, int adm2Zh, int latitude, int longitude) {
+
+        static Columns of(Map<String, Integer> headerIndex) {
+            return new Columns(
+                    requireIndex(headerIndex, "Location_ID"),
+                    requireIndex(headerIndex, "Location_Name_ZH"),
+                    headerIndex.getOrDefault("Location_Name_EN", -1),
+                    requireIndex(headerIndex, "Adm1_Name_ZH"),
+                    requireIndex(headerIndex, "Adm2_Name_ZH"),
+                    headerIndex.getOrDefault("Latitude", -1),
+                    headerIndex.getOrDefault("Longitude", -1));
+        }
+
+        /**
+         * Highest required column; shorter records are skipped.
+         */
+        int required() {
+            return Math.max(Math.max(id, nameZh), Math.max(adm1Zh, adm2Zh));
+        }
+    }
+}
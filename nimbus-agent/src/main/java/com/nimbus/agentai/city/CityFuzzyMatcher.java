@@ -0,0 +1,200 @@
+package com.nimbus.agentai.city;
+
+import java.util.Arrays;
+
+/**
+ * Edit-distance lookup over city name keys (SymSpell-style deletion dictionary). Every key is indexed under the
+ * hashes of itself with up to {@link #maxDistance(int, boolean)} characters deleted; a query probes its own deletions
+ * the same way, and candidates are confirmed with an exact distance. Work per query is bounded by the query length,
+ * not by the number of keys.
+ */
+public final class CityFuzzyMatcher {
+
+    /**
+     * Receives every key within its allowed distance of the query.
+     */
+    @FunctionalInterface
+    public interface Candidates {
+        void accept(int target, int distance, int keyLength);
+    }
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] keys;
+    private final int[] targets;
+    private final LongIntHashMap deleteToList;
+    private final int[][] postings;
+    private final int maxKeyLength;
+
+    /**
+     * @param keys    names to match; Chinese names or lowercase pinyin letters
+     * @param targets caller's ordinal per key, reported back to {@link Candidates}
+     */
+    public CityFuzzyMatcher(String[] keys, int[] targets) {
+        this.keys = keys;
+        this.targets = targets;
+        deleteToList = new LongIntHashMap(keys.length * 8);
+        int[][] lists = new int[keys.length * 8][];
+        int[] sizes = new int[lists.length];
+        int next = 0;
+        int longest = 0;
+        for (int id = 0; id < keys.length; id++) {
+            String key = keys[id];
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            longest = Math.max(longest, key.length());
+            int distance = maxDistance(key.length(), isLatin(key, 0, key.length()));
+            for (int a = -1; a < key.length(); a++) {
+                for (int b = distance < 2 || a < 0 ? key.length() : a + 1; b <= key.length(); b++) {
+                    if (distance == 0 && a >= 0) {
+                        break;
+                    }
+                    long hash = hash(key, 0, key.length(), a, b < key.length() ? b : -1);
+                    int list = deleteToList.get(hash);
+                    if (list < 0) {
+                        if (next == lists.length) {
+                            lists = Arrays.copyOf(lists, next * 2);
+                            sizes = Arrays.copyOf(sizes, next * 2);
+                        }
+                        list = next++;
+                        deleteToList.put(hash, list);
+                        lists[list] = new int[2];
+                    }
+                    // deleting either of two equal neighbours gives the same string; list the key once
+                    if (sizes[list] == 0 || lists[list][sizes[list] - 1] != id) {
+                        if (sizes[list] == lists[list].length) {
+                            lists[list] = Arrays.copyOf(lists[list], sizes[list] * 2);
+                        }
+                        lists[list][sizes[list]++] = id;
+                    }
+                }
+            }
+        }
+        maxKeyLength = longest;
+        postings = new int[next][];
+        for (int list = 0; list < next; list++) {
+            postings[list] = Arrays.copyOf(lists[list], sizes[list]);
+        }
+    }
+
+    /**
+     * Reports every key within its allowed edit distance of {@code text[from, to)}. A key may be reported more
+     * than once.
+     */
+    public void find(CharSequence text, int from, int to, Candidates out) {
+        find(text, from, to, out, Long.MAX_VALUE);
+    }
+
+    /**
+     * As {@link #find(CharSequence, int, int, Candidates)}, but stops probing once {@link System#nanoTime()} passes
+     * {@code deadlineNanos}.
+     */
+    public void find(CharSequence text, int from, int to, Candidates out, long deadlineNanos) {
+        int length = to - from;
+        if (length <= 0 || length > maxKeyLength + 2) {
+            return;
+        }
+        boolean latin = isLatin(text, from, to);
+        int distance = latin && length >= 6 ? 2 : 1;
+        for (int a = from - 1; a < to; a++) {
+            for (int b = distance < 2 || a < from ? to : a + 1; b <= to; b++) {
+                if (System.nanoTime() > deadlineNanos) {
+                    return;
+                }
+                int[] list = postings(hash(text, from, to, a < from ? -1 : a - from, b < to ? b - from : -1));
+                for (int id : list) {
+                    String key = keys[id];
+                    int allowed = Math.min(distance, maxDistance(key.length(), latin));
+                    if (Math.abs(key.length() - length) > allowed) {
+                        continue;
+                    }
+                    int d = distance(text, from, to, key, allowed);
+                    if (d <= allowed) {
+                        out.accept(targets[id], d, key.length());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Edits allowed for a key: one for Chinese names of two or more characters; for pinyin none below five letters
+     * (English words like "the" are one edit from "tahe"), one up to seven and two from eight.
+     */
+    static int maxDistance(int keyLength, boolean latin) {
+        if (!latin) {
+            return keyLength < 2 ? 0 : 1;
+        }
+        return keyLength < 5 ? 0 : keyLength < 8 ? 1 : 2;
+    }
+
+    static boolean isLatin(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] postings(long hash) {
+        int list = deleteToList.get(hash);
+        return list >= 0 ? postings[list] : NONE;
+    }
+
+    /**
+     * Hash of {@code s[from, to)} with the characters at relative positions {@code skipA} and {@code skipB}
+     * left out (-1 for none).
+     */
+    private static long hash(CharSequence s, int from, int to, int skipA, int skipB) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = from; i < to; i++) {
+            int rel = i - from;
+            if (rel == skipA || rel == skipB) {
+                continue;
+            }
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return h == Long.MIN_VALUE ? 0 : h;
+    }
+
+    /**
+     * Optimal string alignment distance (adjacent transpositions count as one edit), or {@code limit + 1} once it
+     * is known to exceed {@code limit}.
+     */
+    private static int distance(CharSequence a, int from, int to, String b, int limit) {
+        int n = to - from;
+        int m = b.length();
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            char ca = a.charAt(from + i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(from + i - 2) == cb) {
+                    v = Math.min(v, prevPrev[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] t = prevPrev;
+            prevPrev = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m];
+    }
+}
@@ -0,0 +1,297 @@
+package com.nimbus.agentai.city;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Everything derived from one city list: the {@link CityStore} columns (a location's position is its ordinal
+ * everywhere), the preferred location per name, every location sharing each name and the name matchers.
+ * Locations are passed around as ordinals; {@link CityStore#city(int)} materializes one for callers.
+ * Built from CSV rows or restored from a {@link CitySnapshot}; never modified afterwards.
+ */
+public final class CityIndex {
+
+    private static final String[] ADMIN_SUFFIXES = {
+            "特别行政区", "自治区", "自治州", "自治县", "地区", "新区", "林区", "省", "市", "区", "县", "盟"
+    };
+
+    private static final String[] ETHNIC_GROUPS = {
+            "柯尔克孜", "哈萨克", "维吾尔", "朝鲜", "傈僳", "土家", "哈尼", "布依", "景颇", "蒙古",
+            "回", "黎", "苗", "彝", "白", "壮", "傣", "藏", "侗", "羌"
+    };
+
+    private final CityStore store;
+    private final String[] matchNames;
+    private final int[] preferred;
+    private final int[] namesakeStart;
+    private final int[] namesakes;
+    private final BitSet cityLevel;
+    private final String[] admQualifiers;
+    private final CityNameMatcher nameMatcher;
+    private final CityNgramIndex ngramIndex;
+    private final CityFuzzyMatcher fuzzyMatcher;
+    private final CityGeoIndex geoIndex;
+
+    private CityIndex(CityStore store, int[] preferred, CityNameMatcher nameMatcher, CityNgramIndex ngramIndex) {
+        this.store = store;
+        this.preferred = preferred;
+        this.matchNames = new String[preferred.length];
+        for (int i = 0; i < preferred.length; i++) {
+            matchNames[i] = store.name(preferred[i]);
+        }
+        this.namesakeStart = new int[matchNames.length + 1];
+        this.namesakes = groupByName(store, matchNames, namesakeStart);
+        this.cityLevel = new BitSet(store.size());
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            cityLevel.set(ordinal, isCityLevel(store.name(ordinal), store.adm2(ordinal)));
+        }
+        this.admQualifiers = new String[store.adms().length];
+        for (int id = 0; id < admQualifiers.length; id++) {
+            admQualifiers[id] = adminQualifier(store.adms()[id]);
+        }
+        this.nameMatcher = nameMatcher != null ? nameMatcher : new CityNameMatcher(matchNames, 2);
+        this.ngramIndex = ngramIndex != null ? ngramIndex : new CityNgramIndex(matchNames);
+        this.fuzzyMatcher = buildFuzzyMatcher(store, matchNames, preferred);
+        this.geoIndex = new CityGeoIndex(store.latitudes(), store.longitudes());
+    }
+
+    public static CityIndex empty() {
+        return build(CityStore.empty());
+    }
+
+    /**
+     * Builds the index over CSV rows. Same-name locations keep the first city-level one, else the first seen.
+     */
+    public static CityIndex build(CityStore store) {
+        Map<String, Integer> preferredByName = new HashMap<>();
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            String name = store.name(ordinal);
+            Integer existing = preferredByName.get(name);
+            if (existing == null || (!isCityLevel(store.name(existing), store.adm2(existing))
+                    && isCityLevel(name, store.adm2(ordinal)))) {
+                preferredByName.put(name, ordinal);
+            }
+        }
+        int[] preferred = preferredByName.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .mapToInt(Map.Entry::getValue)
+                .toArray();
+        return new CityIndex(store, preferred, null, null);
+    }
+
+    static CityIndex restore(CityStore store, int[] preferred, CityNameMatcher nameMatcher, CityNgramIndex ngramIndex) {
+        return new CityIndex(store, preferred, nameMatcher, ngramIndex);
+    }
+
+    public CityStore store() {
+        return store;
+    }
+
+    /**
+     * Ordinal of the location with this LocationID, or -1.
+     */
+    public int byLocationId(String locationId) {
+        return store.ordinalOf(locationId);
+    }
+
+    /**
+     * Distinct names in ascending order; the ordinal space of {@link #nameMatcher()} and {@link #ngramIndex()}.
+     */
+    public String[] matchNames() {
+        return matchNames;
+    }
+
+    /**
+     * Ordinal of {@code name} in {@link #matchNames()}, or a negative number when no location has that name.
+     */
+    public int nameOrdinal(String name) {
+        return name != null ? Arrays.binarySearch(matchNames, name) : -1;
+    }
+
+    /**
+     * Location ordinal of the preferred location named {@code matchNames()[nameOrdinal]}.
+     */
+    public int preferred(int nameOrdinal) {
+        return preferred[nameOrdinal];
+    }
+
+    /**
+     * Location ordinal of the preferred location with this exact name, or -1.
+     */
+    public int byName(String name) {
+        int nameOrdinal = nameOrdinal(name);
+        return nameOrdinal >= 0 ? preferred[nameOrdinal] : -1;
+    }
+
+    /**
+     * Ordinals of every location named {@code matchNames()[nameOrdinal]}, in file order (朝阳 in 北京, 长春 and 辽宁).
+     */
+    public int[] namesakes(int nameOrdinal) {
+        return Arrays.copyOfRange(namesakes, namesakeStart[nameOrdinal], namesakeStart[nameOrdinal + 1]);
+    }
+
+    /**
+     * Whether the location is a prefecture-level city: its name is its adm2 without the suffix.
+     */
+    public boolean isCityLevel(int ordinal) {
+        return cityLevel.get(ordinal);
+    }
+
+    /**
+     * {@link #adminQualifier(String)} of the location's adm1, computed once per distinct adm name.
+     */
+    public String adm1Qualifier(int ordinal) {
+        int id = store.adm1Id(ordinal);
+        return id >= 0 ? admQualifiers[id] : null;
+    }
+
+    public String adm2Qualifier(int ordinal) {
+        int id = store.adm2Id(ordinal);
+        return id >= 0 ? admQualifiers[id] : null;
+    }
+
+    public CityNameMatcher nameMatcher() {
+        return nameMatcher;
+    }
+
+    public CityNgramIndex ngramIndex() {
+        return ngramIndex;
+    }
+
+    /**
+     * Typo-tolerant lookup over names and the pinyin of each name's preferred city; reports name ordinals.
+     */
+    public CityFuzzyMatcher fuzzyMatcher() {
+        return fuzzyMatcher;
+    }
+
+    public CityGeoIndex geoIndex() {
+        return geoIndex;
+    }
+
+    /**
+     * Location ordinal of the preferred city for each entry of {@link #matchNames()}.
+     */
+    int[] preferredOrdinals() {
+        return preferred;
+    }
+
+    private static boolean isCityLevel(String name, String adm2) {
+        String normalizedName = normalizeName(name);
+        String normalizedAdm2 = normalizeName(adm2);
+        return normalizedName != null && normalizedAdm2 != null && normalizedName.equals(normalizedAdm2);
+    }
+
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        if (trimmed.isEmpty()) {
+            return trimmed;
+        }
+
+        String[] suffixes = {"市", "区", "县", "省", "自治州", "地区", "盟", "旗"};
+        for (String suffix : suffixes) {
+            if (trimmed.endsWith(suffix) && trimmed.length() > suffix.length()) {
+                trimmed = trimmed.substring(0, trimmed.length() - suffix.length());
+                break;
+            }
+        }
+        return trimmed;
+    }
+
+    /**
+     * Short form people use to qualify a place by its adm1/adm2: administrative suffixes and the ethnic part of
+     * autonomous areas are dropped ("内蒙古自治区" -> "内蒙古", "延边朝鲜族自治州" -> "延边", "和田地区" -> "和田").
+     */
+    public static String adminQualifier(String adm) {
+        if (adm == null) {
+            return null;
+        }
+        String qualifier = adm.trim();
+        for (String suffix : ADMIN_SUFFIXES) {
+            if (qualifier.endsWith(suffix) && qualifier.length() > suffix.length()) {
+                qualifier = qualifier.substring(0, qualifier.length() - suffix.length());
+                break;
+            }
+        }
+        int autonomous = qualifier.indexOf("自治");
+        if (autonomous > 0) {
+            qualifier = qualifier.substring(0, autonomous);
+        }
+        // "德宏傣族景颇族" and "海西蒙古族藏族" list several groups; strip from the right
+        boolean stripped = true;
+        while (stripped) {
+            stripped = false;
+            boolean suffixed = qualifier.endsWith("族");
+            String rest = suffixed ? qualifier.substring(0, qualifier.length() - 1) : qualifier;
+            for (String group : ETHNIC_GROUPS) {
+                // a lone character is only a group name when "族" follows it
+                if ((suffixed || group.length() > 1) && rest.endsWith(group) && rest.length() > group.length() + 1) {
+                    qualifier = rest.substring(0, rest.length() - group.length());
+                    stripped = true;
+                    break;
+                }
+            }
+        }
+        return qualifier;
+    }
+
+    /**
+     * Pinyin folded the way queries are: lowercase letters only ("Xi'an" -> "xian").
+     */
+    public static String foldPinyin(CharSequence nameEn) {
+        if (nameEn == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(nameEn.length());
+        for (int i = 0; i < nameEn.length(); i++) {
+            char c = nameEn.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                sb.append((char) (c + ('a' - 'A')));
+            } else if (c >= 'a' && c <= 'z') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Location ordinals grouped by name ordinal; group {@code i} is {@code [start[i], start[i + 1])}.
+     */
+    private static int[] groupByName(CityStore store, String[] matchNames, int[] start) {
+        Map<String, Integer> nameOrdinals = new HashMap<>(matchNames.length * 2);
+        for (int i = 0; i < matchNames.length; i++) {
+            nameOrdinals.put(matchNames[i], i);
+        }
+        int[] nameOf = new int[store.size()];
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            nameOf[ordinal] = nameOrdinals.get(store.name(ordinal));
+            start[nameOf[ordinal] + 1]++;
+        }
+        for (int i = 0; i < matchNames.length; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] next = Arrays.copyOf(start, matchNames.length);
+        int[] grouped = new int[store.size()];
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            grouped[next[nameOf[ordinal]]++] = ordinal;
+        }
+        return grouped;
+    }
+
+    private static CityFuzzyMatcher buildFuzzyMatcher(CityStore store, String[] matchNames, int[] preferred) {
+        String[] keys = new String[matchNames.length * 2];
+        int[] targets = new int[keys.length];
+        for (int i = 0; i < matchNames.length; i++) {
+            keys[2 * i] = matchNames[i];
+            keys[2 * i + 1] = foldPinyin(store.nameEn(preferred[i]));
+            targets[2 * i] = i;
+            targets[2 * i + 1] = i;
+        }
+        return new CityFuzzyMatcher(keys, targets);
+    }
+}
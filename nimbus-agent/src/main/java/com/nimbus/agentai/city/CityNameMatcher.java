@@ -0,0 +1,168 @@
+package com.nimbus.agentai.city;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton over city names. {@link #findLongest(CharSequence)} returns the longest name mentioned
+ * anywhere in the text in one pass; ties go to the earliest mention. {@link #forEachMention} reports all of them.
+ * Names are referred to by ordinal.
+ */
+public final class CityNameMatcher {
+
+    /**
+     * Receives each name found in the text with the index just past its last character.
+     */
+    @FunctionalInterface
+    public interface Mentions {
+        void accept(int ordinal, int end);
+    }
+
+    private final LongIntHashMap transitions;
+    private final int[] fail;
+    private final int[] longest;
+    private final int[] patternLengths;
+
+    /**
+     * @param names     pattern per ordinal; {@code null} entries are skipped
+     * @param minLength names shorter than this are not matched
+     */
+    public CityNameMatcher(String[] names, int minLength) {
+        int totalChars = 0;
+        for (String name : names) {
+            totalChars += name != null ? name.length() : 0;
+        }
+        transitions = new LongIntHashMap(totalChars);
+        int[] terminal = new int[totalChars + 1];
+        int[] depth = new int[totalChars + 1];
+        int[] parent = new int[totalChars + 1];
+        char[] label = new char[totalChars + 1];
+        Arrays.fill(terminal, -1);
+        patternLengths = new int[names.length];
+
+        int nodes = 1;
+        int maxDepth = 0;
+        for (int ordinal = 0; ordinal < names.length; ordinal++) {
+            String name = names[ordinal];
+            if (name == null || name.length() < minLength) {
+                continue;
+            }
+            patternLengths[ordinal] = name.length();
+            maxDepth = Math.max(maxDepth, name.length());
+            int state = 0;
+            for (int i = 0; i < name.length(); i++) {
+                long key = edge(state, name.charAt(i));
+                int next = transitions.get(key);
+                if (next < 0) {
+                    next = nodes++;
+                    depth[next] = i + 1;
+                    parent[next] = state;
+                    label[next] = name.charAt(i);
+                    transitions.put(key, next);
+                }
+                state = next;
+            }
+            if (terminal[state] < 0) {
+                terminal[state] = ordinal;
+            }
+        }
+
+        // failure links must be computed parents-first, i.e. in breadth-first (depth) order
+        int[] depthStart = new int[maxDepth + 2];
+        for (int node = 1; node < nodes; node++) {
+            depthStart[depth[node] + 1]++;
+        }
+        for (int d = 1; d < depthStart.length; d++) {
+            depthStart[d] += depthStart[d - 1];
+        }
+        int[] order = new int[nodes - 1];
+        for (int node = 1; node < nodes; node++) {
+            order[depthStart[depth[node]]++] = node;
+        }
+
+        fail = new int[nodes];
+        longest = new int[nodes];
+        longest[0] = -1;
+        for (int node : order) {
+            int f = parent[node] == 0 ? -1 : fail[parent[node]];
+            int target = -1;
+            while (f >= 0 && (target = transitions.get(edge(f, label[node]))) < 0) {
+                f = f == 0 ? -1 : fail[f];
+            }
+            fail[node] = Math.max(target, 0);
+            longest[node] = terminal[node] >= 0 ? terminal[node] : longest[fail[node]];
+        }
+    }
+
+    private CityNameMatcher(LongIntHashMap transitions, int[] fail, int[] longest, int[] patternLengths) {
+        this.transitions = transitions;
+        this.fail = fail;
+        this.longest = longest;
+        this.patternLengths = patternLengths;
+    }
+
+    /**
+     * Ordinal of the longest name found in the text (earliest on ties), or -1.
+     */
+    public int findLongest(CharSequence text) {
+        int state = 0;
+        int best = -1;
+        int bestLength = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transitions.get(edge(state, c))) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            int match = longest[state];
+            if (match >= 0 && patternLengths[match] > bestLength) {
+                best = match;
+                bestLength = patternLengths[match];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Reports every name found in the text, overlapping ones included, in order of their end position
+     * (longest first at the same end).
+     */
+    public void forEachMention(CharSequence text, Mentions out) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transitions.get(edge(state, c))) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            // a state without its own name inherits its failure state's, so report each distinct one once
+            int last = -1;
+            for (int s = state; s > 0 && longest[s] >= 0; s = fail[s]) {
+                if (longest[s] != last) {
+                    last = longest[s];
+                    out.accept(last, i + 1);
+                }
+            }
+        }
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        transitions.writeTo(out);
+        CitySnapshot.writeInts(out, fail);
+        CitySnapshot.writeInts(out, longest);
+        CitySnapshot.writeInts(out, patternLengths);
+    }
+
+    static CityNameMatcher readFrom(ByteBuffer in) {
+        return new CityNameMatcher(LongIntHashMap.readFrom(in),
+                CitySnapshot.readInts(in), CitySnapshot.readInts(in), CitySnapshot.readInts(in));
+    }
+
+    private static long edge(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+}
@@ -0,0 +1,148 @@
+package com.nimbus.agentai.city;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Unigram + bigram posting lists over city names, for "which names contain this query" lookups.
+ * A query is answered from its rarest n-gram's postings and verified with {@link String#contains},
+ * so the cost follows the query and its matches rather than the number of cities.
+ */
+public final class CityNgramIndex {
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] names;
+    private final LongIntHashMap gramToList;
+    private final int[][] postings;
+
+    public CityNgramIndex(String[] names) {
+        this.names = names;
+        LongIntHashMap counts = new LongIntHashMap(names.length * 4);
+        int lists = 0;
+        for (String name : names) {
+            if (name == null) {
+                continue;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                lists = count(counts, unigram(name.charAt(i)), lists);
+                if (i + 1 < name.length()) {
+                    lists = count(counts, bigram(name.charAt(i), name.charAt(i + 1)), lists);
+                }
+            }
+        }
+
+        gramToList = new LongIntHashMap(lists);
+        int[][] built = new int[lists][];
+        int[] sizes = new int[lists];
+        int next = 0;
+        for (int ordinal = 0; ordinal < names.length; ordinal++) {
+            String name = names[ordinal];
+            if (name == null) {
+                continue;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                next = add(built, sizes, counts, unigram(name.charAt(i)), ordinal, next);
+                if (i + 1 < name.length()) {
+                    next = add(built, sizes, counts, bigram(name.charAt(i), name.charAt(i + 1)), ordinal, next);
+                }
+            }
+        }
+        for (int list = 0; list < lists; list++) {
+            built[list] = Arrays.copyOf(built[list], sizes[list]);
+        }
+        this.postings = built;
+    }
+
+    private CityNgramIndex(String[] names, LongIntHashMap gramToList, int[][] postings) {
+        this.names = names;
+        this.gramToList = gramToList;
+        this.postings = postings;
+    }
+
+    /**
+     * Ordinals of all names containing {@code query}, in ascending order.
+     */
+    public int[] findContaining(String query) {
+        if (query == null || query.isEmpty()) {
+            return NONE;
+        }
+        int[] rarest = null;
+        if (query.length() == 1) {
+            rarest = postings(unigram(query.charAt(0)));
+        } else {
+            for (int i = 0; i + 1 < query.length(); i++) {
+                int[] list = postings(bigram(query.charAt(i), query.charAt(i + 1)));
+                if (list.length == 0) {
+                    return NONE;
+                }
+                if (rarest == null || list.length < rarest.length) {
+                    rarest = list;
+                }
+            }
+        }
+        int[] result = new int[rarest.length];
+        int size = 0;
+        for (int ordinal : rarest) {
+            if (query.length() <= 2 || names[ordinal].contains(query)) {
+                result[size++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        gramToList.writeTo(out);
+        out.writeInt(postings.length);
+        for (int[] list : postings) {
+            CitySnapshot.writeInts(out, list);
+        }
+    }
+
+    static CityNgramIndex readFrom(ByteBuffer in, String[] names) {
+        LongIntHashMap gramToList = LongIntHashMap.readFrom(in);
+        int[][] postings = new int[in.getInt()][];
+        for (int list = 0; list < postings.length; list++) {
+            postings[list] = CitySnapshot.readInts(in);
+        }
+        return new CityNgramIndex(names, gramToList, postings);
+    }
+
+    private int[] postings(long gram) {
+        int list = gramToList.get(gram);
+        return list >= 0 ? postings[list] : NONE;
+    }
+
+    /**
+     * First pass: counts occurrences per gram (an upper bound on its list size) and the number of distinct grams.
+     */
+    private static int count(LongIntHashMap counts, long gram, int lists) {
+        int current = counts.get(gram);
+        counts.put(gram, current < 0 ? 1 : current + 1);
+        return current < 0 ? lists + 1 : lists;
+    }
+
+    private int add(int[][] built, int[] sizes, LongIntHashMap counts, long gram, int ordinal, int next) {
+        int list = gramToList.get(gram);
+        if (list < 0) {
+            list = next++;
+            gramToList.put(gram, list);
+            built[list] = new int[counts.get(gram)];
+        }
+        // a name repeating a gram adds its ordinal once; ordinals arrive in ascending order
+        if (sizes[list] == 0 || built[list][sizes[list] - 1] != ordinal) {
+            built[list][sizes[list]++] = ordinal;
+        }
+        return next;
+    }
+
+    private static long unigram(char c) {
+        return c;
+    }
+
+    private static long bigram(char a, char b) {
+        return (1L << 32) | ((long) a << 16) | b;
+    }
+}
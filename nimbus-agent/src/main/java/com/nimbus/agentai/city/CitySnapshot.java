@@ -0,0 +1,160 @@
+package com.nimbus.agentai.city;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary form of a {@link CityIndex}, compiled at build time by {@link CitySnapshotCompiler} so startup can skip
+ * CSV parsing and matcher construction.
+ * <p>
+ * Layout (big-endian): magic, version, CRC32 of the source CSV, the {@link CityStore} columns (ids, non-numeric ids,
+ * names, English names, adm dictionary, adm1/adm2 ids, coordinates), the preferred location ordinal per name, then
+ * the Aho-Corasick and n-gram arrays as built. The geo grid is cheap to rebuild and is not stored.
+ */
+public final class CitySnapshot {
+
+    private static final int MAGIC = 0x4E43534E; // "NCSN"
+    private static final int VERSION = 4;
+
+    private CitySnapshot() {}
+
+    public static long checksum(ByteBuffer csv) {
+        CRC32 crc = new CRC32();
+        crc.update(csv.duplicate());
+        return crc.getValue();
+    }
+
+    public static void write(CityIndex index, long csvChecksum, OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(csvChecksum);
+
+        CityStore store = index.store();
+        writeInts(out, store.rawIds());
+        writeStrings(out, store.otherIds());
+        writeStrings(out, store.names());
+        writeStrings(out, store.namesEn());
+        writeStrings(out, store.adms());
+        writeInts(out, store.adm1Ids());
+        writeInts(out, store.adm2Ids());
+        writeFloats(out, store.latitudes());
+        writeFloats(out, store.longitudes());
+        writeInts(out, index.preferredOrdinals());
+        index.nameMatcher().writeTo(out);
+        index.ngramIndex().writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Returns the index stored in the snapshot, or {@code null} when the snapshot was compiled from a different CSV
+     * or by an incompatible version. Malformed content fails with a runtime exception.
+     */
+    public static CityIndex read(ByteBuffer in, long csvChecksum) {
+        if (in.remaining() < 16 || in.getInt() != MAGIC || in.getInt() != VERSION || in.getLong() != csvChecksum) {
+            return null;
+        }
+
+        int[] ids = readInts(in);
+        String[] otherIds = readStrings(in);
+        String[] names = readStrings(in);
+        String[] namesEn = readStrings(in);
+        String[] adms = readStrings(in);
+        int[] adm1 = readInts(in);
+        int[] adm2 = readInts(in);
+        float[] latitudes = readFloats(in);
+        float[] longitudes = readFloats(in);
+        if (names.length != ids.length || namesEn.length != ids.length || adm1.length != ids.length
+                || adm2.length != ids.length || latitudes.length != ids.length || longitudes.length != ids.length) {
+            throw new IllegalStateException("malformed city columns");
+        }
+        CityStore store = new CityStore(ids.length, ids, otherIds, names, namesEn, adm1, adm2, adms,
+                latitudes, longitudes);
+
+        int[] preferred = readInts(in);
+        String[] matchNames = new String[preferred.length];
+        for (int i = 0; i < preferred.length; i++) {
+            matchNames[i] = names[preferred[i]];
+        }
+        CityNameMatcher nameMatcher = CityNameMatcher.readFrom(in);
+        CityNgramIndex ngramIndex = CityNgramIndex.readFrom(in, matchNames);
+        return CityIndex.restore(store, preferred, nameMatcher, ngramIndex);
+    }
+
+    static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int v : values) {
+            out.writeInt(v);
+        }
+    }
+
+    static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long v : values) {
+            out.writeLong(v);
+        }
+    }
+
+    static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[in.getInt()];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    /**
+     * UTF-8 strings, each prefixed by its byte length; -1 stands for {@code null}.
+     */
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            if (value == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in) {
+        String[] values = new String[in.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            int length = in.getInt();
+            if (length < 0) {
+                continue;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeInt(values.length);
+        for (float v : values) {
+            out.writeFloat(v);
+        }
+    }
+
+    private static float[] readFloats(ByteBuffer in) {
+        float[] values = new float[in.getInt()];
+        in.asFloatBuffer().get(values);
+        in.position(in.position() + values.length * Float.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,39 @@
+package com.nimbus.agentai.city;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Build-time entry point: {@code CitySnapshotCompiler <csv> <snapshot>}. Run by the exec-maven-plugin in the
+ * process-classes phase so the snapshot lands next to the CSV on the classpath.
+ */
+public final class CitySnapshotCompiler {
+
+    private CitySnapshotCompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("usage: CitySnapshotCompiler <csv> <snapshot>");
+        }
+        Path csv = Path.of(args[0]);
+        Path snapshot = Path.of(args[1]);
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(csv));
+        CityIndex index = CityIndex.build(CityCsvReader.read(bytes));
+
+        if (snapshot.getParent() != null) {
+            Files.createDirectories(snapshot.getParent());
+        }
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            CitySnapshot.write(index, CitySnapshot.checksum(bytes), out);
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        System.out.printf("city snapshot: %d locations, %d names -> %s (%d bytes)%n",
+                index.store().size(), index.matchNames().length, snapshot, Files.size(snapshot));
+    }
+}
@@ -0,0 +1,131 @@
+package com.nimbus.agentai.city;
+
+import com.nimbus.agentai.model.City;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prefix trie over Chinese names, English names and pinyin initials for type-ahead suggestions.
+ * Every node keeps its best {@code maxResults} locations, so a lookup is one edge probe per typed character plus
+ * copying the node's list; nothing is sorted or collected per keystroke.
+ */
+public final class CitySuggestIndex {
+
+    private final CityStore store;
+    private final LongIntHashMap children;
+    private final int[] topStart;
+    private final int[] top;
+    private final int maxResults;
+
+    /**
+     * @param order      location ordinals, best first; locations left out are not suggested
+     * @param maxResults suggestions kept per prefix
+     */
+    public CitySuggestIndex(CityStore store, int[] order, int maxResults) {
+        this.store = store;
+        this.maxResults = maxResults;
+
+        List<String[]> keys = new ArrayList<>(store.size());
+        int totalChars = 0;
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            String[] cityKeys = {
+                    store.name(ordinal),
+                    letters(store.nameEn(ordinal)),
+                    PinyinInitials.forName(store.name(ordinal), store.nameEn(ordinal))
+            };
+            for (String key : cityKeys) {
+                totalChars += key != null ? key.length() : 0;
+            }
+            keys.add(cityKeys);
+        }
+
+        children = new LongIntHashMap(totalChars);
+        int[] counts = new int[totalChars + 1];
+        int[] lists = new int[(totalChars + 1) * maxResults];
+        int nodes = 1;
+        // best-first insertion: each node's list fills with the first maxResults locations reaching it
+        for (int ordinal : order) {
+            for (String key : keys.get(ordinal)) {
+                if (key == null || key.isEmpty()) {
+                    continue;
+                }
+                int node = 0;
+                for (int i = 0; i < key.length(); i++) {
+                    long edge = edge(node, fold(key.charAt(i)));
+                    int next = children.get(edge);
+                    if (next < 0) {
+                        next = nodes++;
+                        children.put(edge, next);
+                    }
+                    node = next;
+                    // keys of one location share prefixes ("xian", "xa"); list it once
+                    int count = counts[node];
+                    if (count < maxResults && (count == 0 || lists[node * maxResults + count - 1] != ordinal)) {
+                        lists[node * maxResults + count] = ordinal;
+                        counts[node] = count + 1;
+                    }
+                }
+            }
+        }
+
+        topStart = new int[nodes + 1];
+        for (int node = 0; node < nodes; node++) {
+            topStart[node + 1] = topStart[node] + counts[node];
+        }
+        top = new int[topStart[nodes]];
+        for (int node = 0; node < nodes; node++) {
+            System.arraycopy(lists, node * maxResults, top, topStart[node], counts[node]);
+        }
+    }
+
+    /**
+     * Up to {@code limit} locations with a name, English name or pinyin initials starting with {@code query}.
+     * Case, spaces and apostrophes in the query are ignored.
+     */
+    public List<City> suggest(CharSequence query, int limit) {
+        int node = -1;
+        for (int i = 0; query != null && i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == ' ' || c == '\'') {
+                continue;
+            }
+            node = children.get(edge(Math.max(node, 0), fold(c)));
+            if (node < 0) {
+                return List.of();
+            }
+        }
+        if (node < 0) {
+            return List.of();
+        }
+        int from = topStart[node];
+        int to = Math.min(topStart[node + 1], from + Math.min(limit, maxResults));
+        List<City> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            result.add(store.city(top[i]));
+        }
+        return result;
+    }
+
+    private static String letters(String nameEn) {
+        if (nameEn == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(nameEn.length());
+        for (int i = 0; i < nameEn.length(); i++) {
+            char c = nameEn.charAt(i);
+            if (c != ' ' && c != '\'') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static long edge(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+}
@@ -0,0 +1,122 @@
+package com.nimbus.agentai.city;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Derives pinyin initials ("cy" for 朝阳) from the English name column, which for Chinese locations is the toneless
+ * pinyin ("Chaoyang", "Xi'an"). The romanization is split into exactly as many syllables as the Chinese name has
+ * characters. A trailing English word ("Zhong County", "Yushu Prefecture") is dropped and matched against the name
+ * without its administrative suffix; names that still do not split (Harbin, Hohhot) get no initials.
+ */
+public final class PinyinInitials {
+
+    private static final Set<String> SYLLABLES = new HashSet<>();
+    private static final int MAX_SYLLABLE = 6;
+
+    static {
+        String table = "a ai an ang ao ba bai ban bang bao bei ben beng bi bian biao bie bin bing bo bu ca cai can"
+                + " cang cao ce cen ceng cha chai chan chang chao che chen cheng chi chong chou chu chua chuai chuan"
+                + " chuang chui chun chuo ci cong cou cu cuan cui cun cuo da dai dan dang dao de dei den deng di dia"
+                + " dian diao die ding diu dong dou du duan dui dun duo e ei en eng er fa fan fang fei fen feng fo"
+                + " fou fu ga gai gan gang gao ge gei gen geng gong gou gu gua guai guan guang gui gun guo ha hai"
+                + " han hang hao he hei hen heng hong hou hu hua huai huan huang hui hun huo ji jia jian jiang jiao"
+                + " jie jin jing jiong jiu ju juan jue jun ka kai kan kang kao ke kei ken keng kong kou ku kua kuai"
+                + " kuan kuang kui kun kuo la lai lan lang lao le lei leng li lia lian liang liao lie lin ling liu"
+                + " lo long lou lu luan lue lun luo lv ma mai man mang mao me mei men meng mi mian miao mie min ming"
+                + " miu mo mou mu na nai nan nang nao ne nei nen neng ni nian niang niao nie nin ning niu nong nou"
+                + " nu nuan nue nuo nv o ou pa pai pan pang pao pei pen peng pi pian piao pie pin ping po pou pu qi"
+                + " qia qian qiang qiao qie qin qing qiong qiu qu quan que qun ran rang rao re ren reng ri rong rou"
+                + " ru rua ruan rui run ruo sa sai san sang sao se sen seng sha shai shan shang shao she shei shen"
+                + " sheng shi shou shu shua shuai shuan shuang shui shun shuo si song sou su suan sui sun suo ta tai"
+                + " tan tang tao te teng ti tian tiao tie ting tong tou tu tuan tui tun tuo wa wai wan wang wei wen"
+                + " weng wo wu xi xia xian xiang xiao xie xin xing xiong xiu xu xuan xue xun ya yan yang yao ye yi"
+                + " yin ying yo yong you yu yuan yue yun za zai zan zang zao ze zei zen zeng zha zhai zhan zhang"
+                + " zhao zhe zhei zhen zheng zhi zhong zhou zhu zhua zhuai zhuan zhuang zhui zhun zhuo zi zong zou"
+                + " zu zuan zui zun zuo";
+        for (String syllable : table.split(" ")) {
+            SYLLABLES.add(syllable);
+        }
+    }
+
+    private PinyinInitials() {}
+
+    /**
+     * Initials for a location, or {@code null} when its English name is not the pinyin of its Chinese name.
+     */
+    public static String forName(String name, String nameEn) {
+        if (name == null || nameEn == null) {
+            return null;
+        }
+        int space = nameEn.indexOf(' ');
+        String pinyin = space > 0 ? nameEn.substring(0, space) : nameEn;
+        String initials = of(pinyin, name.length());
+        if (initials == null) {
+            String normalized = CityIndex.normalizeName(name);
+            if (normalized.length() != name.length()) {
+                initials = of(pinyin, normalized.length());
+            }
+        }
+        return initials;
+    }
+
+    /**
+     * Initials for {@code nameEn} split into {@code syllables} syllables, or {@code null} when it cannot be split so.
+     */
+    public static String of(String nameEn, int syllables) {
+        if (nameEn == null || syllables <= 0) {
+            return null;
+        }
+        // an apostrophe marks a syllable boundary (Xi'an); any other non-letter means it is not plain pinyin
+        String[] parts = nameEn.toLowerCase(Locale.ROOT).split("'", -1);
+        StringBuilder initials = new StringBuilder(syllables);
+        int remaining = syllables;
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c < 'a' || c > 'z') {
+                    return null;
+                }
+            }
+            // leave at least one syllable for each later part; the last part takes all that remain
+            int later = parts.length - 1 - i;
+            int found = -1;
+            for (int count = later == 0 ? remaining : 1; count <= remaining - later && found < 0; count++) {
+                if (split(part, 0, count, initials)) {
+                    found = count;
+                }
+            }
+            if (found < 0) {
+                return null;
+            }
+            remaining -= found;
+        }
+        return remaining == 0 ? initials.toString() : null;
+    }
+
+    /**
+     * Splits {@code text[from..]} into exactly {@code count} syllables, preferring longer syllables first
+     * ("xian" as one syllable rather than "xi an"), and appends their initials.
+     */
+    private static boolean split(String text, int from, int count, StringBuilder initials) {
+        if (from == text.length()) {
+            return count == 0;
+        }
+        if (count == 0) {
+            return false;
+        }
+        int mark = initials.length();
+        for (int end = Math.min(text.length(), from + MAX_SYLLABLE); end > from; end--) {
+            if (SYLLABLES.contains(text.substring(from, end))) {
+                initials.append(text.charAt(from));
+                if (split(text, end, count - 1, initials)) {
+                    return true;
+                }
+                initials.setLength(mark);
+            }
+        }
+        return false;
+    }
+}
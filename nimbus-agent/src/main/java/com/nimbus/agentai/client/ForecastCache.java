@@ -0,0 +1,260 @@
+package com.nimbus.agentai.client;
+
+import com.nimbus.agentai.model.CompactForecast;
+import com.nimbus.agentai.model.WeatherResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Forecast cache keyed by locationId. One entry per location holds the longest forecast fetched so far,
+ * so a cached 30-day response also answers 3/7/10/15-day requests by slicing {@code daily}.
+ * Entries are kept as {@link CompactForecast}; {@link WeatherResponse} DTOs are built only on read.
+ * Expired entries are kept for a stale-while-revalidate window so callers can answer immediately
+ * while a refresh runs in the background, and up to {@code max-stale} as last-known-good data
+ * for when upstream is unavailable.
+ */
+@Slf4j
+@Component
+public class ForecastCache {
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private Duration ttl = Duration.ofHours(1);
+
+    private Duration minTtl = Duration.ofMinutes(5);
+
+    private Duration staleWhileRevalidate = Duration.ofMinutes(30);
+
+    private Duration maxStale = Duration.ofHours(24);
+
+    private int lowQuotaTtlMultiplier = 3;
+
+    private final QuotaRateLimiter quotaRateLimiter;
+
+    private final ConcurrentHashMap<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    public ForecastCache(QuotaRateLimiter quotaRateLimiter) {
+        this.quotaRateLimiter = quotaRateLimiter;
+    }
+
+    @Value("${nimbus.weather.cache.ttl:PT1H}")
+    public void setTtl(Duration ttl) {
+        if (ttl != null && !ttl.isNegative() && !ttl.isZero()) {
+            this.ttl = ttl;
+        }
+    }
+
+    @Value("${nimbus.weather.cache.min-ttl:PT5M}")
+    public void setMinTtl(Duration minTtl) {
+        if (minTtl != null && !minTtl.isNegative()) {
+            this.minTtl = minTtl;
+        }
+    }
+
+    @Value("${nimbus.weather.cache.stale-while-revalidate:PT30M}")
+    public void setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+        if (staleWhileRevalidate != null && !staleWhileRevalidate.isNegative()) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+    }
+
+    @Value("${nimbus.weather.cache.max-stale:PT24H}")
+    public void setMaxStale(Duration maxStale) {
+        if (maxStale != null && !maxStale.isNegative()) {
+            this.maxStale = maxStale;
+        }
+    }
+
+    @Value("${nimbus.weather.cache.low-quota-ttl-multiplier:3}")
+    public void setLowQuotaTtlMultiplier(int lowQuotaTtlMultiplier) {
+        this.lowQuotaTtlMultiplier = Math.max(1, lowQuotaTtlMultiplier);
+    }
+
+    public Optional<WeatherResponse> get(String locationId, int days) {
+        Entry entry = covering(locationId, days);
+        if (entry == null || !isFresh(entry, Instant.now())) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.forecast().toResponse(days));
+    }
+
+    /**
+     * Returns an expired entry that is still inside the stale-while-revalidate window.
+     */
+    public Optional<WeatherResponse> getStale(String locationId, int days) {
+        Entry entry = covering(locationId, days);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        if (isFresh(entry, now) || !now.isBefore(freshUntil(entry).plus(staleWhileRevalidate))) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.forecast().toResponse(days));
+    }
+
+    /**
+     * Returns the newest cached response up to {@code max-stale} past expiry, marked stale unless still fresh.
+     */
+    public Optional<WeatherResponse> getLastKnownGood(String locationId, int days) {
+        Entry entry = covering(locationId, days);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        WeatherResponse response = entry.forecast().toResponse(days);
+        response.setStale(!isFresh(entry, Instant.now()));
+        return Optional.of(response);
+    }
+
+    /**
+     * True when the location has no entry or its entry expires within {@code ahead}.
+     */
+    public boolean needsRefresh(String locationId, Duration ahead) {
+        Entry entry = locationId != null ? entries.get(locationId) : null;
+        return entry == null || !isFresh(entry, Instant.now().plus(ahead));
+    }
+
+    public int cachedDays(String locationId) {
+        Entry entry = locationId != null ? entries.get(locationId) : null;
+        return entry != null ? entry.days() : 0;
+    }
+
+    public void recordRequest(String locationId) {
+        if (locationId != null) {
+            requestCounts.computeIfAbsent(locationId, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Returns request counts since the previous call and resets them.
+     */
+    public Map<String, Long> drainRequestCounts() {
+        Map<String, Long> snapshot = new HashMap<>();
+        for (String locationId : requestCounts.keySet()) {
+            LongAdder counter = requestCounts.remove(locationId);
+            if (counter != null) {
+                snapshot.put(locationId, counter.sum());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Stores a successful response and returns its expiry, or {@code null} when it was not stored
+     * (failed response, or a fresh entry covering more days is already cached).
+     */
+    public Instant put(String locationId, int days, CompactForecast forecast) {
+        if (locationId == null || forecast == null || !forecast.isSuccess()) {
+            return null;
+        }
+        Instant now = Instant.now();
+        Entry entry = new Entry(days, forecast, expiresAt(forecast, now));
+        if (!store(locationId, entry, now)) {
+            return null;
+        }
+        log.debug("缓存天气预报: locationId={}, days={}, expiresAt={}", locationId, days, entry.expiresAt());
+        return entry.expiresAt();
+    }
+
+    /**
+     * Re-inserts a persisted entry with its original expiry; entries past {@code max-stale} are dropped.
+     */
+    public void restore(String locationId, int days, WeatherResponse response, Instant expiresAt) {
+        if (locationId == null || response == null || expiresAt == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (!now.isBefore(expiresAt.plus(maxStale))) {
+            return;
+        }
+        store(locationId, new Entry(days, CompactForecast.from(response), expiresAt), now);
+    }
+
+    public List<Snapshot> snapshot() {
+        List<Snapshot> snapshot = new ArrayList<>(entries.size());
+        entries.forEach((locationId, entry) ->
+                snapshot.add(new Snapshot(locationId, entry.days(), entry.forecast().toResponse(entry.days()), entry.expiresAt())));
+        return snapshot;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean store(String locationId, Entry entry, Instant now) {
+        Entry stored = entries.merge(locationId, entry, (existing, incoming) ->
+                existing.isFresh(now) && existing.days() > incoming.days() ? existing : incoming);
+        return stored == entry;
+    }
+
+    private Entry covering(String locationId, int days) {
+        if (locationId == null) {
+            return null;
+        }
+        Entry entry = entries.get(locationId);
+        if (entry == null) {
+            return null;
+        }
+        if (!Instant.now().isBefore(freshUntil(entry).plus(maxStale))) {
+            entries.remove(locationId, entry);
+            return null;
+        }
+        return entry.days() >= days ? entry : null;
+    }
+
+    private boolean isFresh(Entry entry, Instant now) {
+        return now.isBefore(freshUntil(entry));
+    }
+
+    /**
+     * Entry expiry, stretched to {@code ttl * low-quota-ttl-multiplier} while the upstream quota runs low.
+     */
+    private Instant freshUntil(Entry entry) {
+        if (lowQuotaTtlMultiplier > 1 && quotaRateLimiter.isLow()) {
+            return entry.expiresAt().plus(ttl.multipliedBy(lowQuotaTtlMultiplier - 1));
+        }
+        return entry.expiresAt();
+    }
+
+    private Instant expiresAt(CompactForecast forecast, Instant now) {
+        Instant floor = now.plus(minTtl);
+        Instant updatedAt = parseUpdateTime(forecast.getUpdateTime());
+        if (updatedAt == null) {
+            return now.plus(ttl);
+        }
+        Instant byUpdateTime = updatedAt.plus(ttl);
+        return byUpdateTime.isAfter(floor) ? byUpdateTime : floor;
+    }
+
+    private static Instant parseUpdateTime(String updateTime) {
+        if (updateTime == null || updateTime.isBlank()) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(updateTime.trim()).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public record Snapshot(String locationId, int days, WeatherResponse response, Instant expiresAt) {}
+
+    private record Entry(int days, CompactForecast forecast, Instant expiresAt) {
+        boolean isFresh(Instant now) {
+            return now.isBefore(expiresAt);
+        }
+    }
+}
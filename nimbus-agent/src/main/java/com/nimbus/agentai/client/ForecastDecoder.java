@@ -0,0 +1,118 @@
+package com.nimbus.agentai.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbus.agentai.model.CompactForecast;
+import com.nimbus.agentai.model.WeatherResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+
+/**
+ * Decodes a QWeather {@code /v7/weather/{n}d} body straight from the response buffer into a {@link CompactForecast}
+ * using Jackson's token API: day fields are parsed from the parser's character buffer and fields the cache does not
+ * keep are skipped without being materialized. Falls back to a full {@link WeatherResponse} bind when the payload
+ * does not have the expected shape.
+ */
+@Slf4j
+@Component
+public class ForecastDecoder {
+
+    private final ObjectMapper objectMapper;
+
+    public ForecastDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public CompactForecast decode(DataBuffer buffer) {
+        int start = buffer.readPosition();
+        try (InputStream in = buffer.asInputStream()) {
+            return stream(in);
+        } catch (IOException | RuntimeException e) {
+            log.debug("流式解析天气响应失败，回退完整解析: {}", e.getMessage());
+        }
+        buffer.readPosition(start);
+        try (InputStream in = buffer.asInputStream()) {
+            return CompactForecast.from(objectMapper.readValue(in, WeatherResponse.class));
+        } catch (IOException e) {
+            throw new DecodingException("天气响应解析失败: " + e.getMessage(), e);
+        }
+    }
+
+    private CompactForecast stream(InputStream in) throws IOException {
+        CompactForecast.Builder builder = CompactForecast.builder();
+        try (JsonParser parser = objectMapper.createParser(in)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "code" -> builder.code(text(parser, value));
+                    case "updateTime" -> builder.updateTime(text(parser, value));
+                    case "fxLink" -> builder.fxLink(text(parser, value));
+                    case "refer" -> builder.refer(value == JsonToken.VALUE_NULL
+                            ? null : parser.readValueAs(WeatherResponse.Refer.class));
+                    case "daily" -> readDaily(parser, value, builder);
+                    default -> parser.skipChildren();
+                }
+            }
+            expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+        }
+        return builder.build();
+    }
+
+    private static void readDaily(JsonParser parser, JsonToken token, CompactForecast.Builder builder) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            builder.beginDay();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("fxDate".equals(name)) {
+                    builder.fxDate(chars(parser, value));
+                    continue;
+                }
+                int field = CompactForecast.fieldIndex(name);
+                if (field >= 0) {
+                    builder.set(field, chars(parser, value));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+    }
+
+    private static CharSequence chars(JsonParser parser, JsonToken token) throws IOException {
+        if (!token.isScalarValue()) {
+            throw new IOException("daily 字段不是标量: " + parser.currentName());
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return CharBuffer.wrap(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (!token.isScalarValue()) {
+            throw new IOException("字段不是标量: " + parser.currentName());
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("期望 " + expected + "，实际 " + actual + " @ " + parser.currentLocation());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.nimbus.agentai.client;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbus.agentai.model.CompactForecast;
+import com.nimbus.agentai.model.WeatherResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only on-disk segment for {@link ForecastCache}, so a restarted node serves cached forecasts right away.
+ * Each record is {@code [length][crc32][json]}; on startup the segment is replayed into the cache and a torn tail
+ * is truncated. Appends and compaction (rewrite of the live entries, then atomic rename) run on one writer thread.
+ */
+@Slf4j
+@Component
+public class ForecastDiskStore {
+
+    private static final String SEGMENT_FILE = "forecast.log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 4 * 1024 * 1024;
+
+    private final ForecastCache forecastCache;
+    private final ObjectMapper objectMapper;
+
+    private String dir = "";
+    private Duration compactInterval = Duration.ofMinutes(10);
+
+    private Path segment;
+    private FileChannel channel;
+    private ScheduledExecutorService writer;
+    private long appendedRecords;
+
+    public ForecastDiskStore(ForecastCache forecastCache, ObjectMapper objectMapper) {
+        this.forecastCache = forecastCache;
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Value("${nimbus.weather.cache.persist.dir:}")
+    public void setDir(String dir) {
+        this.dir = dir != null ? dir.trim() : "";
+    }
+
+    @Value("${nimbus.weather.cache.persist.compact-interval:PT10M}")
+    public void setCompactInterval(Duration compactInterval) {
+        if (compactInterval != null && !compactInterval.isNegative() && !compactInterval.isZero()) {
+            this.compactInterval = compactInterval;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (dir.isEmpty()) {
+            log.info("天气缓存持久化未开启（nimbus.weather.cache.persist.dir 为空）");
+            return;
+        }
+        try {
+            Path directory = Path.of(dir);
+            Files.createDirectories(directory);
+            segment = directory.resolve(SEGMENT_FILE);
+            long start = System.currentTimeMillis();
+            long validBytes = replay();
+            channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            channel.truncate(validBytes);
+            channel.position(validBytes);
+            log.info("天气缓存已从磁盘恢复: {} 条记录, {} 个城市, 耗时 {} ms",
+                    appendedRecords, forecastCache.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("天气缓存持久化初始化失败，降级为纯内存缓存: {}", e.getMessage(), e);
+            closeQuietly();
+            return;
+        }
+
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "forecast-disk-store");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalMs = compactInterval.toMillis();
+        writer.scheduleWithFixedDelay(this::compactIfNeeded, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly();
+    }
+
+    public void append(String locationId, int days, CompactForecast forecast, Instant expiresAt) {
+        if (writer == null || writer.isShutdown() || expiresAt == null) {
+            return;
+        }
+        writer.execute(() -> {
+            try {
+                write(channel, new Record(locationId, days, expiresAt.toEpochMilli(), forecast.toResponse(days)));
+                appendedRecords++;
+            } catch (IOException e) {
+                log.warn("天气缓存写盘失败: locationId={}, error={}", locationId, e.getMessage());
+            }
+        });
+    }
+
+    private long replay() throws IOException {
+        if (!Files.exists(segment)) {
+            return 0;
+        }
+        long valid = 0;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (true) {
+                header.clear();
+                if (readFully(in, header) < HEADER_BYTES) {
+                    break;
+                }
+                header.flip();
+                int length = header.getInt();
+                long crc = header.getInt() & 0xFFFFFFFFL;
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                if (readFully(in, body) < length || crc32(body.array()) != crc) {
+                    break;
+                }
+                try {
+                    Record record = objectMapper.readValue(body.array(), Record.class);
+                    forecastCache.restore(record.locationId(), record.days(), record.response(),
+                            Instant.ofEpochMilli(record.expiresAt()));
+                } catch (IOException e) {
+                    log.debug("跳过无法解析的缓存记录: {}", e.getMessage());
+                }
+                valid = in.position();
+                appendedRecords++;
+            }
+        }
+        return valid;
+    }
+
+    private void compactIfNeeded() {
+        int live = forecastCache.size();
+        if (appendedRecords <= Math.max(64, 2L * live)) {
+            return;
+        }
+        Path tmp = segment.resolveSibling(SEGMENT_FILE + ".tmp");
+        long written = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (ForecastCache.Snapshot entry : forecastCache.snapshot()) {
+                write(out, new Record(entry.locationId(), entry.days(), entry.expiresAt().toEpochMilli(), entry.response()));
+                written++;
+            }
+            out.force(true);
+        } catch (IOException e) {
+            log.warn("天气缓存压缩失败: {}", e.getMessage());
+            return;
+        }
+        try {
+            channel.close();
+            Files.move(tmp, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            log.debug("天气缓存压缩完成: {} -> {} 条记录", appendedRecords, written);
+            appendedRecords = written;
+        } catch (IOException e) {
+            log.warn("天气缓存压缩后切换文件失败，停止持久化: {}", e.getMessage());
+            writer.shutdown();
+        }
+    }
+
+    private void write(FileChannel out, Record record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + json.length);
+        buffer.putInt(json.length);
+        buffer.putInt((int) crc32(json));
+        buffer.put(json);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static int readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    private static long crc32(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    private void closeQuietly() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException ignored) {
+            // best effort on shutdown
+        }
+    }
+
+    private record Record(String locationId, int days, long expiresAt, WeatherResponse response) {}
+}
@@ -0,0 +1,154 @@
+package com.nimbus.agentai.client;
+
+import com.nimbus.agentai.config.CityConfig;
+import com.nimbus.agentai.model.City;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh-ahead prefetcher: keeps forecasts warm for the hot city list and for any location whose
+ * request count in the last cycle reached the threshold. Cycles and individual refreshes are jittered,
+ * and each cycle issues at most {@code max-calls-per-cycle} upstream calls.
+ */
+@Slf4j
+@Component
+public class ForecastPrefetcher {
+
+    private final QWeatherClient qWeatherClient;
+    private final ForecastCache forecastCache;
+    private final CityConfig cityConfig;
+
+    private boolean enabled = true;
+    private Duration interval = Duration.ofMinutes(5);
+    private Duration refreshAhead = Duration.ofMinutes(15);
+    private int days = 7;
+    private int hotThreshold = 20;
+    private int maxCallsPerCycle = 20;
+
+    private ScheduledExecutorService scheduler;
+
+    public ForecastPrefetcher(QWeatherClient qWeatherClient, ForecastCache forecastCache, CityConfig cityConfig) {
+        this.qWeatherClient = qWeatherClient;
+        this.forecastCache = forecastCache;
+        this.cityConfig = cityConfig;
+    }
+
+    @Value("${nimbus.weather.prefetch.enabled:true}")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Value("${nimbus.weather.prefetch.interval:PT5M}")
+    public void setInterval(Duration interval) {
+        if (interval != null && !interval.isNegative() && !interval.isZero()) {
+            this.interval = interval;
+        }
+    }
+
+    @Value("${nimbus.weather.prefetch.refresh-ahead:PT15M}")
+    public void setRefreshAhead(Duration refreshAhead) {
+        if (refreshAhead != null && !refreshAhead.isNegative()) {
+            this.refreshAhead = refreshAhead;
+        }
+    }
+
+    @Value("${nimbus.weather.prefetch.days:7}")
+    public void setDays(int days) {
+        this.days = days;
+    }
+
+    @Value("${nimbus.weather.prefetch.hot-threshold:20}")
+    public void setHotThreshold(int hotThreshold) {
+        this.hotThreshold = Math.max(1, hotThreshold);
+    }
+
+    @Value("${nimbus.weather.prefetch.max-calls-per-cycle:20}")
+    public void setMaxCallsPerCycle(int maxCallsPerCycle) {
+        this.maxCallsPerCycle = Math.max(0, maxCallsPerCycle);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("天气预取已关闭");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "forecast-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduleNextCycle(jitter(Duration.ofSeconds(5), 1.0));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void scheduleNextCycle(long delayMs) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            try {
+                runCycle();
+            } catch (Exception e) {
+                log.warn("天气预取周期异常: {}", e.getMessage(), e);
+            } finally {
+                scheduleNextCycle(jitter(interval, 0.2));
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runCycle() {
+        Set<String> candidates = new LinkedHashSet<>();
+        for (City city : cityConfig.getHotCities()) {
+            candidates.add(city.getLocationId());
+        }
+        forecastCache.drainRequestCounts().entrySet().stream()
+                .filter(e -> e.getValue() >= hotThreshold)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> candidates.add(e.getKey()));
+
+        List<String> due = candidates.stream()
+                .filter(id -> forecastCache.needsRefresh(id, refreshAhead))
+                .limit(maxCallsPerCycle)
+                .toList();
+        if (due.isEmpty()) {
+            return;
+        }
+
+        log.debug("天气预取: 候选 {} 个，本轮刷新 {} 个", candidates.size(), due.size());
+        long spreadMs = interval.toMillis() / 2;
+        for (String locationId : due) {
+            int refreshDays = Math.max(days, forecastCache.cachedDays(locationId));
+            long delayMs = ThreadLocalRandom.current().nextLong(Math.max(1, spreadMs));
+            scheduler.schedule(() -> qWeatherClient.refreshAsync(locationId, refreshDays, QuotaRateLimiter.Lane.BACKGROUND).subscribe(
+                    response -> {},
+                    e -> log.warn("预取天气失败: locationId={}, error={}", locationId, e.getMessage())
+            ), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static long jitter(Duration base, double ratio) {
+        long baseMs = base.toMillis();
+        long range = (long) (baseMs * ratio);
+        if (range <= 0) {
+            return baseMs;
+        }
+        return Math.max(0, baseMs - range / 2 + ThreadLocalRandom.current().nextLong(range));
+    }
+}
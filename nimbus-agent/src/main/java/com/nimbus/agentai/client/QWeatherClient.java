@@ -1,12 +1,19 @@
 package com.nimbus.agentai.client;
 
+import com.nimbus.agentai.client.QuotaRateLimiter.Lane;
+import com.nimbus.agentai.model.CompactForecast;
 import com.nimbus.agentai.model.WeatherResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.Set;
 
 @Slf4j
@@ -15,13 +22,32 @@ public class QWeatherClient {
 
     private final WebClient webClient;
     private final String apiKey;
+    private final ForecastCache forecastCache;
+    private final UpstreamGuard upstreamGuard;
+    private final QuotaRateLimiter quotaRateLimiter;
+    private final ForecastDiskStore forecastDiskStore;
+    private final ForecastDecoder forecastDecoder;
+    private final RequestHedger requestHedger;
+    private final SingleFlight<ForecastKey, CompactForecast> inFlight = new SingleFlight<>();
 
     private static final Set<Integer> SUPPORTED_FORECAST_DAYS = Set.of(3, 7, 10, 15, 30);
 
     public QWeatherClient(WebClient weatherWebClient,
-                          @Value("${nimbus.weather.api-key}") String apiKey) {
+                          @Value("${nimbus.weather.api-key}") String apiKey,
+                          ForecastCache forecastCache,
+                          UpstreamGuard upstreamGuard,
+                          QuotaRateLimiter quotaRateLimiter,
+                          ForecastDiskStore forecastDiskStore,
+                          ForecastDecoder forecastDecoder,
+                          RequestHedger requestHedger) {
         this.webClient = weatherWebClient;
         this.apiKey = apiKey;
+        this.forecastCache = forecastCache;
+        this.upstreamGuard = upstreamGuard;
+        this.quotaRateLimiter = quotaRateLimiter;
+        this.forecastDiskStore = forecastDiskStore;
+        this.forecastDecoder = forecastDecoder;
+        this.requestHedger = requestHedger;
     }
 
     public WeatherResponse get7DayForecast(String locationId) {
@@ -29,18 +55,8 @@ public class QWeatherClient {
     }
 
     public WeatherResponse getForecast(String locationId, int days) {
-        int normalizedDays = normalizeForecastDays(days);
         try {
-            return webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/v7/weather/" + normalizedDays + "d")
-                            .queryParam("location", locationId)
-                            .queryParam("key", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(WeatherResponse.class)
-                    .doOnNext(response -> log.debug("收到响应: code={}", response != null ? response.getCode() : "null"))
-                    .block();
+            return getForecastAsync(locationId, days).block();
         } catch (WebClientResponseException e) {
             log.error("和风 API 调用失败: status={}, body={}", e.getStatusCode(), e.getResponseBodyAsString(), e);
             throw new RuntimeException("天气服务暂时不可用", e);
@@ -50,10 +66,95 @@ public class QWeatherClient {
         }
     }
 
+    public Mono<WeatherResponse> getForecastAsync(String locationId, int days) {
+        int normalizedDays = normalizeForecastDays(days);
+        return Mono.defer(() -> {
+            forecastCache.recordRequest(locationId);
+            Optional<WeatherResponse> cached = forecastCache.get(locationId, normalizedDays);
+            if (cached.isPresent()) {
+                log.debug("命中天气缓存: locationId={}, days={}", locationId, normalizedDays);
+                return Mono.just(cached.get());
+            }
+            Optional<WeatherResponse> stale = forecastCache.getStale(locationId, normalizedDays);
+            if (stale.isPresent()) {
+                log.debug("命中过期缓存，后台刷新: locationId={}, days={}", locationId, normalizedDays);
+                refreshAsync(locationId, refreshDays(locationId, normalizedDays), Lane.BACKGROUND).subscribe(
+                        response -> {},
+                        e -> log.warn("后台刷新天气失败: locationId={}, error={}", locationId, e.getMessage()));
+                return Mono.just(stale.get());
+            }
+            return fetch(locationId, refreshDays(locationId, normalizedDays), normalizedDays, Lane.INTERACTIVE)
+                    .onErrorResume(e -> forecastCache.getLastKnownGood(locationId, normalizedDays)
+                            .map(lastKnownGood -> {
+                                log.warn("天气服务不可用，返回最近一次成功数据: locationId={}, error={}", locationId, e.getMessage());
+                                return Mono.just(lastKnownGood);
+                            })
+                            .orElseGet(() -> Mono.error(e)));
+        });
+    }
+
+    /**
+     * Fetches from upstream regardless of cache state and stores the result; used for revalidation and prefetch.
+     * The call consumes quota from the given lane and fails fast when the lane has no budget left;
+     * a hedged second request, if sent, takes quota from the same lane.
+     */
+    public Mono<WeatherResponse> refreshAsync(String locationId, int days, Lane lane) {
+        int normalizedDays = normalizeForecastDays(days);
+        return fetch(locationId, normalizedDays, normalizedDays, lane);
+    }
+
+    /**
+     * Fetches {@code fetchDays} from upstream and answers with the first {@code responseDays} of them.
+     */
+    private Mono<WeatherResponse> fetch(String locationId, int fetchDays, int responseDays, Lane lane) {
+        return inFlight.execute(new ForecastKey(locationId, fetchDays, lane),
+                () -> upstreamGuard.protect(() -> quotaRateLimiter.tryAcquire(lane)
+                        ? requestHedger.hedge(() -> fetchForecast(locationId, fetchDays), () -> quotaRateLimiter.tryAcquire(lane))
+                        : Mono.error(new UpstreamGuard.UpstreamUnavailableException("天气查询配额不足，请稍后重试"))))
+                .map(forecast -> forecast.toResponse(responseDays));
+    }
+
+    /**
+     * Days to fetch when refreshing a location: never fewer than it has cached, since the refreshed entry replaces
+     * the cached one and a shorter fetch would drop the days that back longer requests.
+     */
+    private int refreshDays(String locationId, int days) {
+        return Math.max(days, forecastCache.cachedDays(locationId));
+    }
+
+    private Mono<CompactForecast> fetchForecast(String locationId, int days) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/v7/weather/" + days + "d")
+                        .queryParam("location", locationId)
+                        .queryParam("key", apiKey)
+                        .build())
+                .retrieve()
+                .bodyToMono(DataBuffer.class)
+                .map(buffer -> {
+                    try {
+                        return forecastDecoder.decode(buffer);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .doOnNext(forecast -> {
+                    log.debug("收到响应: code={}", forecast.getCode());
+                    Instant expiresAt = forecastCache.put(locationId, days, forecast);
+                    forecastDiskStore.append(locationId, days, forecast, expiresAt);
+                });
+    }
+
     private static int normalizeForecastDays(int days) {
         if (SUPPORTED_FORECAST_DAYS.contains(days)) {
             return days;
         }
         return 7;
     }
+
+    /**
+     * The lane is part of the key: quota is taken inside the shared call, so a caller joining a call on another
+     * lane would inherit that lane's quota rejection.
+     */
+    private record ForecastKey(String locationId, int days, Lane lane) {}
 }
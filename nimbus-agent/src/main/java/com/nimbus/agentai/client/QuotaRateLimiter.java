@@ -0,0 +1,112 @@
+package com.nimbus.agentai.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side token bucket for the QWeather per-minute quota, with two priority lanes.
+ * Interactive calls (chat / tool calls) may drain the bucket; background calls (prefetch, revalidation)
+ * must leave {@code background-reserve} of the capacity untouched. A quota of 0 disables limiting.
+ */
+@Slf4j
+@Component
+public class QuotaRateLimiter {
+
+    public enum Lane { INTERACTIVE, BACKGROUND }
+
+    private int perMinute;
+    private double backgroundReserve = 0.3;
+    private double lowWatermark = 0.2;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    private final LongAdder interactiveGranted = new LongAdder();
+    private final LongAdder interactiveRejected = new LongAdder();
+    private final LongAdder backgroundGranted = new LongAdder();
+    private final LongAdder backgroundRejected = new LongAdder();
+
+    @Value("${nimbus.weather.quota.per-minute:0}")
+    public synchronized void setPerMinute(int perMinute) {
+        this.perMinute = Math.max(0, perMinute);
+        this.tokens = this.perMinute;
+    }
+
+    @Value("${nimbus.weather.quota.background-reserve:0.3}")
+    public void setBackgroundReserve(double backgroundReserve) {
+        this.backgroundReserve = Math.max(0, Math.min(1, backgroundReserve));
+    }
+
+    @Value("${nimbus.weather.quota.low-watermark:0.2}")
+    public void setLowWatermark(double lowWatermark) {
+        this.lowWatermark = Math.max(0, Math.min(1, lowWatermark));
+    }
+
+    public boolean tryAcquire(Lane lane) {
+        boolean granted = tryTake(lane);
+        if (lane == Lane.INTERACTIVE) {
+            (granted ? interactiveGranted : interactiveRejected).increment();
+        } else {
+            (granted ? backgroundGranted : backgroundRejected).increment();
+        }
+        if (!granted) {
+            log.debug("和风配额不足，拒绝 {} 请求", lane);
+        }
+        return granted;
+    }
+
+    /**
+     * True when the remaining budget is below the low watermark; caches use this to stretch TTLs.
+     */
+    public synchronized boolean isLow() {
+        if (perMinute == 0) {
+            return false;
+        }
+        refill();
+        return tokens < perMinute * lowWatermark;
+    }
+
+    public synchronized QuotaStats stats() {
+        if (perMinute > 0) {
+            refill();
+        }
+        return new QuotaStats(perMinute,
+                perMinute == 0 ? -1 : (int) tokens,
+                perMinute > 0 && tokens < perMinute * lowWatermark,
+                interactiveGranted.sum(),
+                interactiveRejected.sum(),
+                backgroundGranted.sum(),
+                backgroundRejected.sum());
+    }
+
+    private synchronized boolean tryTake(Lane lane) {
+        if (perMinute == 0) {
+            return true;
+        }
+        refill();
+        double floor = lane == Lane.BACKGROUND ? perMinute * backgroundReserve : 0;
+        if (tokens - 1 < floor) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double refilled = (now - lastRefillNanos) / 60_000_000_000.0 * perMinute;
+        tokens = Math.min(perMinute, tokens + refilled);
+        lastRefillNanos = now;
+    }
+
+    public record QuotaStats(int perMinute,
+                             int remaining,
+                             boolean low,
+                             long interactiveGranted,
+                             long interactiveRejected,
+                             long backgroundGranted,
+                             long backgroundRejected) {}
+}
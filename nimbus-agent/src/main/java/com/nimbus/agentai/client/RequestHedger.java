@@ -0,0 +1,108 @@
+package com.nimbus.agentai.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests for upstream tail latency. When a call has not answered after the observed
+ * {@code percentile} latency, an identical second call is sent; the first to answer wins and the other is cancelled.
+ * Each primary call earns {@code budget-percent}/100 of a hedge credit, so hedges stay within that share of traffic.
+ */
+@Slf4j
+@Component
+public class RequestHedger {
+
+    private static final double MAX_CREDITS = 10;
+
+    private final UpstreamGuard upstreamGuard;
+
+    private boolean enabled;
+    private double percentile = 90;
+    private Duration minDelay = Duration.ofMillis(50);
+    private double budgetPercent = 5;
+
+    private double credits;
+    private final LongAdder primaryCalls = new LongAdder();
+    private final LongAdder hedgedCalls = new LongAdder();
+
+    public RequestHedger(UpstreamGuard upstreamGuard) {
+        this.upstreamGuard = upstreamGuard;
+    }
+
+    @Value("${nimbus.weather.hedge.enabled:false}")
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Value("${nimbus.weather.hedge.percentile:90}")
+    public void setPercentile(double percentile) {
+        this.percentile = Math.max(1, Math.min(100, percentile));
+    }
+
+    @Value("${nimbus.weather.hedge.min-delay:PT0.05S}")
+    public void setMinDelay(Duration minDelay) {
+        if (minDelay != null && !minDelay.isNegative()) {
+            this.minDelay = minDelay;
+        }
+    }
+
+    @Value("${nimbus.weather.hedge.budget-percent:5}")
+    public void setBudgetPercent(double budgetPercent) {
+        this.budgetPercent = Math.max(0, Math.min(100, budgetPercent));
+    }
+
+    /**
+     * Runs {@code call}, hedging it once if it is slow. {@code admit} is checked right before the hedge is sent
+     * (e.g. to take quota for it); errors of the hedge are ignored so the primary outcome still decides.
+     */
+    public <T> Mono<T> hedge(Supplier<Mono<T>> call, BooleanSupplier admit) {
+        if (!enabled) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            primaryCalls.increment();
+            earnCredit();
+            long delayMs = upstreamGuard.latencyPercentile(percentile);
+            if (delayMs < 0) {
+                return call.get();
+            }
+            Mono<T> hedged = Mono.delay(Duration.ofMillis(Math.max(minDelay.toMillis(), delayMs)))
+                    .flatMap(tick -> {
+                        if (!trySpendCredit() || !admit.getAsBoolean()) {
+                            return Mono.never();
+                        }
+                        hedgedCalls.increment();
+                        log.debug("上游响应超过 p{} ({} ms)，发送对冲请求", (int) percentile, delayMs);
+                        return call.get().onErrorResume(e -> Mono.never());
+                    });
+            return Mono.firstWithSignal(call.get(), hedged);
+        });
+    }
+
+    public long primaryCalls() {
+        return primaryCalls.sum();
+    }
+
+    public long hedgedCalls() {
+        return hedgedCalls.sum();
+    }
+
+    private synchronized void earnCredit() {
+        credits = Math.min(MAX_CREDITS, credits + budgetPercent / 100.0);
+    }
+
+    private synchronized boolean trySpendCredit() {
+        if (credits < 1) {
+            return false;
+        }
+        credits -= 1;
+        return true;
+    }
+}
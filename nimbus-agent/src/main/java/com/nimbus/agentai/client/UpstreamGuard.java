@@ -0,0 +1,228 @@
+package com.nimbus.agentai.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker + bulkhead + adaptive timeout around QWeather calls.
+ * The breaker opens when the failure rate over the last {@code window-size} calls exceeds the threshold,
+ * stays open for {@code open-duration}, then lets a single probe through. The per-call timeout follows the
+ * observed p99 latency, clamped to [{@code min-timeout}, {@code max-timeout}].
+ */
+@Slf4j
+@Component
+public class UpstreamGuard {
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final int LATENCY_SAMPLES = 128;
+
+    private int windowSize = 20;
+    private int minCalls = 10;
+    private double failureRateThreshold = 0.5;
+    private Duration openDuration = Duration.ofSeconds(30);
+    private Duration minTimeout = Duration.ofSeconds(1);
+    private Duration maxTimeout = Duration.ofSeconds(10);
+    private double timeoutMultiplier = 2.0;
+    private Semaphore bulkhead = new Semaphore(32);
+
+    private State state = State.CLOSED;
+    private long openedAtMs;
+    private boolean probeInFlight;
+    private boolean[] outcomes = new boolean[windowSize];
+    private int outcomeCount;
+    private int outcomeIndex;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyIndex;
+    private volatile long timeoutMs = maxTimeout.toMillis();
+
+    @Value("${nimbus.weather.guard.window-size:20}")
+    public void setWindowSize(int windowSize) {
+        this.windowSize = Math.max(1, windowSize);
+        this.outcomes = new boolean[this.windowSize];
+    }
+
+    @Value("${nimbus.weather.guard.min-calls:10}")
+    public void setMinCalls(int minCalls) {
+        this.minCalls = Math.max(1, minCalls);
+    }
+
+    @Value("${nimbus.weather.guard.failure-rate-threshold:0.5}")
+    public void setFailureRateThreshold(double failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    @Value("${nimbus.weather.guard.open-duration:PT30S}")
+    public void setOpenDuration(Duration openDuration) {
+        if (openDuration != null && !openDuration.isNegative()) {
+            this.openDuration = openDuration;
+        }
+    }
+
+    @Value("${nimbus.weather.guard.max-concurrent:32}")
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    @Value("${nimbus.weather.guard.min-timeout:PT1S}")
+    public void setMinTimeout(Duration minTimeout) {
+        if (minTimeout != null && !minTimeout.isNegative() && !minTimeout.isZero()) {
+            this.minTimeout = minTimeout;
+        }
+    }
+
+    @Value("${nimbus.weather.guard.max-timeout:PT10S}")
+    public void setMaxTimeout(Duration maxTimeout) {
+        if (maxTimeout != null && !maxTimeout.isNegative() && !maxTimeout.isZero()) {
+            this.maxTimeout = maxTimeout;
+            this.timeoutMs = maxTimeout.toMillis();
+        }
+    }
+
+    @Value("${nimbus.weather.guard.timeout-multiplier:2.0}")
+    public void setTimeoutMultiplier(double timeoutMultiplier) {
+        this.timeoutMultiplier = Math.max(1.0, timeoutMultiplier);
+    }
+
+    public <T> Mono<T> protect(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquirePermission()) {
+                return Mono.error(new UpstreamUnavailableException("天气服务熔断中，请稍后重试"));
+            }
+            if (!bulkhead.tryAcquire()) {
+                releaseProbe();
+                return Mono.error(new UpstreamUnavailableException("天气服务繁忙，请稍后重试"));
+            }
+            long start = System.nanoTime();
+            return call.get()
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .doOnSuccess(v -> onSuccess((System.nanoTime() - start) / 1_000_000))
+                    .doOnError(this::onError)
+                    .doOnCancel(this::releaseProbe)
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    /**
+     * Latency at the given percentile (0-100) over recent successful calls, or -1 when there is no sample yet.
+     */
+    public synchronized long latencyPercentile(double percentile) {
+        if (latencyCount == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMs >= openDuration.toMillis()) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void releaseProbe() {
+        probeInFlight = false;
+    }
+
+    private synchronized void onSuccess(long latencyMs) {
+        latencies[latencyIndex] = latencyMs;
+        latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+        latencyCount = Math.min(LATENCY_SAMPLES, latencyCount + 1);
+        if ((latencyIndex & 0xF) == 0) {
+            long p99 = latencyPercentile(99);
+            long adaptive = (long) (p99 * timeoutMultiplier);
+            timeoutMs = Math.max(minTimeout.toMillis(), Math.min(maxTimeout.toMillis(), adaptive));
+        }
+
+        if (state == State.HALF_OPEN) {
+            log.info("天气服务恢复，熔断关闭");
+            state = State.CLOSED;
+            probeInFlight = false;
+            resetOutcomes();
+            return;
+        }
+        recordOutcome(true);
+    }
+
+    private synchronized void onError(Throwable e) {
+        if (!countsAsFailure(e)) {
+            probeInFlight = false;
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        recordOutcome(false);
+        if (state == State.CLOSED && outcomeCount >= minCalls && failureRate() >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        log.warn("天气服务失败率过高，熔断打开 {} 秒", openDuration.toSeconds());
+        state = State.OPEN;
+        openedAtMs = System.currentTimeMillis();
+        probeInFlight = false;
+        resetOutcomes();
+    }
+
+    private void recordOutcome(boolean success) {
+        outcomes[outcomeIndex] = success;
+        outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+        outcomeCount = Math.min(outcomes.length, outcomeCount + 1);
+    }
+
+    private double failureRate() {
+        int failures = 0;
+        for (int i = 0; i < outcomeCount; i++) {
+            if (!outcomes[i]) {
+                failures++;
+            }
+        }
+        return outcomeCount == 0 ? 0 : (double) failures / outcomeCount;
+    }
+
+    private void resetOutcomes() {
+        outcomeCount = 0;
+        outcomeIndex = 0;
+    }
+
+    private static boolean countsAsFailure(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status >= 500 || status == 429;
+        }
+        return !(e instanceof UpstreamUnavailableException);
+    }
+
+    public static class UpstreamUnavailableException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public UpstreamUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package com.nimbus.agentai.clothing;
+
+import com.nimbus.agentai.model.ClothingAdvice;
+import com.nimbus.agentai.model.DailyWeather;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link ClothingRules} compiled into a decision table. Every threshold used by a rule cuts its axis (temperature,
+ * wind scale, humidity, UV index) into intervals, and every distinct keyword list adds a bit to the weather text
+ * class; the table holds the resulting advice for each combination. Evaluation is one array lookup per axis plus
+ * one cache lookup for the weather text, however many rules there are: more rules only make the table larger,
+ * up to {@link #MAX_CELLS}.
+ * <p>
+ * Advice quoting the weather text is rendered the first time a text reaches it and reused from then on.
+ */
+public final class ClothingRuleTable {
+
+    static final int MAX_CELLS = 1 << 20;
+
+    private static final int MAX_TEXT_GROUPS = 8;
+
+    /**
+     * QWeather uses a small fixed set of weather texts; texts beyond this many are classified per call.
+     */
+    private static final int MAX_CACHED_TEXTS = 256;
+
+    private static final String TEXT = "{text}";
+
+    private static final List<Function<ClothingAdvice, String>> FIELDS = List.of(
+            ClothingAdvice::getOverview, ClothingAdvice::getTop, ClothingAdvice::getBottom,
+            ClothingAdvice::getShoes, ClothingAdvice::getAccessories, ClothingAdvice::getReminder);
+
+    private final int ruleCount;
+    private final Axis temp;
+    private final Axis windScale;
+    private final Axis humidity;
+    private final Axis uvIndex;
+    private final String[][] textGroups;
+    /**
+     * Cell -> advice id; cells are laid out as temp, wind scale, humidity, UV index, then the text class bits.
+     */
+    private final int[] cells;
+    private final ClothingAdvice[] advices;
+    /**
+     * Advice id -> its slot among the advices quoting the weather text, or -1.
+     */
+    private final int[] templateSlots;
+    private final int templates;
+    private final TextClass noText;
+    private final ConcurrentHashMap<String, TextClass> texts = new ConcurrentHashMap<>();
+
+    private ClothingRuleTable(int ruleCount, Axis temp, Axis windScale, Axis humidity, Axis uvIndex,
+                              String[][] textGroups, int[] cells, ClothingAdvice[] advices) {
+        this.ruleCount = ruleCount;
+        this.temp = temp;
+        this.windScale = windScale;
+        this.humidity = humidity;
+        this.uvIndex = uvIndex;
+        this.textGroups = textGroups;
+        this.cells = cells;
+        this.advices = advices;
+        this.templateSlots = new int[advices.length];
+        int slot = 0;
+        for (int id = 0; id < advices.length; id++) {
+            templateSlots[id] = quotesText(advices[id]) ? slot++ : -1;
+        }
+        this.templates = slot;
+        this.noText = new TextClass("", 0, templates);
+    }
+
+    public static ClothingRuleTable empty() {
+        return compile(new ClothingRules(List.of()));
+    }
+
+    public static ClothingRuleTable compile(ClothingRules rules) {
+        List<ClothingRules.Rule> list = rules.rules();
+        Axis temp = Axis.of(-60, 60, list, ClothingRules.Condition::temp);
+        Axis windScale = Axis.of(0, 18, list, ClothingRules.Condition::windScale);
+        Axis humidity = Axis.of(0, 100, list, ClothingRules.Condition::humidity);
+        Axis uvIndex = Axis.of(0, 20, list, ClothingRules.Condition::uvIndex);
+
+        Map<List<String>, Integer> groupIds = new LinkedHashMap<>();
+        int[] ruleGroups = new int[list.size()];
+        for (int r = 0; r < list.size(); r++) {
+            ClothingRules.Condition when = list.get(r).when();
+            List<String> keywords = when != null ? when.text() : null;
+            ruleGroups[r] = keywords == null || keywords.isEmpty() ? -1
+                    : groupIds.computeIfAbsent(List.copyOf(keywords), k -> groupIds.size());
+        }
+        if (groupIds.size() > MAX_TEXT_GROUPS) {
+            throw new IllegalStateException("too many distinct text conditions: " + groupIds.size()
+                    + " (max " + MAX_TEXT_GROUPS + ")");
+        }
+        int textClasses = 1 << groupIds.size();
+        long cellCount = (long) temp.size * windScale.size * humidity.size * uvIndex.size * textClasses;
+        if (cellCount > MAX_CELLS) {
+            throw new IllegalStateException("clothing rule table too large: " + cellCount + " cells (max "
+                    + MAX_CELLS + ")");
+        }
+
+        int words = (list.size() + 63) >>> 6;
+        long[][] tempMatch = temp.matches(list, ClothingRules.Condition::temp, words);
+        long[][] windMatch = windScale.matches(list, ClothingRules.Condition::windScale, words);
+        long[][] humidityMatch = humidity.matches(list, ClothingRules.Condition::humidity, words);
+        long[][] uvMatch = uvIndex.matches(list, ClothingRules.Condition::uvIndex, words);
+        long[][] textMatch = new long[textClasses][words];
+        for (int mask = 0; mask < textClasses; mask++) {
+            for (int r = 0; r < list.size(); r++) {
+                if (ruleGroups[r] < 0 || (mask & (1 << ruleGroups[r])) != 0) {
+                    textMatch[mask][r >>> 6] |= 1L << r;
+                }
+            }
+        }
+        long[][] setters = new long[FIELDS.size()][words];
+        for (int r = 0; r < list.size(); r++) {
+            ClothingAdvice set = list.get(r).set();
+            for (int f = 0; f < FIELDS.size(); f++) {
+                if (set != null && FIELDS.get(f).apply(set) != null) {
+                    setters[f][r >>> 6] |= 1L << r;
+                }
+            }
+        }
+
+        int[] cells = new int[(int) cellCount];
+        List<ClothingAdvice> advices = new ArrayList<>();
+        Map<ClothingAdvice, Integer> adviceIds = new HashMap<>();
+        long[] match = new long[words];
+        String[] values = new String[FIELDS.size()];
+        int cell = 0;
+        for (long[] t : tempMatch) {
+            for (long[] w : windMatch) {
+                for (long[] h : humidityMatch) {
+                    for (long[] u : uvMatch) {
+                        for (long[] x : textMatch) {
+                            for (int i = 0; i < words; i++) {
+                                match[i] = t[i] & w[i] & h[i] & u[i] & x[i];
+                            }
+                            for (int f = 0; f < FIELDS.size(); f++) {
+                                int winner = lastRule(match, setters[f]);
+                                values[f] = winner >= 0 ? FIELDS.get(f).apply(list.get(winner).set()) : null;
+                            }
+                            ClothingAdvice advice = ClothingAdvice.builder()
+                                    .overview(values[0])
+                                    .top(values[1])
+                                    .bottom(values[2])
+                                    .shoes(values[3])
+                                    .accessories(values[4])
+                                    .reminder(values[5])
+                                    .build();
+                            cells[cell++] = adviceIds.computeIfAbsent(advice, a -> {
+                                advices.add(a);
+                                return advices.size() - 1;
+                            });
+                        }
+                    }
+                }
+            }
+        }
+
+        String[][] textGroups = new String[groupIds.size()][];
+        groupIds.forEach((keywords, id) -> textGroups[id] = keywords.toArray(String[]::new));
+        return new ClothingRuleTable(list.size(), temp, windScale, humidity, uvIndex, textGroups, cells,
+                advices.toArray(ClothingAdvice[]::new));
+    }
+
+    /**
+     * The advice for {@code weather}; shared and immutable.
+     */
+    public ClothingAdvice evaluate(DailyWeather weather) {
+        TextClass text = textClass(weather.getTextDay());
+        int cell = temp.interval(weather.getAverageTemp());
+        cell = cell * windScale.size + windScale.interval(level(weather.getWindScaleDay()));
+        cell = cell * humidity.size + humidity.interval(level(weather.getHumidity()));
+        cell = cell * uvIndex.size + uvIndex.interval(level(weather.getUvIndex()));
+        int id = cells[(cell << textGroups.length) | text.mask];
+
+        int slot = templateSlots[id];
+        if (slot < 0) {
+            return advices[id];
+        }
+        ClothingAdvice advice = text.rendered[slot];
+        if (advice == null) {
+            // racing threads render equal instances, either write is fine
+            advice = render(advices[id], text.text);
+            text.rendered[slot] = advice;
+        }
+        return advice;
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    public int cellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Distinct advices in the table, before rendering weather texts.
+     */
+    public int adviceCount() {
+        return advices.length;
+    }
+
+    private TextClass textClass(String text) {
+        if (text == null) {
+            return noText;
+        }
+        TextClass textClass = texts.get(text);
+        if (textClass != null) {
+            return textClass;
+        }
+        int mask = 0;
+        for (int g = 0; g < textGroups.length; g++) {
+            for (String keyword : textGroups[g]) {
+                if (text.contains(keyword)) {
+                    mask |= 1 << g;
+                    break;
+                }
+            }
+        }
+        textClass = new TextClass(text, mask, templates);
+        if (texts.size() >= MAX_CACHED_TEXTS) {
+            return textClass;
+        }
+        TextClass raced = texts.putIfAbsent(text, textClass);
+        return raced != null ? raced : textClass;
+    }
+
+    /**
+     * Index of the last rule set in both {@code match} and {@code setters}, or -1.
+     */
+    private static int lastRule(long[] match, long[] setters) {
+        for (int i = match.length - 1; i >= 0; i--) {
+            long bits = match[i] & setters[i];
+            if (bits != 0) {
+                return (i << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The largest number written in {@code value} ("3-4" is 4), or {@link Axis#MISSING}.
+     */
+    static int level(String value) {
+        if (value == null) {
+            return Axis.MISSING;
+        }
+        int level = Axis.MISSING;
+        int current = -1;
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i < value.length() ? value.charAt(i) : ' ';
+            if (c >= '0' && c <= '9') {
+                current = current < 0 ? c - '0' : Math.min(current * 10 + (c - '0'), 1_000_000);
+            } else if (current >= 0) {
+                level = Math.max(level, current);
+                current = -1;
+            }
+        }
+        return level;
+    }
+
+    private static boolean quotesText(ClothingAdvice advice) {
+        for (Function<ClothingAdvice, String> field : FIELDS) {
+            String value = field.apply(advice);
+            if (value != null && value.contains(TEXT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ClothingAdvice render(ClothingAdvice advice, String text) {
+        return ClothingAdvice.builder()
+                .overview(render(advice.getOverview(), text))
+                .top(render(advice.getTop(), text))
+                .bottom(render(advice.getBottom(), text))
+                .shoes(render(advice.getShoes(), text))
+                .accessories(render(advice.getAccessories(), text))
+                .reminder(render(advice.getReminder(), text))
+                .build();
+    }
+
+    private static String render(String value, String text) {
+        return value != null ? value.replace(TEXT, text) : null;
+    }
+
+    /**
+     * Which keyword lists a weather text matches, and the advices rendered for it so far.
+     */
+    private static final class TextClass {
+
+        private final String text;
+        private final int mask;
+        private final ClothingAdvice[] rendered;
+
+        TextClass(String text, int mask, int templates) {
+            this.text = text;
+            this.mask = mask;
+            this.rendered = new ClothingAdvice[templates];
+        }
+    }
+
+    /**
+     * One condition axis over a clamped integer domain, cut into intervals at the rule thresholds. Interval 0 holds
+     * days without a value, which no condition on the axis matches.
+     */
+    private static final class Axis {
+
+        static final int MISSING = Integer.MIN_VALUE;
+
+        private final int lo;
+        private final int hi;
+        /**
+         * {@code value - lo + 1} -> interval.
+         */
+        private final int[] intervals;
+        /**
+         * Interval -> its smallest value; a range holds for all of an interval or none of it.
+         */
+        private final int[] starts;
+        private final int size;
+
+        private Axis(int lo, int hi, TreeSet<Integer> cuts) {
+            this.lo = lo;
+            this.hi = hi;
+            this.size = cuts.size() + 2;
+            this.starts = new int[size];
+            this.intervals = new int[hi - lo + 2];
+            starts[1] = lo;
+            int interval = 1;
+            for (int cut : cuts) {
+                starts[++interval] = cut;
+            }
+            interval = 1;
+            for (int value = lo; value <= hi; value++) {
+                if (interval + 1 < size && value == starts[interval + 1]) {
+                    interval++;
+                }
+                intervals[value - lo + 1] = interval;
+            }
+        }
+
+        static Axis of(int lo, int hi, List<ClothingRules.Rule> rules,
+                       Function<ClothingRules.Condition, ClothingRules.Range> axis) {
+            TreeSet<Integer> cuts = new TreeSet<>();
+            for (ClothingRules.Rule rule : rules) {
+                ClothingRules.Range range = range(rule, axis);
+                if (range != null) {
+                    addCut(cuts, range.min(), lo, hi);
+                    addCut(cuts, range.below(), lo, hi);
+                }
+            }
+            return new Axis(lo, hi, cuts);
+        }
+
+        int interval(int value) {
+            if (value == MISSING) {
+                return 0;
+            }
+            return intervals[Math.max(lo, Math.min(hi, value)) - lo + 1];
+        }
+
+        /**
+         * Interval -> the rules whose condition on this axis holds, as a bit set over rule indexes.
+         */
+        long[][] matches(List<ClothingRules.Rule> rules,
+                         Function<ClothingRules.Condition, ClothingRules.Range> axis, int words) {
+            long[][] matches = new long[size][words];
+            for (int r = 0; r < rules.size(); r++) {
+                ClothingRules.Range range = range(rules.get(r), axis);
+                for (int interval = 0; interval < size; interval++) {
+                    if (range == null || (interval > 0 && range.contains(starts[interval]))) {
+                        matches[interval][r >>> 6] |= 1L << r;
+                    }
+                }
+            }
+            return matches;
+        }
+
+        private static ClothingRules.Range range(ClothingRules.Rule rule,
+                                                 Function<ClothingRules.Condition, ClothingRules.Range> axis) {
+            return rule.when() != null ? axis.apply(rule.when()) : null;
+        }
+
+        private static void addCut(TreeSet<Integer> cuts, Integer cut, int lo, int hi) {
+            if (cut != null && cut > lo && cut <= hi) {
+                cuts.add(cut);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.nimbus.agentai.clothing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbus.agentai.model.ClothingAdvice;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Clothing advice rules as written in the rules file (YAML, or JSON as a subset of it). Rules apply in file order:
+ * every rule whose conditions all hold sets the non-null fields of its {@code set}, so a later rule overrides an
+ * earlier one field by field. Field texts may quote the day's weather text as {@code {text}}.
+ */
+public record ClothingRules(List<Rule> rules) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public ClothingRules {
+        rules = rules != null ? List.copyOf(rules) : List.of();
+    }
+
+    /**
+     * Unknown keys are rejected, so a misspelt condition fails the load instead of matching everything.
+     */
+    public static ClothingRules parse(InputStream in) {
+        Object tree = new Yaml(new SafeConstructor(new LoaderOptions())).load(in);
+        if (tree == null) {
+            return new ClothingRules(List.of());
+        }
+        try {
+            return MAPPER.convertValue(tree, ClothingRules.class);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("malformed clothing rules: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param when conditions that must all hold; a missing condition always holds
+     */
+    public record Rule(String name, Condition when, ClothingAdvice set) {}
+
+    /**
+     * @param temp      average of the day's max and min temperature
+     * @param windScale daytime wind scale; for a range such as "3-4" its upper end
+     * @param text      keywords, any of which the daytime weather text contains
+     */
+    public record Condition(Range temp, Range windScale, Range humidity, Range uvIndex, List<String> text) {}
+
+    /**
+     * {@code min <= value < below}; either end may be left open.
+     */
+    public record Range(Integer min, Integer below) {
+
+        boolean contains(int value) {
+            return (min == null || value >= min) && (below == null || value < below);
+        }
+    }
+}
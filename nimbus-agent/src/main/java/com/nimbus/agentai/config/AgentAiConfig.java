@@ -1,5 +1,6 @@
 package com.nimbus.agentai.config;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nimbus.agentai.agent.AgentRunContext;
@@ -7,6 +8,7 @@ import com.nimbus.agentai.agent.ToolTrace;
 import com.nimbus.agentai.client.QWeatherClient;
 import com.nimbus.agentai.model.City;
 import com.nimbus.agentai.model.ClothingAdvice;
+import com.nimbus.agentai.model.ClothingAdviceRange;
 import com.nimbus.agentai.model.DailyWeather;
 import com.nimbus.agentai.model.ForecastDayBrief;
 import com.nimbus.agentai.model.WeatherResponse;
@@ -35,6 +37,8 @@ public class AgentAiConfig {
     public static final String TRACE_ID_KEY = "traceId";
 
     private static final List<Integer> SUPPORTED_FORECAST_DAYS = List.of(3, 7, 10, 15, 30);
+    private static final int MAX_CITY_MATCHES = 5;
+    private static final int DEFAULT_ADVICE_RANGE_DAYS = 7;
 
     @Bean
     public ChatMemory chatMemory() {
@@ -56,14 +60,15 @@ public class AgentAiConfig {
                         你是 Nimbus 的天气/穿搭 Agent。
                         你可以调用工具获取真实数据，严禁编造天气或城市编码。
                         工具列表：
-                        - extract_city: 从用户文本识别城市（返回 cityName/locationId 或候选）
+                        - extract_city: 从用户文本识别城市（返回 cityName/locationId 及按置信度排序的 matches，或候选）
                         - get_weather_today: 获取城市天气预报（支持 days=3/7/10/15/30，dayOffset=0 今天，1 明天...；返回 weather + forecast 列表）
                         - get_clothing_advice: 根据指定日期天气生成结构化穿搭建议
+                        - get_clothing_advice_range: 一次生成连续多天的穿搭简表（输入城市、days 天数、dayOffset 起始日），每天的 advice 是 advice 列表的下标
                         规则：
-                        1) 如果城市缺失，优先调用 extract_city；如果 extract_city.found=false，则先追问城市（可给 candidates 提示）；
+                        1) 如果城市缺失，优先调用 extract_city；如果 extract_city.found=false，则先追问城市（可给 candidates 提示）；如果 matches 中有多个同名地点且置信度接近，结合上下文选择，仍无法判断时列出 adm1/adm2 让用户确认；
                         2) 用户问“未来3天/7天/10天/15天/30天”时，调用 get_weather_today 并设置对应 days；用户问“明天/后天”等，设置 dayOffset；
-                        3) 拿到 cityName/locationId 后调用 get_weather_today；如果 get_weather_today.success=false，则解释原因并追问/建议更换城市或稍后重试；
-                        4) 拿到 weather 后调用 get_clothing_advice；
+                        3) 拿到 cityName/locationId 后调用 get_weather_today；如果 get_weather_today.success=false，则解释原因并追问/建议更换城市或稍后重试；如果 stale=true，说明天气服务暂不可用、数据来自最近一次成功查询，回复中需提示可能不是最新；
+                        4) 拿到 weather 后调用 get_clothing_advice；用户问未来多天穿什么时，直接调用一次 get_clothing_advice_range，不要逐天调用 get_clothing_advice；
                         5) 最终用中文、简洁、可执行的方式回复（包含：天气概况、最高/最低温、穿搭、是否带伞；如果用户问未来N天则给出N天简表）。
                         """)
                 .defaultToolCallbacks(agentTools.toArray(ToolCallback[]::new))
@@ -90,7 +95,8 @@ public class AgentAiConfig {
         };
 
         ToolCallback raw = FunctionToolCallback.builder("extract_city", fn)
-                .description("从用户文本中识别城市，返回 cityName 与 locationId。")
+                .description("从用户文本中识别城市，返回 cityName 与 locationId；同名地点（如朝阳、鼓楼）按省/市限定词排序后在 matches 中给出。"
+                        + "found=false 而 matches 非空时是疑似错写的城市，须先请用户确认，不要直接查询。")
                 .inputType(ExtractCityInput.class)
                 .build();
         return new SafeToolCallback(raw);
@@ -199,21 +205,60 @@ public class AgentAiConfig {
         return new SafeToolCallback(raw);
     }
 
+    @Bean
+    public ToolCallback getClothingAdviceRangeTool(CityConfig cityConfig,
+                                                   QWeatherClient qWeatherClient,
+                                                   ClothingAdviceService clothingAdviceService,
+                                                   ObjectMapper objectMapper) {
+        BiFunction<GetWeatherTodayInput, ToolContext, ClothingAdviceRangeOutput> fn = (input, toolContext) -> {
+            ToolTrace trace = traceStart(toolContext, "get_clothing_advice_range", objectMapper, input);
+            try {
+                GetWeatherTodayInput normalizedInput = normalizeWeatherInput(cityConfig, toolContext, input);
+                ClothingAdviceRangeOutput output = getClothingAdviceRange(cityConfig, qWeatherClient,
+                        clothingAdviceService, normalizedInput);
+
+                AgentRunContext runContext = getOrCreateRunContext(toolContext);
+                if (output.success() && output.city() != null && output.range() != null) {
+                    runContext.setLastCity(output.city());
+                    runContext.setLastWeather(output.range().get(0));
+                    runContext.setLastForecast(toForecastBrief(output.range()));
+                    runContext.setLastAdvice(output.advice().get(output.days().get(0).advice()));
+                }
+
+                traceSuccess(trace, objectMapper, output);
+                return output;
+            } catch (Exception e) {
+                ClothingAdviceRangeOutput output = ClothingAdviceRangeOutput.error(safeMessage(e));
+                traceError(trace, e);
+                traceOutput(trace, objectMapper, output);
+                return output;
+            } finally {
+                traceEnd(trace);
+            }
+        };
+
+        ToolCallback raw = FunctionToolCallback.builder("get_clothing_advice_range", fn)
+                .description("一次生成连续多天的穿搭简表。输入 cityName/locationId，可选 days(天数，默认7) 与 dayOffset(起始日，0今天)；"
+                        + "返回每天一行（日期、天气、温度、advice 下标）和去重后的 advice 列表。")
+                .inputType(GetWeatherTodayInput.class)
+                .build();
+        return new SafeToolCallback(raw);
+    }
+
     private static ExtractCityOutput extractCity(CityConfig cityConfig, String text) {
         if (!StringUtils.hasText(text)) {
             return ExtractCityOutput.notFound(hotCityNames(cityConfig));
         }
 
-        Optional<City> fromText = cityConfig.extractFromText(text);
-        if (fromText.isPresent()) {
-            City city = fromText.get();
-            return ExtractCityOutput.found(city.getName(), city.getLocationId(), 0.9);
-        }
-
-        Optional<City> byName = cityConfig.findByName(text);
-        if (byName.isPresent()) {
-            City city = byName.get();
-            return ExtractCityOutput.found(city.getName(), city.getLocationId(), 0.8);
+        List<CityConfig.CityMatch> matches = cityConfig.matchCandidates(text, MAX_CITY_MATCHES);
+        if (!matches.isEmpty()) {
+            List<CityOption> options = matches.stream().map(CityOption::of).toList();
+            if (!cityConfig.isConfident(matches.get(0))) {
+                // likely a misspelling: offer it for the user to confirm instead of answering for it
+                return ExtractCityOutput.unconfirmed(options, hotCityNames(cityConfig));
+            }
+            City city = matches.get(0).city();
+            return ExtractCityOutput.found(city.getName(), city.getLocationId(), matches.get(0).confidence(), options);
         }
 
         return ExtractCityOutput.notFound(hotCityNames(cityConfig));
@@ -227,13 +272,7 @@ public class AgentAiConfig {
         Integer daysInput = input != null ? input.days() : null;
         Integer dayOffsetInput = input != null ? input.dayOffset() : null;
 
-        City city = null;
-        if (StringUtils.hasText(cityName)) {
-            city = cityConfig.findByName(cityName).orElse(null);
-        }
-        if (city == null && StringUtils.hasText(locationId)) {
-            city = cityConfig.findByLocationId(locationId).orElse(null);
-        }
+        City city = resolveCity(cityConfig, cityName, locationId);
         if (city == null) {
             return WeatherToolOutput.error("City not found.");
         }
@@ -258,7 +297,63 @@ public class AgentAiConfig {
             return WeatherToolOutput.error("No weather data.");
         }
         List<ForecastDayBrief> forecast = daysInput != null ? toForecastBrief(response.getDaily()) : Collections.emptyList();
-        return WeatherToolOutput.success(city, targetDay, forecast);
+        return WeatherToolOutput.success(city, targetDay, forecast, response.isStale());
+    }
+
+    private static ClothingAdviceRangeOutput getClothingAdviceRange(CityConfig cityConfig,
+                                                                    QWeatherClient qWeatherClient,
+                                                                    ClothingAdviceService clothingAdviceService,
+                                                                    GetWeatherTodayInput input) {
+        String cityName = input != null ? input.cityName() : null;
+        String locationId = input != null ? input.locationId() : null;
+        Integer daysInput = input != null ? input.days() : null;
+        Integer dayOffsetInput = input != null ? input.dayOffset() : null;
+
+        City city = resolveCity(cityConfig, cityName, locationId);
+        if (city == null) {
+            return ClothingAdviceRangeOutput.error("City not found.");
+        }
+
+        int dayOffset = normalizeDayOffset(dayOffsetInput);
+        if (dayOffset > 29) {
+            return ClothingAdviceRangeOutput.error("dayOffset too large (max 29 for 30-day forecast).");
+        }
+        int count = daysInput != null && daysInput > 0 ? daysInput : DEFAULT_ADVICE_RANGE_DAYS;
+        int end = Math.min(30, dayOffset + count);
+
+        WeatherResponse response;
+        try {
+            response = qWeatherClient.getForecast(city.getLocationId(), normalizeForecastDays(end, dayOffset));
+        } catch (Exception e) {
+            return ClothingAdviceRangeOutput.error("Weather api exception: " + safeMessage(e));
+        }
+        if (response == null || !response.isSuccess()) {
+            String code = response != null ? response.getCode() : "null";
+            return ClothingAdviceRangeOutput.error("Weather api failed: code=" + code);
+        }
+        List<DailyWeather> daily = response.getDaily();
+        if (daily == null || dayOffset >= daily.size()) {
+            return ClothingAdviceRangeOutput.error("No weather data.");
+        }
+        List<DailyWeather> range = daily.subList(dayOffset, Math.min(end, daily.size())).stream()
+                .filter(Objects::nonNull)
+                .toList();
+        if (range.isEmpty()) {
+            return ClothingAdviceRangeOutput.error("No weather data.");
+        }
+        ClothingAdviceRange advice = clothingAdviceService.generateRangeAdvice(range);
+        return ClothingAdviceRangeOutput.success(city, range, advice, response.isStale());
+    }
+
+    private static City resolveCity(CityConfig cityConfig, String cityName, String locationId) {
+        City city = null;
+        if (StringUtils.hasText(cityName)) {
+            city = cityConfig.findByName(cityName).orElse(null);
+        }
+        if (city == null && StringUtils.hasText(locationId)) {
+            city = cityConfig.findByLocationId(locationId).orElse(null);
+        }
+        return city;
     }
 
     private static int normalizeDayOffset(Integer dayOffset) {
@@ -419,17 +514,30 @@ public class AgentAiConfig {
                                     String locationId,
                                     Double confidence,
                                     List<String> candidates,
+                                    List<CityOption> matches,
                                     String errorMessage) {
-        public static ExtractCityOutput found(String cityName, String locationId, double confidence) {
-            return new ExtractCityOutput(true, cityName, locationId, confidence, null, null);
+        public static ExtractCityOutput found(String cityName, String locationId, double confidence,
+                                              List<CityOption> matches) {
+            return new ExtractCityOutput(true, cityName, locationId, confidence, null, matches, null);
+        }
+
+        public static ExtractCityOutput unconfirmed(List<CityOption> matches, List<String> candidates) {
+            return new ExtractCityOutput(false, null, null, null, candidates, matches, null);
         }
 
         public static ExtractCityOutput notFound(List<String> candidates) {
-            return new ExtractCityOutput(false, null, null, null, candidates, null);
+            return new ExtractCityOutput(false, null, null, null, candidates, null, null);
         }
 
         public static ExtractCityOutput error(String errorMessage, List<String> candidates) {
-            return new ExtractCityOutput(false, null, null, null, candidates, errorMessage);
+            return new ExtractCityOutput(false, null, null, null, candidates, null, errorMessage);
+        }
+    }
+
+    public record CityOption(String cityName, String adm1, String adm2, String locationId, double confidence) {
+        public static CityOption of(CityConfig.CityMatch match) {
+            City city = match.city();
+            return new CityOption(city.getName(), city.getAdm1(), city.getAdm2(), city.getLocationId(), match.confidence());
         }
     }
 
@@ -439,19 +547,42 @@ public class AgentAiConfig {
                                     City city,
                                     DailyWeather weather,
                                     List<ForecastDayBrief> forecast,
+                                    boolean stale,
                                     String errorMessage) {
         public static WeatherToolOutput success(City city, DailyWeather weather) {
-            return new WeatherToolOutput(true, city, weather, Collections.emptyList(), null);
+            return new WeatherToolOutput(true, city, weather, Collections.emptyList(), false, null);
         }
 
         public static WeatherToolOutput success(City city, DailyWeather weather, List<ForecastDayBrief> forecast) {
-            return new WeatherToolOutput(true, city, weather, forecast != null ? forecast : Collections.emptyList(), null);
+            return success(city, weather, forecast, false);
+        }
+
+        public static WeatherToolOutput success(City city, DailyWeather weather, List<ForecastDayBrief> forecast, boolean stale) {
+            return new WeatherToolOutput(true, city, weather, forecast != null ? forecast : Collections.emptyList(), stale, null);
         }
 
         public static WeatherToolOutput error(String errorMessage) {
-            return new WeatherToolOutput(false, null, null, Collections.emptyList(), errorMessage);
+            return new WeatherToolOutput(false, null, null, Collections.emptyList(), false, errorMessage);
         }
     }
 
     public record GetClothingAdviceInput(DailyWeather dailyWeather) {}
+
+    public record ClothingAdviceRangeOutput(boolean success,
+                                            City city,
+                                            List<ClothingAdviceRange.Day> days,
+                                            List<ClothingAdvice> advice,
+                                            boolean stale,
+                                            String errorMessage,
+                                            @JsonIgnore List<DailyWeather> range) {
+        public static ClothingAdviceRangeOutput success(City city, List<DailyWeather> range, ClothingAdviceRange advice,
+                                                        boolean stale) {
+            return new ClothingAdviceRangeOutput(true, city, advice.days(), advice.advice(), stale, null, range);
+        }
+
+        public static ClothingAdviceRangeOutput error(String errorMessage) {
+            return new ClothingAdviceRangeOutput(false, null, Collections.emptyList(), Collections.emptyList(), false,
+                    errorMessage, null);
+        }
+    }
 }
@@ -1,8 +1,15 @@
 package com.nimbus.agentai.config;
 
+import com.nimbus.agentai.city.CityCsvReader;
+import com.nimbus.agentai.city.CityFuzzyMatcher;
+import com.nimbus.agentai.city.CityIndex;
+import com.nimbus.agentai.city.CitySnapshot;
+import com.nimbus.agentai.city.CityStore;
+import com.nimbus.agentai.city.CitySuggestIndex;
+import com.nimbus.agentai.city.LongIntHashMap;
 import com.nimbus.agentai.model.City;
 import jakarta.annotation.PostConstruct;
-import lombok.Getter;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ResourceLoaderAware;
@@ -11,30 +18,78 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Component
 public class CityConfig implements ResourceLoaderAware {
 
+    private static final double EXACT_CONFIDENCE = 1.0;
+    private static final double MENTION_CONFIDENCE = 0.9;
+    private static final double PARTIAL_CONFIDENCE = 0.8;
+    private static final double FUZZY_CONFIDENCE = 0.85;
+
+    /**
+     * Characters common in weather questions ("明天天气怎么样") that would otherwise look like one-edit misspellings
+     * of two-character place names.
+     */
+    private static final String FUZZY_STOP_CHARS = "天气今明昨后的么怎样吗呢穿衣温度冷热我你他想要是了吧啊查看几号周末帮请问会";
+
     private static final List<String> DEFAULT_HOT_CITIES = List.of(
             "北京", "上海", "广州", "深圳", "西安", "南京", "杭州", "武汉", "厦门", "成都"
     );
 
-    @Getter
-    private final Map<String, City> cities = new HashMap<>();
+    /**
+     * Everything lookups read, swapped as a whole so a reader sees one consistent city list without locking.
+     */
+    private final AtomicReference<Loaded> current = new AtomicReference<>(
+            new Loaded(CityIndex.empty(), new CitySuggestIndex(CityStore.empty(), new int[0], 10), new LongIntHashMap(0), 0L));
+
+    private ScheduledExecutorService reloader;
+
+    private WatchService watchService;
+
+    private ScheduledFuture<?> pendingReload;
+
+    private boolean watchEnabled = false;
+
+    private Duration watchDebounce = Duration.ofSeconds(2);
 
-    private final Map<String, City> citiesByLocationId = new HashMap<>();
+    private double nearMaxDistanceKm = 100;
 
-    private List<String> cityNamesByLengthDesc = List.of();
+    private boolean fuzzyEnabled = true;
+
+    private Duration fuzzyBudget = Duration.ofMillis(2);
+
+    private double fuzzyMinConfidence = 0.5;
+
+    private int suggestMaxResults = 10;
 
     private ResourceLoader resourceLoader = new DefaultResourceLoader();
 
     private String csvLocation = "classpath:assets/China-City-List-latest.csv";
 
+    private String snapshotLocation = "classpath:assets/China-City-List-latest.snapshot";
+
     private List<String> hotCityNames = DEFAULT_HOT_CITIES;
 
     @Override
@@ -51,6 +106,11 @@ public class CityConfig implements ResourceLoaderAware {
         }
     }
 
+    @Value("${nimbus.city.snapshot-location:classpath:assets/China-City-List-latest.snapshot}")
+    public void setSnapshotLocation(String snapshotLocation) {
+        this.snapshotLocation = snapshotLocation != null ? snapshotLocation.trim() : "";
+    }
+
     @Value("${nimbus.city.hot:}")
     public void setHotCityNames(String hot) {
         if (hot == null || hot.isBlank()) {
@@ -65,16 +125,213 @@ public class CityConfig implements ResourceLoaderAware {
         }
     }
 
+    @Value("${nimbus.city.near.max-distance-km:100}")
+    public void setNearMaxDistanceKm(double nearMaxDistanceKm) {
+        if (nearMaxDistanceKm > 0) {
+            this.nearMaxDistanceKm = nearMaxDistanceKm;
+        }
+    }
+
+    @Value("${nimbus.city.suggest.max-results:10}")
+    public void setSuggestMaxResults(int suggestMaxResults) {
+        if (suggestMaxResults > 0) {
+            this.suggestMaxResults = suggestMaxResults;
+        }
+    }
+
+    @Value("${nimbus.city.fuzzy.enabled:true}")
+    public void setFuzzyEnabled(boolean fuzzyEnabled) {
+        this.fuzzyEnabled = fuzzyEnabled;
+    }
+
+    @Value("${nimbus.city.fuzzy.budget:PT0.002S}")
+    public void setFuzzyBudget(Duration fuzzyBudget) {
+        if (fuzzyBudget != null && !fuzzyBudget.isNegative()) {
+            this.fuzzyBudget = fuzzyBudget;
+        }
+    }
+
+    @Value("${nimbus.city.fuzzy.min-confidence:0.5}")
+    public void setFuzzyMinConfidence(double fuzzyMinConfidence) {
+        this.fuzzyMinConfidence = Math.max(0, Math.min(1, fuzzyMinConfidence));
+    }
+
+    @Value("${nimbus.city.watch.enabled:false}")
+    public void setWatchEnabled(boolean watchEnabled) {
+        this.watchEnabled = watchEnabled;
+    }
+
+    @Value("${nimbus.city.watch.debounce:PT2S}")
+    public void setWatchDebounce(Duration watchDebounce) {
+        if (watchDebounce != null && !watchDebounce.isNegative()) {
+            this.watchDebounce = watchDebounce;
+        }
+    }
+
     @PostConstruct
     public void init() {
-        loadFromCsv();
-        cityNamesByLengthDesc = cities.keySet().stream()
-                .sorted(Comparator.comparingInt(String::length).reversed())
-                .toList();
-        log.info("已加载 {} 个城市（去重后）", cities.size());
+        Resource csv = resolveCsv();
+        ByteBuffer bytes = readCsv(csv);
+        try {
+            current.set(load(bytes, CitySnapshot.checksum(bytes)));
+        } catch (Exception e) {
+            throw new IllegalStateException("加载城市库失败: " + csvLocation, e);
+        }
+
+        reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "city-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        if (watchEnabled) {
+            startWatch(csv);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // closing only wakes the watch thread
+            }
+        }
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    /**
+     * Rebuilds the index from the current CSV on the reload thread and publishes it in one swap.
+     * Lookups keep using the previous index until then; a CSV that fails to load leaves it in place.
+     */
+    public CompletableFuture<ReloadResult> reloadAsync() {
+        return CompletableFuture.supplyAsync(this::reload, reloader);
+    }
+
+    private ReloadResult reload() {
+        long start = System.nanoTime();
+        try {
+            ByteBuffer bytes = readCsv(resolveCsv());
+            long checksum = CitySnapshot.checksum(bytes);
+            Loaded previous = current.get();
+            if (checksum == previous.checksum()) {
+                return new ReloadResult(true, false, previous.index().matchNames().length, elapsedMs(start), null);
+            }
+            Loaded loaded = load(bytes, checksum);
+            current.set(loaded);
+            return new ReloadResult(true, true, loaded.index().matchNames().length, elapsedMs(start), null);
+        } catch (Exception e) {
+            log.warn("重新加载城市库失败，继续使用当前城市库: {}", e.getMessage(), e);
+            return new ReloadResult(false, false, current.get().index().matchNames().length, elapsedMs(start),
+                    e.getMessage());
+        }
+    }
+
+    private Loaded load(ByteBuffer bytes, long checksum) {
+        CityIndex index = loadSnapshot(checksum);
+        String source = "快照";
+        if (index == null) {
+            index = CityIndex.build(CityCsvReader.read(bytes));
+            source = "CSV";
+        }
+        LongIntHashMap hotRank = new LongIntHashMap(hotCityNames.size());
+        for (String name : hotCityNames) {
+            Hit hot = matchName(index, name);
+            if (hot != null && hotRank.get(hot.ordinal()) < 0) {
+                hotRank.put(hot.ordinal(), hotRank.size());
+            }
+        }
+        Loaded loaded = new Loaded(index, buildSuggestIndex(index, hotRank), hotRank, checksum);
+        log.info("已从{}加载 {} 个城市（去重后），坐标索引 {} 个", source, index.matchNames().length, index.geoIndex().size());
+        return loaded;
+    }
+
+    /**
+     * Local files are read through a channel but not mapped: the watcher reloads while the file may be rewritten.
+     */
+    private ByteBuffer readCsv(Resource csv) {
+        try {
+            if (csv.isFile()) {
+                try (FileChannel channel = FileChannel.open(csv.getFile().toPath(), StandardOpenOption.READ)) {
+                    ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                        // read until full or end of file
+                    }
+                    return buffer.flip();
+                }
+            }
+            try (InputStream in = csv.getInputStream()) {
+                return ByteBuffer.wrap(in.readAllBytes());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("加载城市库失败: " + csvLocation, e);
+        }
+    }
+
+    /**
+     * Watches the CSV's directory and reloads once writes to the file have been quiet for the debounce period.
+     */
+    private void startWatch(Resource csv) {
+        Path file;
+        try {
+            if (!csv.isFile()) {
+                log.warn("城市库 CSV 不是本地文件，无法监听变更: {}", csvLocation);
+                return;
+            }
+            file = csv.getFile().toPath().toAbsolutePath();
+            watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.warn("监听城市库 CSV 失败: {}", e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(() -> watch(file), "city-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("已开始监听城市库 CSV: {}", file);
+    }
+
+    private void watch(Path file) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    touched |= file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (touched) {
+                    scheduleReload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ignored) {
+            // shutting down
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = reloader.schedule(() -> {
+            ReloadResult result = reload();
+            if (result.changed()) {
+                log.info("城市库 CSV 已变更，重新加载完成，耗时 {}ms", result.tookMs());
+            }
+        }, watchDebounce.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 
-    private void loadFromCsv() {
+    private Resource resolveCsv() {
         Resource resource = resourceLoader.getResource(csvLocation);
         if (!resource.exists()) {
             List<String> fallbacks = List.of(
@@ -95,138 +352,420 @@ public class CityConfig implements ResourceLoaderAware {
         if (!resource.exists()) {
             throw new IllegalStateException("未找到城市库 CSV: " + csvLocation);
         }
+        return resource;
+    }
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
-            reader.readLine(); // version
-            String headerLine = reader.readLine();
-            if (headerLine == null) {
-                throw new IllegalStateException("城市库 CSV 为空: " + csvLocation);
-            }
-
-            Map<String, Integer> headerIndex = indexHeaders(headerLine);
-            int idIdx = requireIndex(headerIndex, "Location_ID");
-            int nameZhIdx = requireIndex(headerIndex, "Location_Name_ZH");
-            int adm1ZhIdx = requireIndex(headerIndex, "Adm1_Name_ZH");
-            int adm2ZhIdx = requireIndex(headerIndex, "Adm2_Name_ZH");
-            int latIdx = headerIndex.getOrDefault("Latitude", -1);
-            int lonIdx = headerIndex.getOrDefault("Longitude", -1);
-
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.isBlank()) {
-                    continue;
-                }
-                String[] cols = splitCsvLine(line);
-                if (cols.length <= Math.max(Math.max(idIdx, nameZhIdx), Math.max(adm2ZhIdx, adm1ZhIdx))) {
-                    continue;
+    /**
+     * The prebuilt index, or null when there is none or it was compiled from a different CSV.
+     */
+    private CityIndex loadSnapshot(long csvChecksum) {
+        if (snapshotLocation.isEmpty()) {
+            return null;
+        }
+        Resource resource = resourceLoader.getResource(snapshotLocation);
+        if (!resource.exists()) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer;
+            if (resource.isFile()) {
+                try (FileChannel channel = FileChannel.open(resource.getFile().toPath(), StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
                 }
-
-                String locationId = cols[idIdx].trim();
-                String nameZh = cols[nameZhIdx].trim();
-                if (locationId.isEmpty() || nameZh.isEmpty()) {
-                    continue;
+            } else {
+                try (InputStream in = resource.getInputStream()) {
+                    buffer = ByteBuffer.wrap(in.readAllBytes());
                 }
-
-                City city = City.builder()
-                        .locationId(locationId)
-                        .name(nameZh)
-                        .adm1(safeGet(cols, adm1ZhIdx))
-                        .adm2(safeGet(cols, adm2ZhIdx))
-                        .latitude(latIdx >= 0 ? safeGet(cols, latIdx) : null)
-                        .longitude(lonIdx >= 0 ? safeGet(cols, lonIdx) : null)
-                        .build();
-
-                upsertPreferred(city);
             }
+            CityIndex snapshot = CitySnapshot.read(buffer, csvChecksum);
+            if (snapshot == null) {
+                log.info("城市库快照与 CSV 不一致，改为解析 CSV: {}", snapshotLocation);
+            }
+            return snapshot;
         } catch (Exception e) {
-            throw new IllegalStateException("加载城市库失败: " + csvLocation, e);
+            log.warn("读取城市库快照失败，改为解析 CSV: {}", snapshotLocation, e);
+            return null;
         }
     }
 
-    private static Map<String, Integer> indexHeaders(String headerLine) {
-        String[] headers = splitCsvLine(headerLine);
-        Map<String, Integer> index = new HashMap<>();
-        for (int i = 0; i < headers.length; i++) {
-            index.put(headers[i].trim(), i);
+    /**
+     * The preferred location per name, materialized on every call; meant for listings, not lookups.
+     */
+    public Map<String, City> getCities() {
+        CityIndex index = current.get().index();
+        Map<String, City> cities = new LinkedHashMap<>(index.matchNames().length * 2);
+        for (int i = 0; i < index.matchNames().length; i++) {
+            cities.put(index.matchNames()[i], index.store().city(index.preferred(i)));
         }
-        return index;
+        return cities;
     }
 
-    private static int requireIndex(Map<String, Integer> headerIndex, String headerName) {
-        Integer idx = headerIndex.get(headerName);
-        if (idx == null) {
-            throw new IllegalStateException("城市库 CSV 缺少列: " + headerName);
+    /**
+     * Exact or partial name lookup only. Misspellings are left to {@link #matchByName(String)}, whose confidence
+     * tells a typo ("杭洲") from an unrelated two-character name one character away ("东京").
+     */
+    public Optional<City> findByName(String name) {
+        Loaded loaded = current.get();
+        return Optional.ofNullable(toMatch(loaded, matchName(loaded.index(), name))).map(CityMatch::city);
+    }
+
+    /**
+     * Resolves a city name: exact, then partial, then a name contained in the query, then within a typo or two
+     * (within {@code nimbus.city.fuzzy.budget}).
+     */
+    public Optional<CityMatch> matchByName(String name) {
+        Loaded loaded = current.get();
+        Hit hit = matchName(loaded.index(), name);
+        if (hit == null && fuzzyEnabled && name != null && !name.isBlank()) {
+            String trimmed = name.trim();
+            String query = hasHan(trimmed) ? CityIndex.normalizeName(trimmed) : CityIndex.foldPinyin(trimmed);
+            FuzzyBest best = new FuzzyBest(loaded);
+            long deadline = System.nanoTime() + fuzzyBudget.toNanos();
+            loaded.index().fuzzyMatcher().find(query, 0, query.length(), best, deadline);
+            hit = best.toHit();
         }
-        return idx;
+        return Optional.ofNullable(toMatch(loaded, hit));
     }
 
-    private void upsertPreferred(City city) {
-        City existing = cities.get(city.getName());
-        if (existing == null) {
-            cities.put(city.getName(), city);
-            if (city.getLocationId() != null && !city.getLocationId().isBlank()) {
-                citiesByLocationId.putIfAbsent(city.getLocationId(), city);
-            }
-            return;
+    private static Hit matchName(CityIndex index, String name) {
+        String normalized = CityIndex.normalizeName(name);
+        if (normalized == null || normalized.isEmpty()) {
+            return null;
         }
 
-        boolean existingPreferred = isCityLevel(existing);
-        boolean currentPreferred = isCityLevel(city);
-        if (!existingPreferred && currentPreferred) {
-            cities.put(city.getName(), city);
-            if (city.getLocationId() != null && !city.getLocationId().isBlank()) {
-                citiesByLocationId.put(city.getLocationId(), city);
-            }
+        String[] matchNames = index.matchNames();
+        int exactName = index.nameOrdinal(normalized);
+        if (exactName >= 0) {
+            // an exact name shared by several locations is only as sure as its share of them
+            int exact = index.preferred(exactName);
+            return new Hit(exact, round(EXACT_CONFIDENCE * weight(index, exact) / totalWeight(index, index.namesakes(exactName))));
         }
-    }
 
-    private static boolean isCityLevel(City city) {
-        String name = normalizeName(city.getName());
-        String adm2 = normalizeName(city.getAdm2());
-        return name != null && adm2 != null && name.equals(adm2);
+        // prefix > name contains query > query contains name
+        int best = -1;
+        for (int nameOrdinal : index.ngramIndex().findContaining(normalized)) {
+            int candidate = index.preferred(nameOrdinal);
+            if (best < 0 || compareCandidates(index, candidate, best, normalized) < 0) {
+                best = candidate;
+            }
+        }
+        if (best >= 0) {
+            // the more of the name the query covers, the surer the match
+            double covered = (double) normalized.length() / index.store().name(best).length();
+            return new Hit(best, round(PARTIAL_CONFIDENCE * covered));
+        }
+        int mentioned = index.nameMatcher().findLongest(normalized);
+        return mentioned >= 0 ? new Hit(index.preferred(mentioned), MENTION_CONFIDENCE) : null;
     }
 
-    public Optional<City> findByName(String name) {
-        String normalized = normalizeName(name);
-        if (normalized == null || normalized.isEmpty()) {
-            return Optional.empty();
+    /**
+     * Partial-match order: prefix first, then city level, then shorter name, then locationId.
+     */
+    private static int compareCandidates(CityIndex index, int a, int b, String query) {
+        CityStore store = index.store();
+        int byPrefix = Boolean.compare(!store.name(a).startsWith(query), !store.name(b).startsWith(query));
+        if (byPrefix != 0) {
+            return byPrefix;
         }
-
-        City exact = cities.get(normalized);
-        if (exact != null) {
-            return Optional.of(exact);
+        int byLevel = Boolean.compare(!index.isCityLevel(a), !index.isCityLevel(b));
+        if (byLevel != 0) {
+            return byLevel;
         }
-
-        return cities.values().stream()
-                .filter(c -> c.getName().contains(normalized) || normalized.contains(c.getName()))
-                .findFirst();
+        int byLength = Integer.compare(store.name(a).length(), store.name(b).length());
+        return byLength != 0 ? byLength : store.locationId(a).compareTo(store.locationId(b));
     }
 
     public Optional<City> findByLocationId(String locationId) {
         if (locationId == null || locationId.isBlank()) {
             return Optional.empty();
         }
-        return Optional.ofNullable(citiesByLocationId.get(locationId.trim()));
+        CityIndex index = current.get().index();
+        int ordinal = index.byLocationId(locationId.trim());
+        return ordinal >= 0 ? Optional.of(index.store().city(ordinal)) : Optional.empty();
+    }
+
+    /**
+     * Closest known location to the coordinates, within {@code nimbus.city.near.max-distance-km}.
+     */
+    public Optional<City> findNearest(double latitude, double longitude) {
+        CityIndex index = current.get().index();
+        int ordinal = index.geoIndex().findNearest(latitude, longitude, nearMaxDistanceKm);
+        return ordinal >= 0 ? Optional.of(index.store().city(ordinal)) : Optional.empty();
     }
 
+    /**
+     * The city named exactly in free text, for callers that answer without showing a confidence. A misspelled
+     * name is never guessed here: "东京" is one character from 北京 just as "杭洲" is from 杭州.
+     */
     public Optional<City> extractFromText(String text) {
         if (text == null || text.isBlank()) {
             return Optional.empty();
         }
-        String content = text.trim();
-        for (String name : cityNamesByLengthDesc) {
-            if (name.length() < 2) {
+        List<CityMatch> mentioned = rankMentions(current.get(), text.trim(), 1);
+        return mentioned.isEmpty() ? Optional.empty() : Optional.of(mentioned.get(0).city());
+    }
+
+    /**
+     * Finds the city mentioned in free text: the longest exact mention, else the best misspelled one within
+     * {@code nimbus.city.fuzzy.budget} if it reaches {@code nimbus.city.fuzzy.min-confidence}.
+     */
+    public Optional<CityMatch> matchText(String text) {
+        return textMatch(text).filter(this::isConfident);
+    }
+
+    /**
+     * {@link #matchText(String)} without the confidence floor, so a misspelled mention below it is kept as a
+     * suggestion.
+     */
+    private Optional<CityMatch> textMatch(String text) {
+        if (text == null || text.isBlank()) {
+            return Optional.empty();
+        }
+        Loaded loaded = current.get();
+        String trimmed = text.trim();
+        List<CityMatch> mentioned = rankMentions(loaded, trimmed, 1);
+        if (!mentioned.isEmpty()) {
+            return Optional.of(mentioned.get(0));
+        }
+        return fuzzyEnabled ? Optional.ofNullable(toMatch(loaded, fuzzyText(loaded, trimmed))) : Optional.empty();
+    }
+
+    /**
+     * True unless the match is a misspelling below {@code nimbus.city.fuzzy.min-confidence}, which is only a
+     * suggestion for the user to confirm. Places sharing a name split their confidence but are still answered for.
+     */
+    public boolean isConfident(CityMatch match) {
+        return match != null && (!match.fuzzy() || match.confidence() >= fuzzyMinConfidence);
+    }
+
+    /**
+     * Every location the text may refer to, best first. Same-name locations are told apart by an adm1/adm2
+     * qualifier anywhere in the text ("辽宁朝阳" vs "北京朝阳", "朝阳区，北京"); without one they share the
+     * confidence, city-level locations taking a double share. Falls back to {@link #matchCity(String)}, which may
+     * give a misspelled name below {@link #isConfident(CityMatch)}.
+     */
+    public List<CityMatch> matchCandidates(String text, int limit) {
+        if (text == null || text.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        List<CityMatch> mentioned = rankMentions(current.get(), text.trim(), limit);
+        if (!mentioned.isEmpty()) {
+            return mentioned;
+        }
+        Optional<CityMatch> fromText = textMatch(text);
+        return matchCity(text, fromText.filter(this::isConfident)).or(() -> fromText).map(List::of).orElse(List.of());
+    }
+
+    private List<CityMatch> rankMentions(Loaded loaded, String text, int limit) {
+        CityIndex index = loaded.index();
+        List<int[]> mentions = new ArrayList<>();
+        index.nameMatcher().forEachMention(text, (ordinal, end) ->
+                mentions.add(new int[]{ordinal, end - index.matchNames()[ordinal].length(), end}));
+        if (mentions.isEmpty()) {
+            return List.of();
+        }
+
+        CityStore store = index.store();
+        List<Namesake> namesakes = new ArrayList<>();
+        BitSet seen = new BitSet(store.size());
+        for (int[] mention : mentions) {
+            if (isNested(mention, mentions)) {
                 continue;
             }
-            if (content.contains(name)) {
-                City city = cities.get(name);
-                if (city != null) {
-                    return Optional.of(city);
+            for (int ordinal : index.namesakes(mention[0])) {
+                if (!seen.get(ordinal)) {
+                    seen.set(ordinal);
+                    namesakes.add(new Namesake(ordinal, qualifierScore(index, text, ordinal, mention[1], mention[2]),
+                            mention[2] - mention[1], mention[1]));
+                }
+            }
+        }
+        // stable: the last tie-break is file order
+        namesakes.sort(Comparator
+                .comparingInt((Namesake n) -> -n.qualified())
+                .thenComparingInt(n -> -n.length())
+                .thenComparingInt(Namesake::start)
+                .thenComparingInt(n -> -weight(index, n.ordinal()))
+                .thenComparingInt(n -> hotRank(loaded, n.ordinal())));
+
+        Namesake top = namesakes.get(0);
+        String topName = store.name(top.ordinal());
+        if (top.qualified() > 0) {
+            // the qualifier itself (北京 in "北京朝阳") is not a candidate
+            String adm1 = index.adm1Qualifier(top.ordinal());
+            String adm2 = index.adm2Qualifier(top.ordinal());
+            namesakes.removeIf(n -> {
+                String name = store.name(n.ordinal());
+                return n.qualified() == 0 && !name.equals(topName) && (name.equals(adm1) || name.equals(adm2));
+            });
+        }
+        double base = topName.equals(CityIndex.normalizeName(text)) ? EXACT_CONFIDENCE : MENTION_CONFIDENCE;
+        double topWeight = 0;
+        double allWeight = 0;
+        for (Namesake n : namesakes) {
+            allWeight += weight(index, n.ordinal());
+            topWeight += n.qualified() == top.qualified() ? weight(index, n.ordinal()) : 0;
+        }
+        List<CityMatch> ranked = new ArrayList<>(Math.min(limit, namesakes.size()));
+        for (Namesake n : namesakes.subList(0, Math.min(limit, namesakes.size()))) {
+            // less qualified than the best: half of its share of all candidates
+            double share = n.qualified() == top.qualified()
+                    ? weight(index, n.ordinal()) / topWeight
+                    : weight(index, n.ordinal()) / allWeight / 2;
+            ranked.add(new CityMatch(store.city(n.ordinal()), round(base * share)));
+        }
+        return ranked;
+    }
+
+    /**
+     * Inside a longer mention (朝阳 within 朝阳县), so not a place of its own.
+     */
+    private static boolean isNested(int[] mention, List<int[]> mentions) {
+        for (int[] other : mentions) {
+            if (other[2] - other[1] > mention[2] - mention[1] && other[1] <= mention[1] && mention[2] <= other[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 2 when the text names the location's adm2 outside the mention itself, plus 1 for its adm1.
+     */
+    private static int qualifierScore(CityIndex index, String text, int ordinal, int start, int end) {
+        int score = 0;
+        if (containsOutside(text, index.adm2Qualifier(ordinal), start, end)) {
+            score += 2;
+        }
+        if (containsOutside(text, index.adm1Qualifier(ordinal), start, end)) {
+            score += 1;
+        }
+        return score;
+    }
+
+    private static boolean containsOutside(String text, String word, int start, int end) {
+        if (word == null || word.length() < 2) {
+            return false;
+        }
+        for (int i = text.indexOf(word); i >= 0; i = text.indexOf(word, i + 1)) {
+            if (i + word.length() <= start || i >= end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int weight(CityIndex index, int ordinal) {
+        return index.isCityLevel(ordinal) ? 2 : 1;
+    }
+
+    private static double totalWeight(CityIndex index, int[] ordinals) {
+        double total = 0;
+        for (int ordinal : ordinals) {
+            total += weight(index, ordinal);
+        }
+        return total;
+    }
+
+    private static int hotRank(Loaded loaded, int ordinal) {
+        int rank = loaded.hotRank().get(ordinal);
+        return rank >= 0 ? rank : Integer.MAX_VALUE;
+    }
+
+    private static CityMatch toMatch(Loaded loaded, Hit hit) {
+        return hit != null ? new CityMatch(loaded.index().store().city(hit.ordinal()), hit.confidence(), hit.fuzzy()) : null;
+    }
+
+    /**
+     * The more confident of {@link #matchText(String)} and {@link #matchByName(String)}, for input that may be
+     * either a sentence or a bare (partial) name.
+     */
+    public Optional<CityMatch> matchCity(String text) {
+        return matchCity(text, matchText(text));
+    }
+
+    private Optional<CityMatch> matchCity(String text, Optional<CityMatch> fromText) {
+        if (fromText.isPresent() && fromText.get().confidence() >= MENTION_CONFIDENCE) {
+            return fromText;
+        }
+        Optional<CityMatch> byName = matchByName(text);
+        if (fromText.isEmpty()) {
+            return byName;
+        }
+        return byName.isPresent() && byName.get().confidence() > fromText.get().confidence() ? byName : fromText;
+    }
+
+    /**
+     * Tries every run of 2-4 Han characters and every run of up to three Latin words ("Shang hai") against the
+     * fuzzy index, stopping when the latency budget runs out.
+     */
+    private Hit fuzzyText(Loaded loaded, String text) {
+        long deadline = System.nanoTime() + fuzzyBudget.toNanos();
+        CityFuzzyMatcher matcher = loaded.index().fuzzyMatcher();
+        FuzzyBest best = new FuzzyBest(loaded);
+
+        for (int start = 0; start < text.length(); start++) {
+            for (int end = start + 2; end <= Math.min(text.length(), start + 4); end++) {
+                char last = text.charAt(end - 1);
+                if (!isHan(last) || FUZZY_STOP_CHARS.indexOf(last) >= 0) {
+                    break;
+                }
+                if (end == start + 2 && (!isHan(text.charAt(start)) || FUZZY_STOP_CHARS.indexOf(text.charAt(start)) >= 0)) {
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    return best.toHit();
+                }
+                matcher.find(text, start, end, best, deadline);
+            }
+        }
+
+        List<String> words = new ArrayList<>();
+        for (String word : text.split("[^A-Za-z']+")) {
+            String folded = CityIndex.foldPinyin(word);
+            if (!folded.isEmpty()) {
+                words.add(folded);
+            }
+        }
+        for (int start = 0; start < words.size(); start++) {
+            StringBuilder joined = new StringBuilder();
+            for (int end = start; end < Math.min(words.size(), start + 3); end++) {
+                if (System.nanoTime() > deadline) {
+                    return best.toHit();
                 }
+                joined.append(words.get(end));
+                matcher.find(joined, 0, joined.length(), best, deadline);
             }
         }
-        return Optional.empty();
+        return best.toHit();
+    }
+
+    private static boolean hasHan(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (isHan(s.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHan(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private static double round(double confidence) {
+        return Math.round(confidence * 100) / 100.0;
+    }
+
+    /**
+     * Type-ahead suggestions by prefix of the Chinese name, English name or pinyin initials.
+     * City-level locations come first, then hot cities, then shorter names.
+     */
+    public List<City> suggest(String query, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return List.of();
+        }
+        return current.get().suggestIndex().suggest(query.trim(), limit);
     }
 
     public List<City> getHotCities() {
@@ -237,34 +776,118 @@ public class CityConfig implements ResourceLoaderAware {
         return result;
     }
 
-    private static String safeGet(String[] cols, int idx) {
-        if (idx < 0 || idx >= cols.length) {
-            return null;
+    private CitySuggestIndex buildSuggestIndex(CityIndex index, LongIntHashMap hotRank) {
+        CityStore store = index.store();
+        Comparator<Integer> byRank = Comparator
+                .comparing((Integer i) -> !index.isCityLevel(i))
+                .thenComparingInt(i -> hotRank.get(i) >= 0 ? hotRank.get(i) : Integer.MAX_VALUE)
+                .thenComparingInt(i -> store.name(i).length())
+                .thenComparing(store::locationId);
+        int[] order = IntStream.range(0, store.size()).boxed().sorted(byRank).mapToInt(Integer::intValue).toArray();
+        return new CitySuggestIndex(store, order, suggestMaxResults);
+    }
+
+    /**
+     * @param success false when the CSV could not be loaded and the previous index stays in use
+     * @param changed false when the CSV is unchanged and nothing was rebuilt
+     */
+    public record ReloadResult(boolean success, boolean changed, int cities, long tookMs, String error) {}
+
+    /**
+     * A resolved city and how sure the lookup is of it, from 1.0 for an exact name down to about 0.3 for a
+     * two-character name with one character wrong.
+     *
+     * @param fuzzy the name was matched within an edit distance rather than as written
+     */
+    public record CityMatch(City city, double confidence, boolean fuzzy) {
+
+        public CityMatch(City city, double confidence) {
+            this(city, confidence, false);
         }
-        String v = cols[idx].trim();
-        return v.isEmpty() ? null : v;
     }
 
-    private static String normalizeName(String name) {
-        if (name == null) {
-            return null;
+    /**
+     * A location ordinal and its confidence, before it is materialized into a {@link CityMatch}.
+     */
+    private record Hit(int ordinal, double confidence, boolean fuzzy) {
+
+        Hit(int ordinal, double confidence) {
+            this(ordinal, confidence, false);
+        }
+    }
+
+    private record Namesake(int ordinal, int qualified, int length, int start) {}
+
+    /**
+     * @param hotRank position in {@code nimbus.city.hot} by location ordinal
+     */
+    private record Loaded(CityIndex index, CitySuggestIndex suggestIndex, LongIntHashMap hotRank, long checksum) {}
+
+    /**
+     * Keeps the best fuzzy candidate: fewest edits, then hot cities, then city level, then the longer name.
+     * Confidence falls with the share of the name that was edited and when another name is equally close.
+     */
+    private static final class FuzzyBest implements CityFuzzyMatcher.Candidates {
+
+        private final Loaded loaded;
+        private int ordinal = -1;
+        private int distance = Integer.MAX_VALUE;
+        private int keyLength;
+        private boolean ambiguous;
+
+        FuzzyBest(Loaded loaded) {
+            this.loaded = loaded;
         }
-        String trimmed = name.trim();
-        if (trimmed.isEmpty()) {
-            return trimmed;
+
+        @Override
+        public void accept(int target, int distance, int keyLength) {
+            int candidate = loaded.index().preferred(target);
+            if (candidate == ordinal) {
+                // the same place under another key (Chinese name or pinyin): keep its closest one
+                if (distance < this.distance || distance == this.distance && keyLength > this.keyLength) {
+                    ambiguous &= distance == this.distance;
+                    this.distance = distance;
+                    this.keyLength = keyLength;
+                }
+                return;
+            }
+            if (ordinal >= 0 && distance == this.distance) {
+                ambiguous = true;
+            }
+            if (ordinal < 0 || compare(candidate, distance, keyLength) < 0) {
+                if (ordinal >= 0 && distance < this.distance) {
+                    ambiguous = false;
+                }
+                this.ordinal = candidate;
+                this.distance = distance;
+                this.keyLength = keyLength;
+            }
         }
 
-        String[] suffixes = {"市", "区", "县", "省", "自治州", "地区", "盟", "旗"};
-        for (String suffix : suffixes) {
-            if (trimmed.endsWith(suffix) && trimmed.length() > suffix.length()) {
-                trimmed = trimmed.substring(0, trimmed.length() - suffix.length());
-                break;
+        private int compare(int candidate, int distance, int keyLength) {
+            if (distance != this.distance) {
+                return Integer.compare(distance, this.distance);
+            }
+            int byHot = Integer.compare(hotRank(loaded, candidate), hotRank(loaded, ordinal));
+            if (byHot != 0) {
+                return byHot;
+            }
+            CityIndex index = loaded.index();
+            int byLevel = Boolean.compare(!index.isCityLevel(candidate), !index.isCityLevel(ordinal));
+            if (byLevel != 0) {
+                return byLevel;
             }
+            int byLength = Integer.compare(keyLength, this.keyLength);
+            return byLength != 0 ? -byLength
+                    : index.store().locationId(candidate).compareTo(index.store().locationId(ordinal));
         }
-        return trimmed;
-    }
 
-    private static String[] splitCsvLine(String line) {
-        return line.split(",", -1);
+        Hit toHit() {
+            if (ordinal < 0) {
+                return null;
+            }
+            double confidence = FUZZY_CONFIDENCE * (1 - (double) distance / keyLength);
+            return new Hit(ordinal, round(ambiguous ? confidence * 0.8 : confidence), true);
+        }
     }
 }
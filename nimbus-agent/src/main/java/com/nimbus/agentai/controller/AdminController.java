@@ -0,0 +1,36 @@
+package com.nimbus.agentai.controller;
+
+import com.nimbus.agentai.config.CityConfig;
+import com.nimbus.agentai.service.ClothingAdviceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Operator endpoints (city list and clothing rules reload). Registered only with {@code nimbus.admin.enabled=true};
+ * the /nimbus/agent/admin path should then be reachable from the internal network or an authenticating gateway only.
+ */
+@RestController
+@RequestMapping("/nimbus/agent/admin")
+@ConditionalOnProperty(prefix = "nimbus.admin", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final CityConfig cityConfig;
+    private final ClothingAdviceService clothingAdviceService;
+
+    @PostMapping("/cities/reload")
+    public CompletableFuture<ResponseEntity<CityConfig.ReloadResult>> reloadCities() {
+        return cityConfig.reloadAsync().thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping("/clothing/rules/reload")
+    public ResponseEntity<ClothingAdviceService.ReloadResult> reloadClothingRules() {
+        return ResponseEntity.ok(clothingAdviceService.reload());
+    }
+}
@@ -2,7 +2,9 @@ package com.nimbus.agentai.controller;
 
 import com.nimbus.agentai.agent.AgentRunContext;
 import com.nimbus.agentai.agent.ToolTrace;
+import com.nimbus.agentai.client.QuotaRateLimiter;
 import com.nimbus.agentai.config.AgentAiConfig;
+import com.nimbus.agentai.config.CityConfig;
 import com.nimbus.agentai.model.City;
 import com.nimbus.agentai.model.ClothingAdvice;
 import com.nimbus.agentai.model.DailyWeather;
@@ -33,6 +35,8 @@ public class NimbusAgentController {
 
     private final ChatClient agentChatClientA;
     private final UserService userService;
+    private final QuotaRateLimiter quotaRateLimiter;
+    private final CityConfig cityConfig;
 
     @PostMapping("/chat")
     public ResponseEntity<AgentChatResponse> chat(@RequestBody AgentChatRequest request,
@@ -304,6 +308,17 @@ public class NimbusAgentController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/weather/quota")
+    public ResponseEntity<QuotaRateLimiter.QuotaStats> getWeatherQuota() {
+        return ResponseEntity.ok(quotaRateLimiter.stats());
+    }
+
+    @GetMapping("/weather/cities/suggest")
+    public ResponseEntity<List<City>> suggestCities(@RequestParam String q,
+                                                    @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(cityConfig.suggest(q, limit));
+    }
+
     private void ensureSession(String userId, String sessionId, String memoryKey) {
         try {
             userService.getOrCreateSession(userId, sessionId, memoryKey);
@@ -12,6 +12,7 @@ import lombok.NoArgsConstructor;
 public class City {
     private String locationId;
     private String name;
+    private String nameEn;
     private String adm1;
     private String adm2;
     private String latitude;
@@ -1,14 +1,16 @@
 package com.nimbus.agentai.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * Immutable: {@link com.nimbus.agentai.service.ClothingAdviceService} hands out prebuilt instances shared by all
+ * requests.
+ */
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
 public class ClothingAdvice {
     private String overview;
     private String top;
@@ -0,0 +1,15 @@
+package com.nimbus.agentai.model;
+
+import java.util.List;
+
+/**
+ * Clothing advice for consecutive forecast days as a compact table: one row per day pointing into the distinct
+ * advices, so days that share an advice list it once.
+ */
+public record ClothingAdviceRange(List<Day> days, List<ClothingAdvice> advice) {
+
+    /**
+     * @param advice index into {@link ClothingAdviceRange#advice()}
+     */
+    public record Day(String fxDate, String textDay, String tempMin, String tempMax, String precip, int advice) {}
+}
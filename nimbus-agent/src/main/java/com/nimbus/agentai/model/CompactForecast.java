@@ -0,0 +1,378 @@
+package com.nimbus.agentai.model;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Compact, immutable form of a {@link WeatherResponse} used inside the forecast cache.
+ * Each day is parsed once at ingest into primitives: dates as epoch days, times as minutes of day,
+ * precipitation in tenths of a millimetre, and texts as {@link WeatherTextDictionary} codes.
+ * {@link DailyWeather} DTOs are only materialized by {@link #toResponse(int)}. A value the primitive form would not
+ * render back exactly (a blank string, "0" for precipitation, "007") is also kept verbatim, so the round trip is
+ * lossless.
+ */
+public final class CompactForecast {
+
+    private static final short MISSING = Short.MIN_VALUE;
+
+    private static final int KIND_TIME = 0;
+    private static final int KIND_INT = 1;
+    private static final int KIND_TEXT = 2;
+    private static final int KIND_TENTHS = 3;
+
+    private static final int FIELDS = 24;
+
+    /** Verbatim slots per day: one per field, then fxDate. */
+    private static final int VERBATIM_STRIDE = FIELDS + 1;
+
+    /** Field order of the primitive and verbatim slots. */
+    private static final String[] FIELD_NAMES = {
+            "sunrise", "sunset", "moonrise", "moonset", "tempMax", "tempMin",
+            "iconDay", "textDay", "iconNight", "textNight",
+            "windDirDay", "wind360Day", "windScaleDay", "windSpeedDay",
+            "windDirNight", "wind360Night", "windScaleNight", "windSpeedNight",
+            "precip", "uvIndex", "humidity", "pressure", "vis", "cloud"
+    };
+
+    private static final Map<String, Integer> FIELD_INDEX = new HashMap<>();
+
+    static {
+        for (int field = 0; field < FIELDS; field++) {
+            FIELD_INDEX.put(FIELD_NAMES[field], field);
+        }
+    }
+
+    private static final int[] KINDS = {
+            KIND_TIME, KIND_TIME, KIND_TIME, KIND_TIME, KIND_INT, KIND_INT,
+            KIND_INT, KIND_TEXT, KIND_INT, KIND_TEXT,
+            KIND_TEXT, KIND_INT, KIND_TEXT, KIND_INT,
+            KIND_TEXT, KIND_INT, KIND_TEXT, KIND_INT,
+            KIND_TENTHS, KIND_INT, KIND_INT, KIND_INT, KIND_INT, KIND_INT
+    };
+
+    private static final List<Function<DailyWeather, String>> GETTERS = List.of(
+            DailyWeather::getSunrise, DailyWeather::getSunset, DailyWeather::getMoonrise, DailyWeather::getMoonset,
+            DailyWeather::getTempMax, DailyWeather::getTempMin,
+            DailyWeather::getIconDay, DailyWeather::getTextDay, DailyWeather::getIconNight, DailyWeather::getTextNight,
+            DailyWeather::getWindDirDay, DailyWeather::getWind360Day, DailyWeather::getWindScaleDay, DailyWeather::getWindSpeedDay,
+            DailyWeather::getWindDirNight, DailyWeather::getWind360Night, DailyWeather::getWindScaleNight, DailyWeather::getWindSpeedNight,
+            DailyWeather::getPrecip, DailyWeather::getUvIndex, DailyWeather::getHumidity, DailyWeather::getPressure,
+            DailyWeather::getVis, DailyWeather::getCloud
+    );
+
+    private static final List<BiConsumer<DailyWeather, String>> SETTERS = List.of(
+            DailyWeather::setSunrise, DailyWeather::setSunset, DailyWeather::setMoonrise, DailyWeather::setMoonset,
+            DailyWeather::setTempMax, DailyWeather::setTempMin,
+            DailyWeather::setIconDay, DailyWeather::setTextDay, DailyWeather::setIconNight, DailyWeather::setTextNight,
+            DailyWeather::setWindDirDay, DailyWeather::setWind360Day, DailyWeather::setWindScaleDay, DailyWeather::setWindSpeedDay,
+            DailyWeather::setWindDirNight, DailyWeather::setWind360Night, DailyWeather::setWindScaleNight, DailyWeather::setWindSpeedNight,
+            DailyWeather::setPrecip, DailyWeather::setUvIndex, DailyWeather::setHumidity, DailyWeather::setPressure,
+            DailyWeather::setVis, DailyWeather::setCloud
+    );
+
+    private final String code;
+    private final String updateTime;
+    private final String fxLink;
+    private final WeatherResponse.Refer refer;
+    private final int days;
+    private final int[] dates;
+    private final short[] values;
+    private final String[] verbatim;
+
+    private CompactForecast(String code, String updateTime, String fxLink, WeatherResponse.Refer refer,
+                            int days, int[] dates, short[] values, String[] verbatim) {
+        this.code = code;
+        this.updateTime = updateTime;
+        this.fxLink = fxLink;
+        this.refer = refer;
+        this.days = days;
+        this.dates = dates;
+        this.values = values;
+        this.verbatim = verbatim;
+    }
+
+    public static CompactForecast from(WeatherResponse response) {
+        Builder builder = builder()
+                .code(response.getCode())
+                .updateTime(response.getUpdateTime())
+                .fxLink(response.getFxLink())
+                .refer(response.getRefer());
+        if (response.getDaily() != null) {
+            for (DailyWeather day : response.getDaily()) {
+                builder.beginDay().fxDate(day.getFxDate());
+                for (int field = 0; field < FIELDS; field++) {
+                    builder.set(field, GETTERS.get(field).apply(day));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Materializes the first {@code days} days as the JSON-facing DTO.
+     */
+    public WeatherResponse toResponse(int days) {
+        WeatherResponse response = new WeatherResponse();
+        response.setCode(code);
+        response.setUpdateTime(updateTime);
+        response.setFxLink(fxLink);
+        response.setRefer(refer);
+        int count = Math.min(days, this.days);
+        List<DailyWeather> daily = new ArrayList<>(count);
+        for (int day = 0; day < count; day++) {
+            daily.add(toDailyWeather(day));
+        }
+        response.setDaily(daily);
+        return response;
+    }
+
+    public DailyWeather toDailyWeather(int day) {
+        DailyWeather weather = new DailyWeather();
+        String fxDate = verbatim(day, FIELDS);
+        weather.setFxDate(fxDate != null || dates[day] == Integer.MIN_VALUE
+                ? fxDate : LocalDate.ofEpochDay(dates[day]).toString());
+        int base = day * FIELDS;
+        for (int field = 0; field < FIELDS; field++) {
+            String raw = verbatim(day, field);
+            SETTERS.get(field).accept(weather, raw != null ? raw : decode(KINDS[field], values[base + field]));
+        }
+        return weather;
+    }
+
+    private String verbatim(int day, int slot) {
+        return verbatim != null ? verbatim[day * VERBATIM_STRIDE + slot] : null;
+    }
+
+    public boolean isSuccess() {
+        return "200".equals(code);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getUpdateTime() {
+        return updateTime;
+    }
+
+    public int days() {
+        return days;
+    }
+
+    /**
+     * Index of a day field by its QWeather JSON name, or -1 when the field is not kept.
+     */
+    public static int fieldIndex(String name) {
+        Integer field = FIELD_INDEX.get(name);
+        return field != null ? field : -1;
+    }
+
+    private static short encode(int kind, CharSequence raw) {
+        if (raw == null || raw.isEmpty()) {
+            return MISSING;
+        }
+        return switch (kind) {
+            case KIND_TIME -> parseMinutes(raw);
+            case KIND_TEXT -> WeatherTextDictionary.encode(raw.toString());
+            case KIND_TENTHS -> parseTenths(raw);
+            default -> parseShort(raw, 0, raw.length());
+        };
+    }
+
+    private static String decode(int kind, short value) {
+        if (value == MISSING) {
+            return null;
+        }
+        return switch (kind) {
+            case KIND_TIME -> formatMinutes(value);
+            case KIND_TEXT -> WeatherTextDictionary.decode(value);
+            case KIND_TENTHS -> (value / 10) + "." + Math.abs(value % 10);
+            default -> Short.toString(value);
+        };
+    }
+
+    /**
+     * True when {@link #decode} gives back exactly {@code raw}.
+     */
+    private static boolean reproduces(int kind, short value, CharSequence raw) {
+        return value != MISSING && decode(kind, value).contentEquals(raw);
+    }
+
+    /**
+     * Minutes of day as "HH:mm".
+     */
+    private static String formatMinutes(short minutes) {
+        int hours = minutes / 60;
+        int rest = minutes % 60;
+        return new String(new char[] {
+                (char) ('0' + hours / 10), (char) ('0' + hours % 10), ':',
+                (char) ('0' + rest / 10), (char) ('0' + rest % 10)
+        });
+    }
+
+    private static short parseMinutes(CharSequence raw) {
+        if (raw.length() != 5 || raw.charAt(2) != ':') {
+            return MISSING;
+        }
+        int hours = digit(raw, 0) * 10 + digit(raw, 1);
+        int minutes = digit(raw, 3) * 10 + digit(raw, 4);
+        return hours < 0 || minutes < 0 ? MISSING : (short) (hours * 60 + minutes);
+    }
+
+    private static short parseShort(CharSequence raw, int from, int to) {
+        int start = from < to && raw.charAt(from) == '-' ? from + 1 : from;
+        if (start == to || to - start > 5) {
+            return MISSING;
+        }
+        int value = 0;
+        for (int i = start; i < to; i++) {
+            int d = digit(raw, i);
+            if (d < 0) {
+                return MISSING;
+            }
+            value = value * 10 + d;
+        }
+        value = start > from ? -value : value;
+        return value > Short.MIN_VALUE && value <= Short.MAX_VALUE ? (short) value : MISSING;
+    }
+
+    private static short parseTenths(CharSequence raw) {
+        int dot = -1;
+        for (int i = 0; i < raw.length() && dot < 0; i++) {
+            if (raw.charAt(i) == '.') {
+                dot = i;
+            }
+        }
+        if (dot < 0) {
+            short whole = parseShort(raw, 0, raw.length());
+            return whole == MISSING || Math.abs(whole) > Short.MAX_VALUE / 10 ? MISSING : (short) (whole * 10);
+        }
+        short whole = dot == 0 ? 0 : parseShort(raw, 0, dot);
+        int fraction = dot + 1 < raw.length() ? digit(raw, dot + 1) : 0;
+        if (whole == MISSING || fraction < 0 || whole < 0 || whole > Short.MAX_VALUE / 10) {
+            return MISSING;
+        }
+        return (short) (whole * 10 + fraction);
+    }
+
+    private static int digit(CharSequence s, int i) {
+        char c = s.charAt(i);
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    /**
+     * Appends days field by field; used both for DTO conversion and by the streaming decoder.
+     */
+    public static final class Builder {
+
+        private String code;
+        private String updateTime;
+        private String fxLink;
+        private WeatherResponse.Refer refer;
+        private int days;
+        private int[] dates = new int[8];
+        private short[] values = new short[8 * FIELDS];
+        private String[] verbatim;
+
+        private Builder() {}
+
+        public Builder code(String code) {
+            this.code = code;
+            return this;
+        }
+
+        public Builder updateTime(String updateTime) {
+            this.updateTime = updateTime;
+            return this;
+        }
+
+        public Builder fxLink(String fxLink) {
+            this.fxLink = fxLink;
+            return this;
+        }
+
+        public Builder refer(WeatherResponse.Refer refer) {
+            this.refer = refer;
+            return this;
+        }
+
+        public Builder beginDay() {
+            if (days == dates.length) {
+                dates = Arrays.copyOf(dates, days * 2);
+                values = Arrays.copyOf(values, days * 2 * FIELDS);
+                if (verbatim != null) {
+                    verbatim = Arrays.copyOf(verbatim, days * 2 * VERBATIM_STRIDE);
+                }
+            }
+            dates[days] = Integer.MIN_VALUE;
+            Arrays.fill(values, days * FIELDS, (days + 1) * FIELDS, MISSING);
+            days++;
+            return this;
+        }
+
+        public Builder fxDate(CharSequence raw) {
+            int date = parseDate(raw);
+            dates[days - 1] = date;
+            // a parsed date prints back as the same ten characters
+            keep(FIELDS, raw, raw == null || date != Integer.MIN_VALUE);
+            return this;
+        }
+
+        public Builder set(int field, CharSequence raw) {
+            short value = encode(KINDS[field], raw);
+            values[(days - 1) * FIELDS + field] = value;
+            keep(field, raw, raw == null || reproduces(KINDS[field], value, raw));
+            return this;
+        }
+
+        public CompactForecast build() {
+            return new CompactForecast(code, updateTime, fxLink, refer, days,
+                    Arrays.copyOf(dates, days), Arrays.copyOf(values, days * FIELDS),
+                    verbatim != null ? Arrays.copyOf(verbatim, days * VERBATIM_STRIDE) : null);
+        }
+
+        /**
+         * Keeps {@code raw} as given unless the primitive form reproduces it; the slot is cleared otherwise, as a
+         * field may be set twice.
+         */
+        private void keep(int slot, CharSequence raw, boolean reproduced) {
+            int index = (days - 1) * VERBATIM_STRIDE + slot;
+            if (!reproduced) {
+                if (verbatim == null) {
+                    verbatim = new String[dates.length * VERBATIM_STRIDE];
+                }
+                verbatim[index] = raw.toString();
+            } else if (verbatim != null) {
+                verbatim[index] = null;
+            }
+        }
+
+        private static int parseDate(CharSequence raw) {
+            if (raw == null || raw.length() != 10 || raw.charAt(4) != '-' || raw.charAt(7) != '-') {
+                return Integer.MIN_VALUE;
+            }
+            short year = parseShort(raw, 0, 4);
+            short month = parseShort(raw, 5, 7);
+            short day = parseShort(raw, 8, 10);
+            if (year < 0 || month < 1 || day < 1) {
+                return Integer.MIN_VALUE;
+            }
+            try {
+                return (int) LocalDate.of(year, month, day).toEpochDay();
+            } catch (DateTimeException e) {
+                return Integer.MIN_VALUE;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.nimbus.agentai.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -17,6 +18,9 @@ public class WeatherResponse {
     private List<DailyWeather> daily;
     @JsonProperty("refer")
     private Refer refer;
+    /** Set when served from last-known-good data because upstream is unavailable. */
+    @JsonIgnore
+    private boolean stale;
 
     public boolean isSuccess() {
         return "200".equals(code);
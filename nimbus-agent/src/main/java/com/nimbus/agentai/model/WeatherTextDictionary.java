@@ -0,0 +1,51 @@
+package com.nimbus.agentai.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of the short texts QWeather repeats on every day (weather text, wind direction,
+ * wind scale). Each distinct text gets a stable {@code short} code.
+ */
+public final class WeatherTextDictionary {
+
+    public static final short MISSING = Short.MIN_VALUE;
+
+    private static final ConcurrentHashMap<String, Short> CODES = new ConcurrentHashMap<>();
+    private static volatile String[] texts = new String[64];
+    private static int size;
+
+    private WeatherTextDictionary() {}
+
+    public static short encode(String text) {
+        if (text == null) {
+            return MISSING;
+        }
+        Short code = CODES.get(text);
+        return code != null ? code : register(text);
+    }
+
+    public static String decode(short code) {
+        return code >= 0 ? texts[code] : null;
+    }
+
+    private static synchronized short register(String text) {
+        Short existing = CODES.get(text);
+        if (existing != null) {
+            return existing;
+        }
+        if (size > Short.MAX_VALUE) {
+            return MISSING;
+        }
+        if (size == texts.length) {
+            int capacity = Math.min(texts.length * 2, Short.MAX_VALUE + 1);
+            texts = Arrays.copyOf(texts, capacity);
+        }
+        short code = (short) size++;
+        String interned = text.intern();
+        texts[code] = interned;
+        // publish after the array is filled so readers that see the code also see the text
+        CODES.put(interned, code);
+        return code;
+    }
+}
@@ -1,114 +1,159 @@
 package com.nimbus.agentai.service;
 
+import com.nimbus.agentai.clothing.ClothingRuleTable;
+import com.nimbus.agentai.clothing.ClothingRules;
 import com.nimbus.agentai.model.ClothingAdvice;
+import com.nimbus.agentai.model.ClothingAdviceRange;
 import com.nimbus.agentai.model.DailyWeather;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * Clothing advice from the rules file ({@code nimbus.clothing.rules-location}), compiled into a
+ * {@link ClothingRuleTable}. A reload compiles the file again and swaps the table in one step; advice handed out
+ * are shared immutable instances.
+ */
 @Slf4j
 @Service
-public class ClothingAdviceService {
+public class ClothingAdviceService implements ResourceLoaderAware {
+
+    private static final ClothingAdvice NO_DATA = ClothingAdvice.builder()
+            .overview("暂无天气数据")
+            .build();
+
+    private final AtomicReference<Loaded> current = new AtomicReference<>(
+            new Loaded(ClothingRuleTable.empty(), 0L));
+
+    private ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+    private String rulesLocation = "classpath:clothing-rules.yml";
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        if (resourceLoader != null) {
+            this.resourceLoader = resourceLoader;
+        }
+    }
+
+    @Value("${nimbus.clothing.rules-location:classpath:clothing-rules.yml}")
+    public void setRulesLocation(String rulesLocation) {
+        if (rulesLocation != null && !rulesLocation.isBlank()) {
+            this.rulesLocation = rulesLocation.trim();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            byte[] bytes = readRules();
+            current.set(load(bytes, checksum(bytes)));
+        } catch (Exception e) {
+            throw new IllegalStateException("加载穿衣规则失败: " + rulesLocation, e);
+        }
+    }
+
+    /**
+     * Compiles the rules file again and publishes it in one swap; a file that fails to load leaves the current
+     * rules in place.
+     */
+    public synchronized ReloadResult reload() {
+        long start = System.nanoTime();
+        try {
+            byte[] bytes = readRules();
+            long checksum = checksum(bytes);
+            Loaded previous = current.get();
+            if (checksum == previous.checksum()) {
+                return ReloadResult.of(true, false, previous.table(), start, null);
+            }
+            Loaded loaded = load(bytes, checksum);
+            current.set(loaded);
+            return ReloadResult.of(true, true, loaded.table(), start, null);
+        } catch (Exception e) {
+            log.warn("重新加载穿衣规则失败，继续使用当前规则: {}", e.getMessage(), e);
+            return ReloadResult.of(false, false, current.get().table(), start, e.getMessage());
+        }
+    }
 
     public ClothingAdvice generateAdvice(DailyWeather weather) {
         if (weather == null) {
-            return ClothingAdvice.builder()
-                    .overview("暂无天气数据")
-                    .build();
+            return NO_DATA;
         }
 
-        int avgTemp = weather.getAverageTemp();
-        boolean isRainy = weather.isRainy();
-        String weatherText = weather.getTextDay();
+        log.debug("生成穿衣建议: 平均温度={}, 天气={}", weather.getAverageTemp(), weather.getTextDay());
 
-        log.debug("生成穿衣建议: 平均温度={}, 天气={}", avgTemp, weatherText);
+        return current.get().table().evaluate(weather);
+    }
 
-        ClothingAdvice advice = generateByTemperature(avgTemp);
+    /**
+     * Advice for each of {@code daily}, in order; null days are skipped.
+     */
+    public ClothingAdviceRange generateRangeAdvice(List<DailyWeather> daily) {
+        if (daily == null || daily.isEmpty()) {
+            return new ClothingAdviceRange(List.of(), List.of());
+        }
+        List<ClothingAdviceRange.Day> days = new ArrayList<>(daily.size());
+        List<ClothingAdvice> distinct = new ArrayList<>();
+        for (DailyWeather weather : daily) {
+            if (weather == null) {
+                continue;
+            }
+            ClothingAdvice advice = generateAdvice(weather);
+            // table cells are shared, so equal advice is usually the same instance
+            int index = distinct.indexOf(advice);
+            if (index < 0) {
+                index = distinct.size();
+                distinct.add(advice);
+            }
+            days.add(new ClothingAdviceRange.Day(weather.getFxDate(), weather.getTextDay(),
+                    weather.getTempMin(), weather.getTempMax(), weather.getPrecip(), index));
+        }
+        return new ClothingAdviceRange(days, distinct);
+    }
 
-        if (isRainy) {
-            advice.setReminder("今天有" + weatherText + "，记得带伞");
-            advice.setShoes("防水鞋/雨鞋");
-            advice.setAccessories("雨伞");
-        } else if (weatherText != null && weatherText.contains("晴")) {
-            advice.setAccessories("太阳镜/遮阳帽");
+    private Loaded load(byte[] bytes, long checksum) {
+        ClothingRuleTable table = ClothingRuleTable.compile(ClothingRules.parse(new ByteArrayInputStream(bytes)));
+        log.info("已加载 {} 条穿衣规则，决策表 {} 格、{} 种建议", table.ruleCount(), table.cellCount(), table.adviceCount());
+        return new Loaded(table, checksum);
+    }
+
+    private byte[] readRules() throws IOException {
+        try (InputStream in = resourceLoader.getResource(rulesLocation).getInputStream()) {
+            return in.readAllBytes();
         }
+    }
 
-        return advice;
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
     }
 
-    private ClothingAdvice generateByTemperature(int temp) {
-        if (temp < -10) {
-            return ClothingAdvice.simple(
-                    "极寒天气，注意保暖！",
-                    "厚羽绒服 + 保暖内衣 + 毛衣",
-                    "加绒裤/羽绒裤",
-                    "雪地靴/棉靴",
-                    "围巾、手套、帽子、口罩"
-            );
-        } else if (temp < 0) {
-            return ClothingAdvice.simple(
-                    "天气寒冷，全副武装",
-                    "羽绒服 + 毛衣",
-                    "厚裤子/加绒裤",
-                    "保暖鞋/靴子",
-                    "围巾、手套、帽子"
-            );
-        } else if (temp < 5) {
-            return ClothingAdvice.simple(
-                    "天气较冷，注意保暖",
-                    "羽绒服/厚棉服",
-                    "长裤/厚裤子",
-                    "运动鞋/休闲鞋",
-                    "围巾、手套"
-            );
-        } else if (temp < 10) {
-            return ClothingAdvice.simple(
-                    "天气凉爽",
-                    "大衣/棉服/夹克 + 薄毛衣",
-                    "长裤",
-                    "运动鞋/休闲鞋",
-                    "薄围巾"
-            );
-        } else if (temp < 15) {
-            return ClothingAdvice.simple(
-                    "舒适温度",
-                    "外套/风衣/卫衣",
-                    "长裤/牛仔裤",
-                    "运动鞋/休闲鞋",
-                    "根据需要携带薄外套"
-            );
-        } else if (temp < 20) {
-            return ClothingAdvice.simple(
-                    "温暖舒适",
-                    "薄外套/长袖衬衫/T恤",
-                    "长裤/休闲裤",
-                    "运动鞋/帆布鞋",
-                    ""
-            );
-        } else if (temp < 25) {
-            return ClothingAdvice.simple(
-                    "天气温暖",
-                    "T恤/衬衫",
-                    "长裤/薄裤",
-                    "运动鞋/休闲鞋",
-                    ""
-            );
-        } else if (temp < 30) {
-            return ClothingAdvice.simple(
-                    "天气较热",
-                    "短袖/薄衬衫",
-                    "短裤/薄长裤",
-                    "凉鞋/透气鞋",
-                    "遮阳帽"
-            );
-        } else {
-            return ClothingAdvice.simple(
-                    "天气炎热，注意防暑！",
-                    "短袖/背心/薄衣物",
-                    "短裤/裙装",
-                    "凉鞋/拖鞋",
-                    "遮阳帽、太阳镜、防晒霜"
-            );
+    private record Loaded(ClothingRuleTable table, long checksum) {}
+
+    /**
+     * @param success false when the rules could not be loaded and the previous ones stay in use
+     * @param changed false when the file is unchanged and nothing was recompiled
+     */
+    public record ReloadResult(boolean success, boolean changed, int rules, int cells, long tookMs, String error) {
+
+        static ReloadResult of(boolean success, boolean changed, ClothingRuleTable table, long startNanos,
+                               String error) {
+            return new ReloadResult(success, changed, table.ruleCount(), table.cellCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), error);
         }
     }
 }
-
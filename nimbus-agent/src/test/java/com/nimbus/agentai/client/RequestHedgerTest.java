@@ -0,0 +1,140 @@
+package com.nimbus.agentai.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestHedgerTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(30);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private RequestHedger hedger;
+
+    @BeforeEach
+    void setUp() {
+        UpstreamGuard guard = new UpstreamGuard();
+        // one fast sample, so the hedge delay is min-delay
+        guard.protect(() -> Mono.just("ok")).block();
+        hedger = new RequestHedger(guard);
+        hedger.setEnabled(true);
+        hedger.setMinDelay(HEDGE_DELAY);
+        hedger.setBudgetPercent(100);
+    }
+
+    @Test
+    void disabledHedgerCallsOnce() {
+        hedger.setEnabled(false);
+
+        assertThat(hedger.hedge(calls(Mono.delay(Duration.ofMillis(100)).thenReturn("primary")), () -> true).block())
+                .isEqualTo("primary");
+        assertThat(calls).hasValue(1);
+        assertThat(hedger.primaryCalls()).isZero();
+    }
+
+    @Test
+    void fastCallIsNotHedged() {
+        assertThat(hedger.hedge(calls(Mono.just("primary")), () -> true).block()).isEqualTo("primary");
+
+        assertThat(calls).hasValue(1);
+        assertThat(hedger.hedgedCalls()).isZero();
+    }
+
+    @Test
+    void hedgeWinsAndThePrimaryIsCancelled() {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        Mono<String> primary = Mono.<String>never().doOnCancel(() -> primaryCancelled.set(true));
+
+        assertThat(hedger.hedge(calls(primary, Mono.just("hedge")), () -> true).block(Duration.ofSeconds(5)))
+                .isEqualTo("hedge");
+        assertThat(primaryCancelled).isTrue();
+        assertThat(hedger.hedgedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void primaryWinsAndTheHedgeIsCancelled() {
+        AtomicBoolean hedgeCancelled = new AtomicBoolean();
+        Mono<String> primary = Mono.delay(HEDGE_DELAY.multipliedBy(3)).thenReturn("primary");
+        Mono<String> hedge = Mono.<String>never().doOnCancel(() -> hedgeCancelled.set(true));
+
+        assertThat(hedger.hedge(calls(primary, hedge), () -> true).block(Duration.ofSeconds(5)))
+                .isEqualTo("primary");
+        assertThat(calls).hasValue(2);
+        assertThat(hedgeCancelled).isTrue();
+    }
+
+    @Test
+    void hedgeErrorsAreIgnored() {
+        Mono<String> primary = Mono.delay(HEDGE_DELAY.multipliedBy(3)).thenReturn("primary");
+
+        assertThat(hedger.hedge(calls(primary, Mono.error(new IllegalStateException("hedge failed"))), () -> true)
+                .block(Duration.ofSeconds(5))).isEqualTo("primary");
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void refusedAdmissionSendsNoHedge() {
+        Mono<String> primary = Mono.delay(HEDGE_DELAY.multipliedBy(3)).thenReturn("primary");
+
+        assertThat(hedger.hedge(calls(primary, Mono.just("hedge")), () -> false).block(Duration.ofSeconds(5)))
+                .isEqualTo("primary");
+        assertThat(calls).hasValue(1);
+        assertThat(hedger.hedgedCalls()).isZero();
+    }
+
+    @Test
+    void hedgesStayWithinTheCreditBudget() {
+        hedger.setBudgetPercent(25);
+        Mono<String> slow = Mono.delay(HEDGE_DELAY.multipliedBy(4)).thenReturn("ok");
+
+        List<String> results = Flux.range(0, 20)
+                .flatMap(i -> hedger.hedge(calls(slow), () -> true))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // 20 primaries earn 5 credits
+        assertThat(results).hasSize(20);
+        assertThat(hedger.primaryCalls()).isEqualTo(20);
+        assertThat(hedger.hedgedCalls()).isEqualTo(5);
+        assertThat(calls).hasValue(25);
+    }
+
+    @Test
+    void sequentialSlowCallsHedgeAtTheBudgetRate() {
+        hedger.setBudgetPercent(50);
+        Mono<String> slow = Mono.delay(HEDGE_DELAY.multipliedBy(3)).thenReturn("ok");
+
+        for (int i = 0; i < 8; i++) {
+            hedger.hedge(calls(slow), () -> true).block(Duration.ofSeconds(5));
+            assertThat(hedger.hedgedCalls()).isLessThanOrEqualTo(hedger.primaryCalls() / 2);
+        }
+        assertThat(hedger.hedgedCalls()).isEqualTo(4);
+    }
+
+    /**
+     * The first invocation returns {@code first}, later ones (the hedge) {@code then}.
+     */
+    private Supplier<Mono<String>> calls(Mono<String> first, Mono<String> then) {
+        AtomicInteger invocations = new AtomicInteger();
+        return () -> {
+            calls.incrementAndGet();
+            return invocations.getAndIncrement() == 0 ? first : then;
+        };
+    }
+
+    private Supplier<Mono<String>> calls(Mono<String> each) {
+        return () -> {
+            calls.incrementAndGet();
+            return each;
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package com.nimbus.agentai.client;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicBoolean upstreamCancelled = new AtomicBoolean();
+    private final AtomicReference<Sinks.One<String>> upstream = new AtomicReference<>();
+
+    @Test
+    void concurrentCallsShareOneUpstreamCall() {
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            execute("101010100").subscribe(results::add);
+        }
+
+        assertThat(calls).hasValue(1);
+        upstream.get().tryEmitValue("sunny");
+        assertThat(results).containsExactly("sunny", "sunny", "sunny");
+    }
+
+    @Test
+    void callsFromManyThreadsShareOneUpstreamCall() throws InterruptedException {
+        AtomicInteger delivered = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    execute("101010100").subscribe(value -> delivered.incrementAndGet());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(calls).hasValue(1);
+        upstream.get().tryEmitValue("sunny");
+        assertThat(delivered).hasValue(threads.length * 500);
+    }
+
+    @Test
+    void errorReachesEverySubscriber() {
+        List<Throwable> errors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            execute("101010100").subscribe(value -> {}, errors::add);
+        }
+
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        upstream.get().tryEmitError(failure);
+        assertThat(errors).containsExactly(failure, failure, failure);
+    }
+
+    @Test
+    void cancellingOneSubscriberKeepsTheCallForTheOthers() {
+        List<String> results = new ArrayList<>();
+        Disposable first = execute("101010100").subscribe(results::add);
+        execute("101010100").subscribe(results::add);
+
+        first.dispose();
+        assertThat(upstreamCancelled).isFalse();
+
+        upstream.get().tryEmitValue("sunny");
+        assertThat(results).containsExactly("sunny");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void cancellingEverySubscriberCancelsTheCallAndReleasesTheKey() {
+        Disposable first = execute("101010100").subscribe();
+        Disposable second = execute("101010100").subscribe();
+
+        first.dispose();
+        second.dispose();
+        assertThat(upstreamCancelled).isTrue();
+
+        execute("101010100").subscribe();
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void keyIsReleasedOnCompletion() {
+        execute("101010100").subscribe();
+        upstream.get().tryEmitValue("sunny");
+
+        execute("101010100").subscribe();
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void keyIsReleasedOnError() {
+        execute("101010100").subscribe(value -> {}, error -> {});
+        upstream.get().tryEmitError(new IllegalStateException("upstream down"));
+
+        List<String> results = new ArrayList<>();
+        execute("101010100").subscribe(results::add);
+        upstream.get().tryEmitValue("sunny");
+        assertThat(calls).hasValue(2);
+        assertThat(results).containsExactly("sunny");
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        execute("101010100").subscribe();
+        execute("101020100").subscribe();
+
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void nothingStartsUntilSubscribed() {
+        Mono<String> pending = execute("101010100");
+
+        assertThat(calls).hasValue(0);
+        pending.subscribe();
+        assertThat(calls).hasValue(1);
+    }
+
+    private Mono<String> execute(String key) {
+        return singleFlight.execute(key, () -> {
+            calls.incrementAndGet();
+            Sinks.One<String> sink = Sinks.one();
+            upstream.set(sink);
+            return sink.asMono().doOnCancel(() -> upstreamCancelled.set(true));
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.nimbus.agentai.config;
+
+import com.nimbus.agentai.model.City;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CityConfigTest {
+
+    private static CityConfig cityConfig;
+
+    @BeforeAll
+    static void load() {
+        cityConfig = new CityConfig();
+        // generous budget so results do not depend on JIT warm-up
+        cityConfig.setFuzzyBudget(Duration.ofSeconds(5));
+        cityConfig.init();
+    }
+
+    @AfterAll
+    static void stop() {
+        cityConfig.stop();
+    }
+
+    @Test
+    void extractFromTextFindsExactMentions() {
+        assertThat(cityConfig.extractFromText("北京明天天气怎么样")).map(City::getName).hasValue("北京");
+        assertThat(cityConfig.extractFromText("我在杭州市，要带伞吗")).map(City::getName).hasValue("杭州");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"东京天气", "东京天气怎么样", "巴黎明天下雨吗", "火星天气", "杭洲天气"})
+    void extractFromTextNeverGuessesMisspellings(String text) {
+        assertThat(cityConfig.extractFromText(text)).isEmpty();
+        assertThat(cityConfig.matchText(text)).isEmpty();
+    }
+
+    @Test
+    void lowConfidenceMisspellingsAreOnlySuggested() {
+        List<CityConfig.CityMatch> candidates = cityConfig.matchCandidates("杭洲天气", 3);
+
+        assertThat(candidates).isNotEmpty();
+        assertThat(candidates.get(0).city().getName()).isEqualTo("杭州");
+        assertThat(candidates.get(0).fuzzy()).isTrue();
+        assertThat(cityConfig.isConfident(candidates.get(0))).isFalse();
+    }
+
+    @Test
+    void confidentMisspellingsAreAnswered() {
+        Optional<CityConfig.CityMatch> match = cityConfig.matchText("shanghia weather");
+
+        assertThat(match).map(m -> m.city().getName()).hasValue("上海");
+        assertThat(match.get().fuzzy()).isTrue();
+        assertThat(cityConfig.isConfident(match.get())).isTrue();
+    }
+
+    @Test
+    void sharedNamesAreConfidentDespiteSplitConfidence() {
+        List<CityConfig.CityMatch> candidates = cityConfig.matchCandidates("朝阳天气", 3);
+
+        assertThat(candidates).hasSizeGreaterThan(1);
+        assertThat(candidates).allSatisfy(match -> {
+            assertThat(match.fuzzy()).isFalse();
+            assertThat(cityConfig.isConfident(match)).isTrue();
+        });
+    }
+}
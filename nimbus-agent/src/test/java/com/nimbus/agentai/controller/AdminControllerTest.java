@@ -0,0 +1,37 @@
+package com.nimbus.agentai.controller;
+
+import com.nimbus.agentai.config.CityConfig;
+import com.nimbus.agentai.service.ClothingAdviceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AdminControllerTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withInitializer(context -> {
+                // ready-made singletons, so the mocks' @Value setters are not injected
+                context.getBeanFactory().registerSingleton("cityConfig", mock(CityConfig.class));
+                context.getBeanFactory().registerSingleton("clothingAdviceService", mock(ClothingAdviceService.class));
+            })
+            .withUserConfiguration(AdminController.class);
+
+    @Test
+    void notRegisteredByDefault() {
+        runner.run(context -> assertThat(context).doesNotHaveBean(AdminController.class));
+    }
+
+    @Test
+    void notRegisteredWhenDisabled() {
+        runner.withPropertyValues("nimbus.admin.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(AdminController.class));
+    }
+
+    @Test
+    void registeredWhenEnabled() {
+        runner.withPropertyValues("nimbus.admin.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(AdminController.class));
+    }
+}
@@ -0,0 +1,181 @@
+package com.nimbus.agentai.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactForecastTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String[] FIELDS = {
+            "sunrise", "sunset", "moonrise", "moonset", "tempMax", "tempMin",
+            "iconDay", "textDay", "iconNight", "textNight",
+            "windDirDay", "wind360Day", "windScaleDay", "windSpeedDay",
+            "windDirNight", "wind360Night", "windScaleNight", "windSpeedNight",
+            "precip", "uvIndex", "humidity", "pressure", "vis", "cloud"
+    };
+
+    private static final String[] ODD_VALUES = {
+            "", " ", "0", "-0", "007", "+5", "0.0", "0.25", ".5", "5.", "-1.5", "1e3",
+            "32767", "32768", "-32767", "-32768", "99999", "3276.7", "3276.8",
+            "07:30", "7:30", "24:00", "25:99", "-1:00",
+            "晴", "小雨", "不在字典里的天气", "N/A"
+    };
+
+    @Test
+    void typicalForecastRoundTrips() {
+        WeatherResponse response = response(List.of(
+                day("2024-07-01", "05:12", "19:48", "21:03", "08:15", "33", "24", "100", "晴", "150", "多云",
+                        "东南风", "135", "1-3", "11", "南风", "180", "1-3", "3", "0.0", "9", "72", "1002", "25", "10"),
+                day("2024-07-02", "05:13", "19:48", "", "09:01", "30", "23", "305", "小雨", "305", "小雨",
+                        "北风", "0", "3-4", "16", "北风", "0", "3-4", "16", "12.5", "3", "90", "1000", "10", "100")));
+
+        assertRoundTrips(response);
+    }
+
+    @Test
+    void missingAndBlankFieldsRoundTrip() {
+        Map<String, String> sparse = new HashMap<>();
+        sparse.put("fxDate", "2024-07-01");
+        sparse.put("tempMax", "");
+        sparse.put("textDay", " ");
+        WeatherResponse response = response(List.of(MAPPER.convertValue(sparse, DailyWeather.class),
+                new DailyWeather()));
+
+        assertRoundTrips(response);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "2024-02-29", "2024-02-30", "2023-02-29", "0000-01-01", "9999-12-31",
+            "2024-1-01", "2024/07/01", "abcd-ef-gh", "2024-07-01T00:00"})
+    void datesRoundTrip(String fxDate) {
+        DailyWeather day = new DailyWeather();
+        day.setFxDate(fxDate);
+
+        assertRoundTrips(response(List.of(day)));
+    }
+
+    @Test
+    void oddValuesRoundTripInEveryField() {
+        List<DailyWeather> daily = new ArrayList<>();
+        for (String value : ODD_VALUES) {
+            Map<String, String> fields = new HashMap<>();
+            fields.put("fxDate", "2024-07-01");
+            for (String field : FIELDS) {
+                fields.put(field, value);
+            }
+            daily.add(MAPPER.convertValue(fields, DailyWeather.class));
+        }
+
+        assertRoundTrips(response(daily));
+    }
+
+    @Test
+    void randomForecastsRoundTrip() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            List<DailyWeather> daily = new ArrayList<>();
+            int days = 1 + random.nextInt(30);
+            for (int d = 0; d < days; d++) {
+                Map<String, String> fields = new HashMap<>();
+                fields.put("fxDate", random.nextInt(20) == 0 ? ODD_VALUES[random.nextInt(ODD_VALUES.length)]
+                        : String.format("%04d-%02d-%02d", 2000 + random.nextInt(50), 1 + random.nextInt(12),
+                        1 + random.nextInt(31)));
+                for (String field : FIELDS) {
+                    fields.put(field, randomValue(random));
+                }
+                daily.add(MAPPER.convertValue(fields, DailyWeather.class));
+            }
+            assertRoundTrips(response(daily));
+        }
+    }
+
+    @Test
+    void fieldSetTwiceKeepsTheLastValue() {
+        int textDay = CompactForecast.fieldIndex("textDay");
+        int tempMax = CompactForecast.fieldIndex("tempMax");
+        CompactForecast forecast = CompactForecast.builder().code("200")
+                .beginDay().fxDate("2024-07-01")
+                .set(tempMax, "007").set(tempMax, "7")
+                .set(textDay, "晴").set(textDay, "不在字典里的天气")
+                .build();
+
+        DailyWeather day = forecast.toDailyWeather(0);
+        assertThat(day.getTempMax()).isEqualTo("7");
+        assertThat(day.getTextDay()).isEqualTo("不在字典里的天气");
+    }
+
+    @Test
+    void toResponseTruncatesDays() {
+        List<DailyWeather> daily = new ArrayList<>();
+        for (int d = 1; d <= 7; d++) {
+            daily.add(day(String.format("2024-07-%02d", d)));
+        }
+        WeatherResponse response = response(daily);
+
+        WeatherResponse three = CompactForecast.from(response).toResponse(3);
+        assertThat(three.getDaily()).isEqualTo(daily.subList(0, 3));
+        assertThat(three.getRefer()).isEqualTo(response.getRefer());
+        assertThat(CompactForecast.from(response).toResponse(30).getDaily()).isEqualTo(daily);
+    }
+
+    @Test
+    void unknownFieldsAreNotKept() {
+        assertThat(CompactForecast.fieldIndex("fxDate")).isEqualTo(-1);
+        assertThat(CompactForecast.fieldIndex("snow")).isEqualTo(-1);
+        assertThat(CompactForecast.fieldIndex("cloud")).isEqualTo(FIELDS.length - 1);
+    }
+
+    private static String randomValue(Random random) {
+        return switch (random.nextInt(6)) {
+            case 0 -> ODD_VALUES[random.nextInt(ODD_VALUES.length)];
+            case 1 -> String.format("%02d:%02d", random.nextInt(24), random.nextInt(60));
+            case 2 -> Integer.toString(random.nextInt(200) - 50);
+            case 3 -> (random.nextInt(1000) / 10) + "." + random.nextInt(10);
+            case 4 -> random.nextBoolean() ? "晴" : "雷阵雨转大雪" + random.nextInt(3);
+            default -> random.nextInt(4) == 0 ? null : Integer.toString(random.nextInt(100_000));
+        };
+    }
+
+    private static void assertRoundTrips(WeatherResponse response) {
+        WeatherResponse restored = CompactForecast.from(response).toResponse(response.getDaily().size());
+
+        assertThat(restored.getDaily()).hasSameSizeAs(response.getDaily());
+        for (int d = 0; d < response.getDaily().size(); d++) {
+            assertThat(restored.getDaily().get(d)).as("day %d", d).isEqualTo(response.getDaily().get(d));
+        }
+        assertThat(restored).isEqualTo(response);
+    }
+
+    private static WeatherResponse response(List<DailyWeather> daily) {
+        WeatherResponse.Refer refer = new WeatherResponse.Refer();
+        refer.setSources(List.of("QWeather"));
+        refer.setLicense(List.of("QWeather Developers License"));
+        WeatherResponse response = new WeatherResponse();
+        response.setCode("200");
+        response.setUpdateTime("2024-07-01T08:35+08:00");
+        response.setFxLink("https://www.qweather.com/weather/beijing-101010100.html");
+        response.setRefer(refer);
+        response.setDaily(daily);
+        return response;
+    }
+
+    private static DailyWeather day(String fxDate, String... values) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("fxDate", fxDate);
+        for (int i = 0; i < values.length; i++) {
+            fields.put(FIELDS[i], values[i]);
+        }
+        return MAPPER.convertValue(fields, DailyWeather.class);
+    }
+}
@@ -23,6 +23,9 @@ public class AgentService {
     // 最大步骤数，防止模型陷入死循环
     private static final int MAX_STEPS = 5;
 
+    // extract_city 最多返回的候选地点数
+    private static final int MAX_CITY_MATCHES = 5;
+
     private final ChatClient agentChatClient;
     private final AgentSessionStore sessionStore;
     private final CityConfig cityConfig;
@@ -147,23 +150,31 @@ public class AgentService {
             return result;
         }
 
-        Optional<City> fromText = cityConfig.extractFromText(text);
-        if (fromText.isPresent()) {
-            City city = fromText.get();
-            result.put("found", true);
-            result.put("cityName", city.getName());
-            result.put("locationId", city.getLocationId());
-            result.put("confidence", 0.9);
-            return result;
-        }
-
-        Optional<City> byName = cityConfig.findByName(text);
-        if (byName.isPresent()) {
-            City city = byName.get();
-            result.put("found", true);
-            result.put("cityName", city.getName());
-            result.put("locationId", city.getLocationId());
-            result.put("confidence", 0.8);
+        List<CityConfig.CityMatch> matches = cityConfig.matchCandidates(text, MAX_CITY_MATCHES);
+        if (!matches.isEmpty()) {
+            // 疑似错写时只给出候选请用户确认，不替用户认定城市
+            boolean confident = cityConfig.isConfident(matches.get(0));
+            City city = matches.get(0).city();
+            result.put("found", confident);
+            if (confident) {
+                result.put("cityName", city.getName());
+                result.put("locationId", city.getLocationId());
+                result.put("confidence", matches.get(0).confidence());
+            } else {
+                result.put("candidates", hotCityNames());
+            }
+            // 同名地点按省/市限定词排序后全部给出，便于模型一步选定
+            List<Map<String, Object>> options = new ArrayList<>();
+            for (CityConfig.CityMatch match : matches) {
+                Map<String, Object> option = new LinkedHashMap<>();
+                option.put("cityName", match.city().getName());
+                option.put("adm1", match.city().getAdm1());
+                option.put("adm2", match.city().getAdm2());
+                option.put("locationId", match.city().getLocationId());
+                option.put("confidence", match.confidence());
+                options.add(option);
+            }
+            result.put("matches", options);
             return result;
         }
 
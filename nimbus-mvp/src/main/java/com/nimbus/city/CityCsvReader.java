@@ -0,0 +1,321 @@
+package com.nimbus.city;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
+
+/**
+ * 和风城市库 CSV 读取器
+ * <p>
+ * 文件格式：版本行、表头行，之后每行一个地点；按文件顺序读入 {@link CityStore}。
+ * 字段遵循 RFC 4180：带引号的字段可以包含逗号、双写的引号和换行。
+ * 大文件按记录边界切块，在公共 fork-join 池上并行解析，再按文件顺序拼接，结果与顺序读取一致。
+ *
+ * @author Nimbus Team
+ */
+@Slf4j
+public final class CityCsvReader {
+
+    /**
+     * 目标分块大小；不超过该大小的文件直接在调用线程解析
+     */
+    private static final int CHUNK_BYTES = 1 << 18;
+
+    private CityCsvReader() {}
+
+    public static CityStore read(InputStream in) throws IOException {
+        return read(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    /**
+     * 读取 {@code csv} 的剩余字节，不改变其 position
+     */
+    public static CityStore read(ByteBuffer csv) {
+        byte[] in;
+        int from;
+        int to;
+        if (csv.hasArray()) {
+            in = csv.array();
+            from = csv.arrayOffset() + csv.position();
+            to = csv.arrayOffset() + csv.limit();
+        } else {
+            in = new byte[csv.remaining()];
+            csv.get(csv.position(), in);
+            from = 0;
+            to = in.length;
+        }
+        if (to - from >= 3 && in[from] == (byte) 0xEF && in[from + 1] == (byte) 0xBB && in[from + 2] == (byte) 0xBF) {
+            from += 3;
+        }
+        int headerStart = nextRecord(in, from, to, false);
+        int bodyStart = nextRecord(in, headerStart, to, false);
+        if (bodyStart == headerStart) {
+            throw new IllegalStateException("城市库 CSV 为空");
+        }
+        String versionLine = decode(in, from, headerStart).trim(); // e.g. China-City-List v...
+        if (!versionLine.isEmpty()) {
+            log.debug("城市库版本: {}", versionLine);
+        }
+        Columns columns = Columns.of(indexHeaders(decode(in, headerStart, bodyStart)));
+
+        int[] bounds = chunkBounds(in, bodyStart, to);
+        if (bounds.length == 2) {
+            return parseChunk(in, bodyStart, to, columns).build();
+        }
+        List<ForkJoinTask<CityStore.Builder>> chunks = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            int chunkFrom = bounds[i];
+            int chunkTo = bounds[i + 1];
+            chunks.add(ForkJoinPool.commonPool().submit(() -> parseChunk(in, chunkFrom, chunkTo, columns)));
+        }
+        CityStore.Builder rows = new CityStore.Builder((to - bodyStart) / 128);
+        for (ForkJoinTask<CityStore.Builder> chunk : chunks) {
+            rows.append(chunk.join());
+        }
+        return rows.build();
+    }
+
+    private static CityStore.Builder parseChunk(byte[] in, int from, int to, Columns columns) {
+        String text = decode(in, from, to);
+        CityStore.Builder rows = new CityStore.Builder(text.length() / 96);
+        Record record = new Record(text);
+        int pos = 0;
+        while (pos < text.length()) {
+            pos = record.parse(pos);
+            if (record.size <= columns.required()) {
+                continue; // 空行或列数不足
+            }
+
+            String locationId = record.get(columns.id());
+            String nameZh = record.get(columns.nameZh());
+            if (locationId == null || nameZh == null) {
+                continue;
+            }
+
+            rows.add(locationId,
+                    nameZh,
+                    record.get(columns.nameEn()),
+                    record.get(columns.adm1Zh()),
+                    record.get(columns.adm2Zh()),
+                    parseCoordinate(record.get(columns.latitude())),
+                    parseCoordinate(record.get(columns.longitude())));
+        }
+        return rows;
+    }
+
+    /**
+     * 各块起始偏移，末尾附 {@code to}。按 {@link #CHUNK_BYTES} 分段并行统计引号数，之前各段引号数的奇偶
+     * 决定该段是否从引号内开始，块从其后第一个引号外的换行之后开始。
+     * UTF-8 多字节字符内不会出现 {@code '\n'} 或 {@code '"'}。
+     */
+    private static int[] chunkBounds(byte[] in, int from, int to) {
+        int segments = (int) ((to - (long) from + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        if (segments <= 1) {
+            return new int[]{from, to};
+        }
+        int[] quotes = IntStream.range(0, segments).parallel()
+                .map(k -> countQuotes(in, from + k * CHUNK_BYTES, Math.min(to, from + (k + 1) * CHUNK_BYTES)))
+                .toArray();
+        int[] bounds = new int[segments + 1];
+        int count = 0;
+        bounds[count++] = from;
+        boolean quoted = false;
+        for (int k = 1; k < segments; k++) {
+            quoted ^= (quotes[k - 1] & 1) == 1;
+            int cut = nextRecord(in, from + k * CHUNK_BYTES, to, quoted);
+            // 比一段还长的引号字段可能把切点推过下一段
+            if (cut > bounds[count - 1] && cut < to) {
+                bounds[count++] = cut;
+            }
+        }
+        bounds[count++] = to;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static int countQuotes(byte[] in, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (in[i] == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@code from} 之后第一个引号外换行的下一个偏移；{@code quoted} 表示 {@code from} 是否在引号字段内
+     */
+    private static int nextRecord(byte[] in, int from, int to, boolean quoted) {
+        for (int i = from; i < to; i++) {
+            byte b = in[i];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == '\n' && !quoted) {
+                return i + 1;
+            }
+        }
+        return to;
+    }
+
+    private static String decode(byte[] in, int from, int to) {
+        return new String(in, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> indexHeaders(String headerLine) {
+        Record headers = new Record(headerLine);
+        headers.parse(0);
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < headers.size; i++) {
+            index.put(headers.get(i), i);
+        }
+        return index;
+    }
+
+    private static int requireIndex(Map<String, Integer> headerIndex, String headerName) {
+        Integer idx = headerIndex.get(headerName);
+        if (idx == null) {
+            throw new IllegalStateException("城市库 CSV 缺少列: " + headerName);
+        }
+        return idx;
+    }
+
+    private static float parseCoordinate(String value) {
+        if (value == null) {
+            return Float.NaN;
+        }
+        try {
+            return Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    /**
+     * 一条记录的字段边界；只为实际读取的列截取字符串
+     */
+    private static final class Record {
+
+        private final String text;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        /**
+         * 字段带引号且含有需要还原的双写引号
+         */
+        private boolean[] escaped = new boolean[16];
+        private int size;
+
+        Record(String text) {
+            this.text = text;
+        }
+
+        /**
+         * 切分从 {@code pos} 开始的记录，返回下一条记录的偏移
+         */
+        int parse(int pos) {
+            size = 0;
+            int length = text.length();
+            while (true) {
+                if (size == starts.length) {
+                    starts = Arrays.copyOf(starts, size * 2);
+                    ends = Arrays.copyOf(ends, size * 2);
+                    escaped = Arrays.copyOf(escaped, size * 2);
+                }
+                int end;
+                if (pos < length && text.charAt(pos) == '"') {
+                    boolean doubled = false;
+                    int i = pos + 1;
+                    while (i < length) {
+                        if (text.charAt(i) != '"') {
+                            i++;
+                        } else if (i + 1 < length && text.charAt(i + 1) == '"') {
+                            doubled = true;
+                            i += 2;
+                        } else {
+                            break;
+                        }
+                    }
+                    starts[size] = pos + 1;
+                    ends[size] = i;
+                    escaped[size] = doubled;
+                    // 结束引号与分隔符之间的字符丢弃
+                    end = fieldEnd(Math.min(i + 1, length));
+                } else {
+                    end = fieldEnd(pos);
+                    starts[size] = pos;
+                    ends[size] = end;
+                    escaped[size] = false;
+                }
+                size++;
+                if (end >= length || text.charAt(end) == '\n') {
+                    return end + 1;
+                }
+                pos = end + 1;
+            }
+        }
+
+        /**
+         * 去掉首尾空白（含行尾 '\r'）的字段值，缺失或为空时返回 {@code null}
+         */
+        String get(int idx) {
+            if (idx < 0 || idx >= size) {
+                return null;
+            }
+            int start = starts[idx];
+            int end = ends[idx];
+            while (start < end && text.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                return null;
+            }
+            String value = text.substring(start, end);
+            return escaped[idx] ? value.replace("\"\"", "\"") : value;
+        }
+
+        private int fieldEnd(int from) {
+            int end = from;
+            while (end < text.length() && text.charAt(end) != ',' && text.charAt(end) != '\n') {
+                end++;
+            }
+            return end;
+        }
+    }
+
+    /**
+     * 表头中的列位置；可选列缺失时为 -1
+     */
+    private record Columns(int id, int nameZh, int nameEn, int adm1Zh, int adm2Zh, int latitude, int longitude) {
+
+        static Columns of(Map<String, Integer> headerIndex) {
+            return new Columns(
+                    requireIndex(headerIndex, "Location_ID"),
+                    requireIndex(headerIndex, "Location_Name_ZH"),
+                    headerIndex.getOrDefault("Location_Name_EN", -1),
+                    requireIndex(headerIndex, "Adm1_Name_ZH"),
+                    requireIndex(headerIndex, "Adm2_Name_ZH"),
+                    headerIndex.getOrDefault("Latitude", -1),
+                    headerIndex.getOrDefault("Longitude", -1));
+        }
+
+        /**
+         * 必需列中最大的列号；列数不足的记录跳过
+         */
+        int required() {
+            return Math.max(Math.max(id, nameZh), Math.max(adm1Zh, adm2Zh));
+        }
+    }
+}
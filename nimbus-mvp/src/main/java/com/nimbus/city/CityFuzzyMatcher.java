@@ -0,0 +1,198 @@
+package com.nimbus.city;
+
+import java.util.Arrays;
+
+/**
+ * 城市名容错匹配 - SymSpell 风格的删除字典
+ * <p>
+ * 每个键按删除至多 {@link #maxDistance(int, boolean)} 个字符后的哈希建立索引；查询以同样方式探测自身的删除变体，
+ * 候选再用精确编辑距离确认。每次查询的工作量只取决于查询长度，与键的数量无关。
+ *
+ * @author Nimbus Team
+ */
+public final class CityFuzzyMatcher {
+
+    /**
+     * 接收与查询距离在允许范围内的每个键
+     */
+    @FunctionalInterface
+    public interface Candidates {
+        void accept(int target, int distance, int keyLength);
+    }
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] keys;
+    private final int[] targets;
+    private final LongIntHashMap deleteToList;
+    private final int[][] postings;
+    private final int maxKeyLength;
+
+    /**
+     * @param keys    待匹配的名称：中文名或小写拼音字母
+     * @param targets 每个键对应的调用方序号，回报给 {@link Candidates}
+     */
+    public CityFuzzyMatcher(String[] keys, int[] targets) {
+        this.keys = keys;
+        this.targets = targets;
+        deleteToList = new LongIntHashMap(keys.length * 8);
+        int[][] lists = new int[keys.length * 8][];
+        int[] sizes = new int[lists.length];
+        int next = 0;
+        int longest = 0;
+        for (int id = 0; id < keys.length; id++) {
+            String key = keys[id];
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            longest = Math.max(longest, key.length());
+            int distance = maxDistance(key.length(), isLatin(key, 0, key.length()));
+            for (int a = -1; a < key.length(); a++) {
+                for (int b = distance < 2 || a < 0 ? key.length() : a + 1; b <= key.length(); b++) {
+                    if (distance == 0 && a >= 0) {
+                        break;
+                    }
+                    long hash = hash(key, 0, key.length(), a, b < key.length() ? b : -1);
+                    int list = deleteToList.get(hash);
+                    if (list < 0) {
+                        if (next == lists.length) {
+                            lists = Arrays.copyOf(lists, next * 2);
+                            sizes = Arrays.copyOf(sizes, next * 2);
+                        }
+                        list = next++;
+                        deleteToList.put(hash, list);
+                        lists[list] = new int[2];
+                    }
+                    // 删除两个相邻相同字符中的任一个结果相同，只记录一次
+                    if (sizes[list] == 0 || lists[list][sizes[list] - 1] != id) {
+                        if (sizes[list] == lists[list].length) {
+                            lists[list] = Arrays.copyOf(lists[list], sizes[list] * 2);
+                        }
+                        lists[list][sizes[list]++] = id;
+                    }
+                }
+            }
+        }
+        maxKeyLength = longest;
+        postings = new int[next][];
+        for (int list = 0; list < next; list++) {
+            postings[list] = Arrays.copyOf(lists[list], sizes[list]);
+        }
+    }
+
+    /**
+     * 回报与 {@code text[from, to)} 编辑距离在允许范围内的每个键；同一个键可能被回报多次
+     */
+    public void find(CharSequence text, int from, int to, Candidates out) {
+        find(text, from, to, out, Long.MAX_VALUE);
+    }
+
+    /**
+     * 同 {@link #find(CharSequence, int, int, Candidates)}，超过 {@code deadlineNanos}（{@link System#nanoTime()}）后停止探测
+     */
+    public void find(CharSequence text, int from, int to, Candidates out, long deadlineNanos) {
+        int length = to - from;
+        if (length <= 0 || length > maxKeyLength + 2) {
+            return;
+        }
+        boolean latin = isLatin(text, from, to);
+        int distance = latin && length >= 6 ? 2 : 1;
+        for (int a = from - 1; a < to; a++) {
+            for (int b = distance < 2 || a < from ? to : a + 1; b <= to; b++) {
+                if (System.nanoTime() > deadlineNanos) {
+                    return;
+                }
+                int[] list = postings(hash(text, from, to, a < from ? -1 : a - from, b < to ? b - from : -1));
+                for (int id : list) {
+                    String key = keys[id];
+                    int allowed = Math.min(distance, maxDistance(key.length(), latin));
+                    if (Math.abs(key.length() - length) > allowed) {
+                        continue;
+                    }
+                    int d = distance(text, from, to, key, allowed);
+                    if (d <= allowed) {
+                        out.accept(targets[id], d, key.length());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 键允许的编辑次数：两个字及以上的中文名 1 次；拼音少于 5 个字母不容错（英文单词 "the" 与 "tahe" 只差 1 次），
+     * 5~7 个字母 1 次，8 个及以上 2 次
+     */
+    static int maxDistance(int keyLength, boolean latin) {
+        if (!latin) {
+            return keyLength < 2 ? 0 : 1;
+        }
+        return keyLength < 5 ? 0 : keyLength < 8 ? 1 : 2;
+    }
+
+    static boolean isLatin(CharSequence s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] postings(long hash) {
+        int list = deleteToList.get(hash);
+        return list >= 0 ? postings[list] : NONE;
+    }
+
+    /**
+     * {@code s[from, to)} 跳过相对位置 {@code skipA} 与 {@code skipB} 处字符后的哈希（-1 表示不跳过）
+     */
+    private static long hash(CharSequence s, int from, int to, int skipA, int skipB) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = from; i < to; i++) {
+            int rel = i - from;
+            if (rel == skipA || rel == skipB) {
+                continue;
+            }
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        return h == Long.MIN_VALUE ? 0 : h;
+    }
+
+    /**
+     * OSA 编辑距离（相邻字符交换算一次编辑）；一旦确定超过 {@code limit} 即返回 {@code limit + 1}
+     */
+    private static int distance(CharSequence a, int from, int to, String b, int limit) {
+        int n = to - from;
+        int m = b.length();
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            char ca = a.charAt(from + i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(from + i - 2) == cb) {
+                    v = Math.min(v, prevPrev[j - 2] + 1);
+                }
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] t = prevPrev;
+            prevPrev = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m];
+    }
+}
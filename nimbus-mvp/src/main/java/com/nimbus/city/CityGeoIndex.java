@@ -0,0 +1,147 @@
+package com.nimbus.city;
+
+import java.util.Arrays;
+
+/**
+ * 城市坐标网格索引 - 按经纬度查找最近城市
+ * <p>
+ * 城市以序号引用；网格以有序格子键 + 偏移量 + 序号数组存储。
+ * 查询时从所在格子向外逐圈扫描，直到剩余格子不可能有更近的城市为止。
+ *
+ * @author Nimbus Team
+ */
+public final class CityGeoIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final double CELL_DEGREES = 0.5;
+    private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int LON_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    private final float[] latitudes;
+    private final float[] longitudes;
+    private final int[] cellKeys;
+    private final int[] cellStarts;
+    private final int[] ordinals;
+
+    /**
+     * @param latitudes  各序号城市的纬度，未知为 {@code NaN}
+     * @param longitudes 各序号城市的经度，未知为 {@code NaN}
+     */
+    public CityGeoIndex(float[] latitudes, float[] longitudes) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+
+        int count = 0;
+        long[] keyed = new long[latitudes.length];
+        for (int i = 0; i < latitudes.length; i++) {
+            if (isValid(latitudes[i], longitudes[i])) {
+                keyed[count++] = ((long) cellKey(latCell(latitudes[i]), lonCell(longitudes[i])) << 32) | i;
+            }
+        }
+        keyed = Arrays.copyOf(keyed, count);
+        Arrays.sort(keyed);
+
+        int[] keys = new int[count];
+        int[] starts = new int[count + 1];
+        int[] sorted = new int[count];
+        int cells = 0;
+        for (int i = 0; i < count; i++) {
+            int key = (int) (keyed[i] >>> 32);
+            sorted[i] = (int) keyed[i];
+            if (cells == 0 || keys[cells - 1] != key) {
+                keys[cells] = key;
+                starts[cells] = i;
+                cells++;
+            }
+        }
+        starts[cells] = count;
+        this.cellKeys = Arrays.copyOf(keys, cells);
+        this.cellStarts = Arrays.copyOf(starts, cells + 1);
+        this.ordinals = sorted;
+    }
+
+    public int size() {
+        return ordinals.length;
+    }
+
+    /**
+     * 查找 maxDistanceKm 范围内最近城市的序号，没有则返回 -1
+     */
+    public int findNearest(double lat, double lon, double maxDistanceKm) {
+        if (!isValid(lat, lon) || ordinals.length == 0) {
+            return -1;
+        }
+        int centerLat = latCell(lat);
+        int centerLon = lonCell(lon);
+        int best = -1;
+        double bestKm = maxDistanceKm;
+        int maxRing = Math.max(LAT_CELLS, LON_CELLS / 2);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (ring > 0 && ringLowerBoundKm(lat, ring) > bestKm) {
+                break;
+            }
+            for (int dLat = -ring; dLat <= ring; dLat++) {
+                int latCell = centerLat + dLat;
+                if (latCell < 0 || latCell >= LAT_CELLS) {
+                    continue;
+                }
+                boolean edgeRow = Math.abs(dLat) == ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int dLon = -ring; dLon <= ring; dLon += Math.max(1, step)) {
+                    int cell = Arrays.binarySearch(cellKeys, cellKey(latCell, Math.floorMod(centerLon + dLon, LON_CELLS)));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                        int ordinal = ordinals[i];
+                        double km = distanceKm(lat, lon, latitudes[ordinal], longitudes[ordinal]);
+                        if (km <= bestKm && (best < 0 || km < bestKm || ordinal < best)) {
+                            best = ordinal;
+                            bestKm = km;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 球面距离（公里）
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * 查询点到第 ring 圈及以外格子的最小距离
+     * <p>
+     * 经度一度的距离随纬度升高而变短，因此按该圈能到达的最高纬度估算下界。
+     */
+    private static double ringLowerBoundKm(double lat, int ring) {
+        double degrees = (ring - 1) * CELL_DEGREES;
+        double poleward = Math.min(90, Math.abs(lat) + degrees + CELL_DEGREES);
+        return degrees * KM_PER_DEGREE * Math.cos(Math.toRadians(poleward));
+    }
+
+    private static boolean isValid(double lat, double lon) {
+        return !Double.isNaN(lat) && !Double.isNaN(lon) && lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180;
+    }
+
+    private static int latCell(double lat) {
+        return Math.min(LAT_CELLS - 1, (int) Math.floor((lat + 90) / CELL_DEGREES));
+    }
+
+    private static int lonCell(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / CELL_DEGREES), LON_CELLS);
+    }
+
+    private static int cellKey(int latCell, int lonCell) {
+        return latCell * LON_CELLS + lonCell;
+    }
+}
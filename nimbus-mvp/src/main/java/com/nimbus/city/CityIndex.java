@@ -0,0 +1,303 @@
+package com.nimbus.city;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 城市库索引 - 由一份城市列表派生出的全部查找结构
+ * <p>
+ * 包含按列存储的全部地点 {@link CityStore}（下标即各处使用的地点序号）、每个名称的优选地点、每个名称下的全部同名地点
+ * 和名称匹配器。地点在内部一律以序号传递，交给调用方时再由 {@link CityStore#city(int)} 生成 City。
+ * 由 CSV 行构建或从 {@link CitySnapshot} 恢复，构建后不再修改。
+ *
+ * @author Nimbus Team
+ */
+public final class CityIndex {
+
+    private static final String[] ADMIN_SUFFIXES = {
+            "特别行政区", "自治区", "自治州", "自治县", "地区", "新区", "林区", "省", "市", "区", "县", "盟"
+    };
+
+    private static final String[] ETHNIC_GROUPS = {
+            "柯尔克孜", "哈萨克", "维吾尔", "朝鲜", "傈僳", "土家", "哈尼", "布依", "景颇", "蒙古",
+            "回", "黎", "苗", "彝", "白", "壮", "傣", "藏", "侗", "羌"
+    };
+
+    private final CityStore store;
+    private final String[] matchNames;
+    private final int[] preferred;
+    private final int[] namesakeStart;
+    private final int[] namesakes;
+    private final BitSet cityLevel;
+    private final String[] admQualifiers;
+    private final CityNameMatcher nameMatcher;
+    private final CityNgramIndex ngramIndex;
+    private final CityFuzzyMatcher fuzzyMatcher;
+    private final CityGeoIndex geoIndex;
+
+    private CityIndex(CityStore store, int[] preferred, CityNameMatcher nameMatcher, CityNgramIndex ngramIndex) {
+        this.store = store;
+        this.preferred = preferred;
+        this.matchNames = new String[preferred.length];
+        for (int i = 0; i < preferred.length; i++) {
+            matchNames[i] = store.name(preferred[i]);
+        }
+        this.namesakeStart = new int[matchNames.length + 1];
+        this.namesakes = groupByName(store, matchNames, namesakeStart);
+        this.cityLevel = new BitSet(store.size());
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            cityLevel.set(ordinal, isCityLevel(store.name(ordinal), store.adm2(ordinal)));
+        }
+        this.admQualifiers = new String[store.adms().length];
+        for (int id = 0; id < admQualifiers.length; id++) {
+            admQualifiers[id] = adminQualifier(store.adms()[id]);
+        }
+        this.nameMatcher = nameMatcher != null ? nameMatcher : new CityNameMatcher(matchNames, 2);
+        this.ngramIndex = ngramIndex != null ? ngramIndex : new CityNgramIndex(matchNames);
+        this.fuzzyMatcher = buildFuzzyMatcher(store, matchNames, preferred);
+        this.geoIndex = new CityGeoIndex(store.latitudes(), store.longitudes());
+    }
+
+    public static CityIndex empty() {
+        return build(CityStore.empty());
+    }
+
+    /**
+     * 由 CSV 行构建；同名地点优先保留第一个地级市，否则保留最先出现的
+     */
+    public static CityIndex build(CityStore store) {
+        Map<String, Integer> preferredByName = new HashMap<>();
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            String name = store.name(ordinal);
+            Integer existing = preferredByName.get(name);
+            if (existing == null || (!isCityLevel(store.name(existing), store.adm2(existing))
+                    && isCityLevel(name, store.adm2(ordinal)))) {
+                preferredByName.put(name, ordinal);
+            }
+        }
+        int[] preferred = preferredByName.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .mapToInt(Map.Entry::getValue)
+                .toArray();
+        return new CityIndex(store, preferred, null, null);
+    }
+
+    static CityIndex restore(CityStore store, int[] preferred, CityNameMatcher nameMatcher, CityNgramIndex ngramIndex) {
+        return new CityIndex(store, preferred, nameMatcher, ngramIndex);
+    }
+
+    public CityStore store() {
+        return store;
+    }
+
+    /**
+     * LocationID 对应的地点序号，不存在时返回 -1
+     */
+    public int byLocationId(String locationId) {
+        return store.ordinalOf(locationId);
+    }
+
+    /**
+     * 去重后按字典序排列的名称，即 {@link #nameMatcher()} 与 {@link #ngramIndex()} 使用的序号空间
+     */
+    public String[] matchNames() {
+        return matchNames;
+    }
+
+    /**
+     * {@code name} 在 {@link #matchNames()} 中的序号，没有该名称的地点时返回负数
+     */
+    public int nameOrdinal(String name) {
+        return name != null ? Arrays.binarySearch(matchNames, name) : -1;
+    }
+
+    /**
+     * 名为 {@code matchNames()[nameOrdinal]} 的优选地点序号
+     */
+    public int preferred(int nameOrdinal) {
+        return preferred[nameOrdinal];
+    }
+
+    /**
+     * 名称完全一致的优选地点序号，不存在时返回 -1
+     */
+    public int byName(String name) {
+        int nameOrdinal = nameOrdinal(name);
+        return nameOrdinal >= 0 ? preferred[nameOrdinal] : -1;
+    }
+
+    /**
+     * 名为 {@code matchNames()[nameOrdinal]} 的全部地点序号，按文件顺序（如北京、长春、辽宁的朝阳）
+     */
+    public int[] namesakes(int nameOrdinal) {
+        return Arrays.copyOfRange(namesakes, namesakeStart[nameOrdinal], namesakeStart[nameOrdinal + 1]);
+    }
+
+    /**
+     * 是否为地级市（名称与所属 adm2 去后缀后一致）
+     */
+    public boolean isCityLevel(int ordinal) {
+        return cityLevel.get(ordinal);
+    }
+
+    /**
+     * 地点 adm1 的 {@link #adminQualifier(String)}，每个不同的行政区名只计算一次
+     */
+    public String adm1Qualifier(int ordinal) {
+        int id = store.adm1Id(ordinal);
+        return id >= 0 ? admQualifiers[id] : null;
+    }
+
+    public String adm2Qualifier(int ordinal) {
+        int id = store.adm2Id(ordinal);
+        return id >= 0 ? admQualifiers[id] : null;
+    }
+
+    public CityNameMatcher nameMatcher() {
+        return nameMatcher;
+    }
+
+    public CityNgramIndex ngramIndex() {
+        return ngramIndex;
+    }
+
+    /**
+     * 容错匹配器：覆盖名称及每个名称优选地点的拼音，回报名称序号
+     */
+    public CityFuzzyMatcher fuzzyMatcher() {
+        return fuzzyMatcher;
+    }
+
+    public CityGeoIndex geoIndex() {
+        return geoIndex;
+    }
+
+    /**
+     * {@link #matchNames()} 中每个名称的优选地点序号
+     */
+    int[] preferredOrdinals() {
+        return preferred;
+    }
+
+    private static boolean isCityLevel(String name, String adm2) {
+        String normalizedName = normalizeName(name);
+        String normalizedAdm2 = normalizeName(adm2);
+        return normalizedName != null && normalizedAdm2 != null && normalizedName.equals(normalizedAdm2);
+    }
+
+    /**
+     * 去掉常见行政区划后缀（市/区/县/省 等）
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        if (trimmed.isEmpty()) {
+            return trimmed;
+        }
+
+        String[] suffixes = {"市", "区", "县", "省", "自治州", "地区", "盟", "旗"};
+        for (String suffix : suffixes) {
+            if (trimmed.endsWith(suffix) && trimmed.length() > suffix.length()) {
+                trimmed = trimmed.substring(0, trimmed.length() - suffix.length());
+                break;
+            }
+        }
+        return trimmed;
+    }
+
+    /**
+     * 用户用来限定地点的省/市简称：去掉行政区划后缀及自治地方名中的民族部分
+     * （"内蒙古自治区" -> "内蒙古"、"延边朝鲜族自治州" -> "延边"、"和田地区" -> "和田"）
+     */
+    public static String adminQualifier(String adm) {
+        if (adm == null) {
+            return null;
+        }
+        String qualifier = adm.trim();
+        for (String suffix : ADMIN_SUFFIXES) {
+            if (qualifier.endsWith(suffix) && qualifier.length() > suffix.length()) {
+                qualifier = qualifier.substring(0, qualifier.length() - suffix.length());
+                break;
+            }
+        }
+        int autonomous = qualifier.indexOf("自治");
+        if (autonomous > 0) {
+            qualifier = qualifier.substring(0, autonomous);
+        }
+        // "德宏傣族景颇族"、"海西蒙古族藏族" 含多个民族，从右往左逐个去掉
+        boolean stripped = true;
+        while (stripped) {
+            stripped = false;
+            boolean suffixed = qualifier.endsWith("族");
+            String rest = suffixed ? qualifier.substring(0, qualifier.length() - 1) : qualifier;
+            for (String group : ETHNIC_GROUPS) {
+                // 单字只有后接 "族" 时才视为民族名
+                if ((suffixed || group.length() > 1) && rest.endsWith(group) && rest.length() > group.length() + 1) {
+                    qualifier = rest.substring(0, rest.length() - group.length());
+                    stripped = true;
+                    break;
+                }
+            }
+        }
+        return qualifier;
+    }
+
+    /**
+     * 按查询相同的方式折叠拼音：只保留小写字母（"Xi'an" -> "xian"）
+     */
+    public static String foldPinyin(CharSequence nameEn) {
+        if (nameEn == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(nameEn.length());
+        for (int i = 0; i < nameEn.length(); i++) {
+            char c = nameEn.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                sb.append((char) (c + ('a' - 'A')));
+            } else if (c >= 'a' && c <= 'z') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按名称序号分组的地点序号；第 {@code i} 组为 {@code [start[i], start[i + 1])}
+     */
+    private static int[] groupByName(CityStore store, String[] matchNames, int[] start) {
+        Map<String, Integer> nameOrdinals = new HashMap<>(matchNames.length * 2);
+        for (int i = 0; i < matchNames.length; i++) {
+            nameOrdinals.put(matchNames[i], i);
+        }
+        int[] nameOf = new int[store.size()];
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            nameOf[ordinal] = nameOrdinals.get(store.name(ordinal));
+            start[nameOf[ordinal] + 1]++;
+        }
+        for (int i = 0; i < matchNames.length; i++) {
+            start[i + 1] += start[i];
+        }
+        int[] next = Arrays.copyOf(start, matchNames.length);
+        int[] grouped = new int[store.size()];
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            grouped[next[nameOf[ordinal]]++] = ordinal;
+        }
+        return grouped;
+    }
+
+    private static CityFuzzyMatcher buildFuzzyMatcher(CityStore store, String[] matchNames, int[] preferred) {
+        String[] keys = new String[matchNames.length * 2];
+        int[] targets = new int[keys.length];
+        for (int i = 0; i < matchNames.length; i++) {
+            keys[2 * i] = matchNames[i];
+            keys[2 * i + 1] = foldPinyin(store.nameEn(preferred[i]));
+            targets[2 * i] = i;
+            targets[2 * i + 1] = i;
+        }
+        return new CityFuzzyMatcher(keys, targets);
+    }
+}
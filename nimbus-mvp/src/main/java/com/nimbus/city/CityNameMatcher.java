@@ -0,0 +1,170 @@
+package com.nimbus.city;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 城市名 Aho-Corasick 自动机
+ * <p>
+ * 一次扫描文本即可找出其中出现的最长城市名，长度相同时取最先出现的；{@link #forEachMention} 可列出全部出现的城市名。
+ * 城市名以序号引用。
+ *
+ * @author Nimbus Team
+ */
+public final class CityNameMatcher {
+
+    /**
+     * 接收文本中出现的每个城市名及其结束位置（最后一个字符之后的下标）
+     */
+    @FunctionalInterface
+    public interface Mentions {
+        void accept(int ordinal, int end);
+    }
+
+    private final LongIntHashMap transitions;
+    private final int[] fail;
+    private final int[] longest;
+    private final int[] patternLengths;
+
+    /**
+     * @param names     各序号对应的城市名，{@code null} 跳过
+     * @param minLength 短于该长度的名称不参与匹配
+     */
+    public CityNameMatcher(String[] names, int minLength) {
+        int totalChars = 0;
+        for (String name : names) {
+            totalChars += name != null ? name.length() : 0;
+        }
+        transitions = new LongIntHashMap(totalChars);
+        int[] terminal = new int[totalChars + 1];
+        int[] depth = new int[totalChars + 1];
+        int[] parent = new int[totalChars + 1];
+        char[] label = new char[totalChars + 1];
+        Arrays.fill(terminal, -1);
+        patternLengths = new int[names.length];
+
+        int nodes = 1;
+        int maxDepth = 0;
+        for (int ordinal = 0; ordinal < names.length; ordinal++) {
+            String name = names[ordinal];
+            if (name == null || name.length() < minLength) {
+                continue;
+            }
+            patternLengths[ordinal] = name.length();
+            maxDepth = Math.max(maxDepth, name.length());
+            int state = 0;
+            for (int i = 0; i < name.length(); i++) {
+                long key = edge(state, name.charAt(i));
+                int next = transitions.get(key);
+                if (next < 0) {
+                    next = nodes++;
+                    depth[next] = i + 1;
+                    parent[next] = state;
+                    label[next] = name.charAt(i);
+                    transitions.put(key, next);
+                }
+                state = next;
+            }
+            if (terminal[state] < 0) {
+                terminal[state] = ordinal;
+            }
+        }
+
+        // 失败指针需先算父节点，按深度（广度优先）顺序处理
+        int[] depthStart = new int[maxDepth + 2];
+        for (int node = 1; node < nodes; node++) {
+            depthStart[depth[node] + 1]++;
+        }
+        for (int d = 1; d < depthStart.length; d++) {
+            depthStart[d] += depthStart[d - 1];
+        }
+        int[] order = new int[nodes - 1];
+        for (int node = 1; node < nodes; node++) {
+            order[depthStart[depth[node]]++] = node;
+        }
+
+        fail = new int[nodes];
+        longest = new int[nodes];
+        longest[0] = -1;
+        for (int node : order) {
+            int f = parent[node] == 0 ? -1 : fail[parent[node]];
+            int target = -1;
+            while (f >= 0 && (target = transitions.get(edge(f, label[node]))) < 0) {
+                f = f == 0 ? -1 : fail[f];
+            }
+            fail[node] = Math.max(target, 0);
+            longest[node] = terminal[node] >= 0 ? terminal[node] : longest[fail[node]];
+        }
+    }
+
+    private CityNameMatcher(LongIntHashMap transitions, int[] fail, int[] longest, int[] patternLengths) {
+        this.transitions = transitions;
+        this.fail = fail;
+        this.longest = longest;
+        this.patternLengths = patternLengths;
+    }
+
+    /**
+     * 返回文本中最长城市名的序号（同长取最先出现），没有返回 -1
+     */
+    public int findLongest(CharSequence text) {
+        int state = 0;
+        int best = -1;
+        int bestLength = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transitions.get(edge(state, c))) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            int match = longest[state];
+            if (match >= 0 && patternLengths[match] > bestLength) {
+                best = match;
+                bestLength = patternLengths[match];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 列出文本中出现的全部城市名（包括相互重叠的），按结束位置先后回报，结束位置相同时长的在前
+     */
+    public void forEachMention(CharSequence text, Mentions out) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = transitions.get(edge(state, c))) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(next, 0);
+            // 自身不是名称结尾的状态继承失败状态的结果，相同的只回报一次
+            int last = -1;
+            for (int s = state; s > 0 && longest[s] >= 0; s = fail[s]) {
+                if (longest[s] != last) {
+                    last = longest[s];
+                    out.accept(last, i + 1);
+                }
+            }
+        }
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        transitions.writeTo(out);
+        CitySnapshot.writeInts(out, fail);
+        CitySnapshot.writeInts(out, longest);
+        CitySnapshot.writeInts(out, patternLengths);
+    }
+
+    static CityNameMatcher readFrom(ByteBuffer in) {
+        return new CityNameMatcher(LongIntHashMap.readFrom(in),
+                CitySnapshot.readInts(in), CitySnapshot.readInts(in), CitySnapshot.readInts(in));
+    }
+
+    private static long edge(int state, char c) {
+        return ((long) state << 16) | c;
+    }
+}
@@ -0,0 +1,161 @@
+package com.nimbus.city;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * 城市库二进制快照 - {@link CityIndex} 的序列化形式
+ * <p>
+ * 构建时由 {@link CitySnapshotCompiler} 生成，启动时直接读取，省去 CSV 解析和匹配器构建。
+ * 布局（大端）：魔数、版本、源 CSV 的 CRC32、{@link CityStore} 各列（数字 ID、非数字 ID、名称、英文名、行政区字典、
+ * adm1/adm2 编号、坐标）、每个名称的优选地点序号，之后是 Aho-Corasick 与 n-gram 的原始数组。
+ * 坐标网格重建开销很小，不写入快照。
+ *
+ * @author Nimbus Team
+ */
+public final class CitySnapshot {
+
+    private static final int MAGIC = 0x4E43534E; // "NCSN"
+    private static final int VERSION = 4;
+
+    private CitySnapshot() {}
+
+    public static long checksum(ByteBuffer csv) {
+        CRC32 crc = new CRC32();
+        crc.update(csv.duplicate());
+        return crc.getValue();
+    }
+
+    public static void write(CityIndex index, long csvChecksum, OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(csvChecksum);
+
+        CityStore store = index.store();
+        writeInts(out, store.rawIds());
+        writeStrings(out, store.otherIds());
+        writeStrings(out, store.names());
+        writeStrings(out, store.namesEn());
+        writeStrings(out, store.adms());
+        writeInts(out, store.adm1Ids());
+        writeInts(out, store.adm2Ids());
+        writeFloats(out, store.latitudes());
+        writeFloats(out, store.longitudes());
+        writeInts(out, index.preferredOrdinals());
+        index.nameMatcher().writeTo(out);
+        index.ngramIndex().writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * 读取快照中的索引；快照来自其他 CSV 或版本不兼容时返回 {@code null}，内容损坏时抛出运行时异常
+     */
+    public static CityIndex read(ByteBuffer in, long csvChecksum) {
+        if (in.remaining() < 16 || in.getInt() != MAGIC || in.getInt() != VERSION || in.getLong() != csvChecksum) {
+            return null;
+        }
+
+        int[] ids = readInts(in);
+        String[] otherIds = readStrings(in);
+        String[] names = readStrings(in);
+        String[] namesEn = readStrings(in);
+        String[] adms = readStrings(in);
+        int[] adm1 = readInts(in);
+        int[] adm2 = readInts(in);
+        float[] latitudes = readFloats(in);
+        float[] longitudes = readFloats(in);
+        if (names.length != ids.length || namesEn.length != ids.length || adm1.length != ids.length
+                || adm2.length != ids.length || latitudes.length != ids.length || longitudes.length != ids.length) {
+            throw new IllegalStateException("malformed city columns");
+        }
+        CityStore store = new CityStore(ids.length, ids, otherIds, names, namesEn, adm1, adm2, adms,
+                latitudes, longitudes);
+
+        int[] preferred = readInts(in);
+        String[] matchNames = new String[preferred.length];
+        for (int i = 0; i < preferred.length; i++) {
+            matchNames[i] = names[preferred[i]];
+        }
+        CityNameMatcher nameMatcher = CityNameMatcher.readFrom(in);
+        CityNgramIndex ngramIndex = CityNgramIndex.readFrom(in, matchNames);
+        return CityIndex.restore(store, preferred, nameMatcher, ngramIndex);
+    }
+
+    static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int v : values) {
+            out.writeInt(v);
+        }
+    }
+
+    static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        out.writeInt(values.length);
+        for (long v : values) {
+            out.writeLong(v);
+        }
+    }
+
+    static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[in.getInt()];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    /**
+     * UTF-8 字符串，每个前缀其字节长度；长度 -1 表示 {@code null}
+     */
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            if (value == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String[] readStrings(ByteBuffer in) {
+        String[] values = new String[in.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            int length = in.getInt();
+            if (length < 0) {
+                continue;
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeInt(values.length);
+        for (float v : values) {
+            out.writeFloat(v);
+        }
+    }
+
+    private static float[] readFloats(ByteBuffer in) {
+        float[] values = new float[in.getInt()];
+        in.asFloatBuffer().get(values);
+        in.position(in.position() + values.length * Float.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,336 @@
+package com.nimbus.city;
+
+import com.nimbus.model.City;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 城市库列存储 - 每个字段一列，按地点序号（文件顺序）下标访问
+ * <p>
+ * LocationID 存为 int，adm1/adm2 存为同一份驻留字典中的编号，坐标存为 float；按 LocationID 查找走原始类型哈希表。
+ * 这里不持有 {@link City}：结果离开城市库时才由 {@link #city(int)} 生成。
+ *
+ * @author Nimbus Team
+ */
+public final class CityStore {
+
+    private final int size;
+    /**
+     * 数字 LocationID；不是普通十进制整数的 ID 存为 {@code -1 - k}，对应 {@code otherIds[k]}
+     */
+    private final int[] ids;
+    private final String[] otherIds;
+    private final String[] names;
+    private final String[] namesEn;
+    private final int[] adm1;
+    private final int[] adm2;
+    private final String[] adms;
+    private final float[] latitudes;
+    private final float[] longitudes;
+    private final LongIntHashMap byId;
+    private final Map<String, Integer> byOtherId;
+
+    CityStore(int size, int[] ids, String[] otherIds, String[] names, String[] namesEn,
+              int[] adm1, int[] adm2, String[] adms, float[] latitudes, float[] longitudes) {
+        this.size = size;
+        this.ids = ids;
+        this.otherIds = otherIds;
+        this.names = names;
+        this.namesEn = namesEn;
+        this.adm1 = adm1;
+        this.adm2 = adm2;
+        this.adms = adms;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.byId = new LongIntHashMap(size);
+        this.byOtherId = new HashMap<>();
+        // 同一 ID 以文件中最先出现的地点为准
+        for (int i = size - 1; i >= 0; i--) {
+            if (ids[i] >= 0) {
+                byId.put(ids[i], i);
+            } else {
+                byOtherId.put(otherIds[-1 - ids[i]], i);
+            }
+        }
+    }
+
+    public static CityStore empty() {
+        return new Builder(0).build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * LocationID 对应的地点序号，不存在时返回 -1
+     */
+    public int ordinalOf(String locationId) {
+        if (locationId == null) {
+            return -1;
+        }
+        int id = parseId(locationId);
+        if (id >= 0) {
+            return byId.get(id);
+        }
+        Integer ordinal = byOtherId.get(locationId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public String locationId(int ordinal) {
+        int id = ids[ordinal];
+        return id >= 0 ? Integer.toString(id) : otherIds[-1 - id];
+    }
+
+    public String name(int ordinal) {
+        return names[ordinal];
+    }
+
+    public String nameEn(int ordinal) {
+        return namesEn[ordinal];
+    }
+
+    public String adm1(int ordinal) {
+        return adm(adm1[ordinal]);
+    }
+
+    public String adm2(int ordinal) {
+        return adm(adm2[ordinal]);
+    }
+
+    /**
+     * 地点 adm1 名称在字典中的编号，没有时为 -1；与 {@link #adm2Id(int)} 共用同一字典
+     */
+    public int adm1Id(int ordinal) {
+        return adm1[ordinal];
+    }
+
+    public int adm2Id(int ordinal) {
+        return adm2[ordinal];
+    }
+
+    /**
+     * 去重后的 adm1/adm2 名称，按字典编号下标访问
+     */
+    public String[] adms() {
+        return adms;
+    }
+
+    public float latitude(int ordinal) {
+        return latitudes[ordinal];
+    }
+
+    public float longitude(int ordinal) {
+        return longitudes[ordinal];
+    }
+
+    /**
+     * 为该地点新建一个 {@link City}；坐标与 CSV 一样保留四位小数
+     */
+    public City city(int ordinal) {
+        return City.builder()
+                .locationId(locationId(ordinal))
+                .name(names[ordinal])
+                .nameEn(namesEn[ordinal])
+                .adm1(adm1(ordinal))
+                .adm2(adm2(ordinal))
+                .latitude(coordinate(latitudes[ordinal]))
+                .longitude(coordinate(longitudes[ordinal]))
+                .build();
+    }
+
+    float[] latitudes() {
+        return latitudes;
+    }
+
+    float[] longitudes() {
+        return longitudes;
+    }
+
+    int[] rawIds() {
+        return ids;
+    }
+
+    String[] otherIds() {
+        return otherIds;
+    }
+
+    String[] names() {
+        return names;
+    }
+
+    String[] namesEn() {
+        return namesEn;
+    }
+
+    int[] adm1Ids() {
+        return adm1;
+    }
+
+    int[] adm2Ids() {
+        return adm2;
+    }
+
+    private String adm(int id) {
+        return id >= 0 ? adms[id] : null;
+    }
+
+    private static String coordinate(float value) {
+        if (Float.isNaN(value)) {
+            return null;
+        }
+        long scaled = Math.round(value * 10000d);
+        StringBuilder sb = new StringBuilder(12);
+        if (scaled < 0) {
+            sb.append('-');
+            scaled = -scaled;
+        }
+        sb.append(scaled / 10000).append('.');
+        String fraction = Long.toString(scaled % 10000);
+        for (int i = fraction.length(); i < 4; i++) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+
+    /**
+     * ID 为不带前导零的非负整数时（可原样打印回去）返回该整数，否则返回 -1
+     */
+    static int parseId(String locationId) {
+        int length = locationId.length();
+        if (length == 0 || length > 10 || (length > 1 && locationId.charAt(0) == '0')) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = locationId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? (int) value : -1;
+    }
+
+    /**
+     * 按文件顺序追加地点；非线程安全
+     */
+    public static final class Builder {
+
+        private int size;
+        private int[] ids;
+        private String[] names;
+        private String[] namesEn;
+        private int[] adm1;
+        private int[] adm2;
+        private float[] latitudes;
+        private float[] longitudes;
+        private final Map<String, Integer> admIds = new HashMap<>();
+        private final Map<String, Integer> otherIdIds = new HashMap<>();
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            ids = new int[capacity];
+            names = new String[capacity];
+            namesEn = new String[capacity];
+            adm1 = new int[capacity];
+            adm2 = new int[capacity];
+            latitudes = new float[capacity];
+            longitudes = new float[capacity];
+        }
+
+        /**
+         * @param latitude  未知时为 {@code NaN}
+         * @param longitude 未知时为 {@code NaN}
+         */
+        public Builder add(String locationId, String name, String nameEn, String adm1Name, String adm2Name,
+                           float latitude, float longitude) {
+            if (size == ids.length) {
+                grow(size + 1);
+            }
+            int id = parseId(locationId);
+            if (id < 0) {
+                id = -1 - intern(locationId, otherIdIds);
+            }
+            ids[size] = id;
+            names[size] = name;
+            namesEn[size] = nameEn;
+            adm1[size] = adm1Name != null ? intern(adm1Name, admIds) : -1;
+            adm2[size] = adm2Name != null ? intern(adm2Name, admIds) : -1;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            size++;
+            return this;
+        }
+
+        /**
+         * 追加 {@code other} 中的全部地点，结果与逐行加入相同
+         */
+        public Builder append(Builder other) {
+            if (size + other.size > ids.length) {
+                grow(size + other.size);
+            }
+            int[] admMap = merge(other.admIds, admIds);
+            int[] otherIdMap = merge(other.otherIdIds, otherIdIds);
+            for (int i = 0; i < other.size; i++) {
+                int id = other.ids[i];
+                ids[size + i] = id >= 0 ? id : -1 - otherIdMap[-1 - id];
+                adm1[size + i] = other.adm1[i] >= 0 ? admMap[other.adm1[i]] : -1;
+                adm2[size + i] = other.adm2[i] >= 0 ? admMap[other.adm2[i]] : -1;
+            }
+            System.arraycopy(other.names, 0, names, size, other.size);
+            System.arraycopy(other.namesEn, 0, namesEn, size, other.size);
+            System.arraycopy(other.latitudes, 0, latitudes, size, other.size);
+            System.arraycopy(other.longitudes, 0, longitudes, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        public CityStore build() {
+            return new CityStore(size, Arrays.copyOf(ids, size), dictionary(otherIdIds),
+                    Arrays.copyOf(names, size), Arrays.copyOf(namesEn, size),
+                    Arrays.copyOf(adm1, size), Arrays.copyOf(adm2, size), dictionary(admIds),
+                    Arrays.copyOf(latitudes, size), Arrays.copyOf(longitudes, size));
+        }
+
+        private void grow(int minCapacity) {
+            int capacity = Math.max(ids.length * 2, minCapacity);
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            namesEn = Arrays.copyOf(namesEn, capacity);
+            adm1 = Arrays.copyOf(adm1, capacity);
+            adm2 = Arrays.copyOf(adm2, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+        }
+
+        private static int intern(String value, Map<String, Integer> ids) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.size();
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        /**
+         * 按编号顺序把 {@code from} 的条目驻留到 {@code into}，使编号与顺序构建时一致；返回旧编号到新编号的映射
+         */
+        private static int[] merge(Map<String, Integer> from, Map<String, Integer> into) {
+            String[] values = dictionary(from);
+            int[] mapped = new int[values.length];
+            for (int id = 0; id < values.length; id++) {
+                mapped[id] = intern(values[id], into);
+            }
+            return mapped;
+        }
+
+        private static String[] dictionary(Map<String, Integer> ids) {
+            String[] values = new String[ids.size()];
+            ids.forEach((value, id) -> values[id] = value);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.nimbus.city;
+
+import com.nimbus.model.City;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 城市输入联想前缀树 - 覆盖中文名、英文名和拼音首字母
+ * <p>
+ * 每个节点预存排名最前的 {@code maxResults} 个地点，查询时每输入一个字符只需一次边查找，
+ * 最后复制节点列表即可，无需排序或收集。
+ *
+ * @author Nimbus Team
+ */
+public final class CitySuggestIndex {
+
+    private final CityStore store;
+    private final LongIntHashMap children;
+    private final int[] topStart;
+    private final int[] top;
+    private final int maxResults;
+
+    /**
+     * @param order      按排名从高到低的地点序号；未列出的地点不参与联想
+     * @param maxResults 每个前缀保留的候选数
+     */
+    public CitySuggestIndex(CityStore store, int[] order, int maxResults) {
+        this.store = store;
+        this.maxResults = maxResults;
+
+        List<String[]> keys = new ArrayList<>(store.size());
+        int totalChars = 0;
+        for (int ordinal = 0; ordinal < store.size(); ordinal++) {
+            String[] cityKeys = {
+                    store.name(ordinal),
+                    letters(store.nameEn(ordinal)),
+                    PinyinInitials.forName(store.name(ordinal), store.nameEn(ordinal))
+            };
+            for (String key : cityKeys) {
+                totalChars += key != null ? key.length() : 0;
+            }
+            keys.add(cityKeys);
+        }
+
+        children = new LongIntHashMap(totalChars);
+        int[] counts = new int[totalChars + 1];
+        int[] lists = new int[(totalChars + 1) * maxResults];
+        int nodes = 1;
+        // 按排名顺序插入：每个节点保留最先到达的 maxResults 个地点
+        for (int ordinal : order) {
+            for (String key : keys.get(ordinal)) {
+                if (key == null || key.isEmpty()) {
+                    continue;
+                }
+                int node = 0;
+                for (int i = 0; i < key.length(); i++) {
+                    long edge = edge(node, fold(key.charAt(i)));
+                    int next = children.get(edge);
+                    if (next < 0) {
+                        next = nodes++;
+                        children.put(edge, next);
+                    }
+                    node = next;
+                    // 同一地点的多个键可能共享前缀（"xian"、"xa"），只记录一次
+                    int count = counts[node];
+                    if (count < maxResults && (count == 0 || lists[node * maxResults + count - 1] != ordinal)) {
+                        lists[node * maxResults + count] = ordinal;
+                        counts[node] = count + 1;
+                    }
+                }
+            }
+        }
+
+        topStart = new int[nodes + 1];
+        for (int node = 0; node < nodes; node++) {
+            topStart[node + 1] = topStart[node] + counts[node];
+        }
+        top = new int[topStart[nodes]];
+        for (int node = 0; node < nodes; node++) {
+            System.arraycopy(lists, node * maxResults, top, topStart[node], counts[node]);
+        }
+    }
+
+    /**
+     * 返回中文名、英文名或拼音首字母以 {@code query} 开头的地点，最多 {@code limit} 个；忽略大小写、空格和撇号
+     */
+    public List<City> suggest(CharSequence query, int limit) {
+        int node = -1;
+        for (int i = 0; query != null && i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == ' ' || c == '\'') {
+                continue;
+            }
+            node = children.get(edge(Math.max(node, 0), fold(c)));
+            if (node < 0) {
+                return List.of();
+            }
+        }
+        if (node < 0) {
+            return List.of();
+        }
+        int from = topStart[node];
+        int to = Math.min(topStart[node + 1], from + Math.min(limit, maxResults));
+        List<City> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            result.add(store.city(top[i]));
+        }
+        return result;
+    }
+
+    private static String letters(String nameEn) {
+        if (nameEn == null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(nameEn.length());
+        for (int i = 0; i < nameEn.length(); i++) {
+            char c = nameEn.charAt(i);
+            if (c != ' ' && c != '\'') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static long edge(int node, char c) {
+        return ((long) node << 16) | c;
+    }
+}
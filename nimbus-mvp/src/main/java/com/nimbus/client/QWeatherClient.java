@@ -8,6 +8,11 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * 和风天气 API 客户端
  *
@@ -19,11 +24,27 @@ public class QWeatherClient {
 
     private final WebClient webClient;
     private final String apiKey;
+    private final UpstreamGuard upstreamGuard;
+    private final QuotaRateLimiter quotaRateLimiter;
+    private final Duration maxStale;
+    private final Duration lowQuotaTtl;
+    private final SingleFlight<ForecastKey, WeatherResponse> inFlight = new SingleFlight<>();
+
+    /** 每个城市最近一次成功的预报，上游不可用时兜底返回 */
+    private final ConcurrentHashMap<String, LastKnownGood> lastKnownGood = new ConcurrentHashMap<>();
 
     public QWeatherClient(WebClient weatherWebClient,
-                          @Value("${nimbus.weather.api-key}") String apiKey) {
+                          @Value("${nimbus.weather.api-key}") String apiKey,
+                          @Value("${nimbus.weather.guard.max-stale:PT24H}") Duration maxStale,
+                          @Value("${nimbus.weather.quota.low-quota-ttl:PT30M}") Duration lowQuotaTtl,
+                          UpstreamGuard upstreamGuard,
+                          QuotaRateLimiter quotaRateLimiter) {
         this.webClient = weatherWebClient;
         this.apiKey = apiKey;
+        this.maxStale = maxStale;
+        this.lowQuotaTtl = lowQuotaTtl;
+        this.upstreamGuard = upstreamGuard;
+        this.quotaRateLimiter = quotaRateLimiter;
     }
 
     /**
@@ -36,16 +57,7 @@ public class QWeatherClient {
         log.debug("查询城市 {} 的7天天气预报", locationId);
 
         try {
-            return webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/v7/weather/7d")
-                            .queryParam("location", locationId)
-                            .queryParam("key", apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(WeatherResponse.class)
-                    .doOnNext(response -> log.debug("收到响应: code={}", response.getCode()))
-                    .block();
+            return get7DayForecastAsync(locationId).block();
         } catch (WebClientResponseException e) {
             log.error("和风 API 调用失败: status={}, body={}",
                     e.getStatusCode(), e.getResponseBodyAsString(), e);
@@ -57,17 +69,84 @@ public class QWeatherClient {
     }
 
     /**
-     * 异步获取 7 天天气预报
+     * 异步获取 7 天天气预报（同一城市的并发请求合并为一次上游调用）
+     * <p>
+     * 上游熔断/超时/失败时，若有最近一次成功数据则返回该数据并标记 stale。
      *
      * @param locationId 城市 LocationID
      * @return Mono<天气预报数据>
      */
     public Mono<WeatherResponse> get7DayForecastAsync(String locationId) {
+        return get7DayForecastAsync(locationId, QuotaRateLimiter.Lane.INTERACTIVE);
+    }
+
+    /**
+     * 按指定配额通道异步获取 7 天天气预报
+     * <p>
+     * 配额低于低水位时，{@code low-quota-ttl} 内的最近一次成功数据直接作为缓存返回，不再调用上游。
+     *
+     * @param locationId 城市 LocationID
+     * @param lane       配额通道（交互 / 后台）
+     * @return Mono<天气预报数据>
+     */
+    public Mono<WeatherResponse> get7DayForecastAsync(String locationId, QuotaRateLimiter.Lane lane) {
         log.debug("异步查询城市 {} 的7天天气预报", locationId);
 
+        return Mono.defer(() -> {
+            if (quotaRateLimiter.isLow()) {
+                Optional<WeatherResponse> cached = findLastKnownGood(locationId, lowQuotaTtl, false);
+                if (cached.isPresent()) {
+                    log.debug("配额紧张，使用缓存数据: locationId={}", locationId);
+                    return Mono.just(cached.get());
+                }
+            }
+            return inFlight.execute(new ForecastKey(locationId, 7, lane),
+                            () -> upstreamGuard.protect(() -> quotaRateLimiter.tryAcquire(lane)
+                                    ? fetchForecast(locationId, 7)
+                                    : Mono.error(new UpstreamGuard.UpstreamUnavailableException("天气查询配额不足，请稍后重试"))))
+                    .doOnNext(response -> rememberLastKnownGood(locationId, response))
+                    .onErrorResume(e -> findLastKnownGood(locationId, maxStale, true)
+                            .map(response -> {
+                                log.warn("天气服务不可用，返回最近一次成功数据: locationId={}, error={}", locationId, e.getMessage());
+                                return Mono.just(response);
+                            })
+                            .orElseGet(() -> Mono.error(e)));
+        });
+    }
+
+    private void rememberLastKnownGood(String locationId, WeatherResponse response) {
+        if (response != null && response.isSuccess()) {
+            lastKnownGood.put(locationId, new LastKnownGood(response, Instant.now()));
+        }
+    }
+
+    private Optional<WeatherResponse> findLastKnownGood(String locationId, Duration maxAge, boolean stale) {
+        LastKnownGood entry = lastKnownGood.get(locationId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.fetchedAt().plus(maxStale).isBefore(Instant.now())) {
+            lastKnownGood.remove(locationId, entry);
+            return Optional.empty();
+        }
+        if (entry.fetchedAt().plus(maxAge).isBefore(Instant.now())) {
+            return Optional.empty();
+        }
+        WeatherResponse source = entry.response();
+        WeatherResponse copy = new WeatherResponse();
+        copy.setCode(source.getCode());
+        copy.setUpdateTime(source.getUpdateTime());
+        copy.setFxLink(source.getFxLink());
+        copy.setDaily(source.getDaily());
+        copy.setRefer(source.getRefer());
+        copy.setStale(stale);
+        return Optional.of(copy);
+    }
+
+    private Mono<WeatherResponse> fetchForecast(String locationId, int days) {
         return webClient.get()
                 .uri(uriBuilder -> uriBuilder
-                        .path("/v7/weather/7d")
+                        .path("/v7/weather/" + days + "d")
                         .queryParam("location", locationId)
                         .queryParam("key", apiKey)
                         .build())
@@ -76,4 +155,11 @@ public class QWeatherClient {
                 .doOnNext(response -> log.debug("收到响应: code={}", response.getCode()))
                 .doOnError(e -> log.error("查询天气异常", e));
     }
+
+    /**
+     * 通道也是键的一部分：配额在共享调用内扣减，跨通道合并会让调用方继承另一通道的"配额不足"
+     */
+    private record ForecastKey(String locationId, int days, QuotaRateLimiter.Lane lane) {}
+
+    private record LastKnownGood(WeatherResponse response, Instant fetchedAt) {}
 }
@@ -0,0 +1,115 @@
+package com.nimbus.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 和风 API 每分钟配额的客户端令牌桶（分优先级通道）
+ * <p>
+ * 交互请求（天气查询、对话）可以用尽令牌；后台请求（批量查询）必须保留 {@code background-reserve} 比例的容量。
+ * 配额为 0 表示不限流。
+ *
+ * @author Nimbus Team
+ */
+@Slf4j
+@Component
+public class QuotaRateLimiter {
+
+    public enum Lane { INTERACTIVE, BACKGROUND }
+
+    private int perMinute;
+    private double backgroundReserve = 0.3;
+    private double lowWatermark = 0.2;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    private final LongAdder interactiveGranted = new LongAdder();
+    private final LongAdder interactiveRejected = new LongAdder();
+    private final LongAdder backgroundGranted = new LongAdder();
+    private final LongAdder backgroundRejected = new LongAdder();
+
+    @Value("${nimbus.weather.quota.per-minute:0}")
+    public synchronized void setPerMinute(int perMinute) {
+        this.perMinute = Math.max(0, perMinute);
+        this.tokens = this.perMinute;
+    }
+
+    @Value("${nimbus.weather.quota.background-reserve:0.3}")
+    public void setBackgroundReserve(double backgroundReserve) {
+        this.backgroundReserve = Math.max(0, Math.min(1, backgroundReserve));
+    }
+
+    @Value("${nimbus.weather.quota.low-watermark:0.2}")
+    public void setLowWatermark(double lowWatermark) {
+        this.lowWatermark = Math.max(0, Math.min(1, lowWatermark));
+    }
+
+    public boolean tryAcquire(Lane lane) {
+        boolean granted = tryTake(lane);
+        if (lane == Lane.INTERACTIVE) {
+            (granted ? interactiveGranted : interactiveRejected).increment();
+        } else {
+            (granted ? backgroundGranted : backgroundRejected).increment();
+        }
+        if (!granted) {
+            log.debug("和风配额不足，拒绝 {} 请求", lane);
+        }
+        return granted;
+    }
+
+    /**
+     * 剩余配额是否低于低水位（此时应延长缓存有效期）
+     */
+    public synchronized boolean isLow() {
+        if (perMinute == 0) {
+            return false;
+        }
+        refill();
+        return tokens < perMinute * lowWatermark;
+    }
+
+    public synchronized QuotaStats stats() {
+        if (perMinute > 0) {
+            refill();
+        }
+        return new QuotaStats(perMinute,
+                perMinute == 0 ? -1 : (int) tokens,
+                perMinute > 0 && tokens < perMinute * lowWatermark,
+                interactiveGranted.sum(),
+                interactiveRejected.sum(),
+                backgroundGranted.sum(),
+                backgroundRejected.sum());
+    }
+
+    private synchronized boolean tryTake(Lane lane) {
+        if (perMinute == 0) {
+            return true;
+        }
+        refill();
+        double floor = lane == Lane.BACKGROUND ? perMinute * backgroundReserve : 0;
+        if (tokens - 1 < floor) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double refilled = (now - lastRefillNanos) / 60_000_000_000.0 * perMinute;
+        tokens = Math.min(perMinute, tokens + refilled);
+        lastRefillNanos = now;
+    }
+
+    public record QuotaStats(int perMinute,
+                             int remaining,
+                             boolean low,
+                             long interactiveGranted,
+                             long interactiveRejected,
+                             long backgroundGranted,
+                             long backgroundRejected) {}
+}
@@ -0,0 +1,33 @@
+package com.nimbus.client;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 请求合并（single-flight）：同一 key 的并发调用共享同一个进行中的 {@link Mono}
+ * <p>
+ * 所有订阅者拿到同一份结果或异常；只有全部订阅者都取消时才取消上游调用。
+ * 调用结束后立即释放 key，后续请求重新发起。
+ *
+ * @author Nimbus Team
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> start(k, call)));
+    }
+
+    private Mono<V> start(K key, Supplier<Mono<V>> call) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        Mono<V> shared = Mono.defer(call)
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                .share();
+        self.set(shared);
+        return shared;
+    }
+}
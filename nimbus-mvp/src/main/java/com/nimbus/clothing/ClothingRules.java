@@ -0,0 +1,64 @@
+package com.nimbus.clothing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbus.model.ClothingAdvice;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 穿衣建议规则 - 规则文件（YAML，或作为其子集的 JSON）的内容
+ * <p>
+ * 规则按文件顺序生效：条件全部满足的规则用 {@code set} 中非空的字段覆盖结果，后面的规则逐字段覆盖前面的。
+ * 字段文字中的 {@code {text}} 替换为当天天气文字。
+ *
+ * @author Nimbus Team
+ */
+public record ClothingRules(List<Rule> rules) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public ClothingRules {
+        rules = rules != null ? List.copyOf(rules) : List.of();
+    }
+
+    /**
+     * 解析规则文件；未知的键直接报错，避免条件名写错后变成匹配所有天气
+     */
+    public static ClothingRules parse(InputStream in) {
+        Object tree = new Yaml(new SafeConstructor(new LoaderOptions())).load(in);
+        if (tree == null) {
+            return new ClothingRules(List.of());
+        }
+        try {
+            return MAPPER.convertValue(tree, ClothingRules.class);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("malformed clothing rules: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param when 需要全部满足的条件；未填写的条件视为满足
+     */
+    public record Rule(String name, Condition when, ClothingAdvice set) {}
+
+    /**
+     * @param temp      平均气温（最高/最低温的平均值）
+     * @param windScale 白天风力等级，"3-4" 这样的范围取上限
+     * @param text      关键词，白天天气文字包含其中任一即满足
+     */
+    public record Condition(Range temp, Range windScale, Range humidity, Range uvIndex, List<String> text) {}
+
+    /**
+     * {@code min <= value < below}，两端均可省略
+     */
+    public record Range(Integer min, Integer below) {
+
+        boolean contains(int value) {
+            return (min == null || value >= min) && (below == null || value < below);
+        }
+    }
+}
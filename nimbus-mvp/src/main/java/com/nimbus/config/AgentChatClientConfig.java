@@ -19,6 +19,10 @@ public class AgentChatClientConfig {
                         You can call tools to get structured data. Use tools when needed.
                         Respond in Chinese. Be concise and actionable.
                         If the city is missing, ask a short follow-up question to confirm the city.
+                        If extract_city returns several matches with close confidence (places sharing a name), pick one
+                        from context; if still unsure, ask the user, listing adm1/adm2 to tell them apart.
+                        If extract_city returns found=false with matches, the name is probably misspelled: ask the user
+                        to confirm one of the matches before calling get_weather_today.
                         If a tool call fails, you will see a message like: [TOOL_ERROR toolName] reason.
                         In that case, do not give up immediately: ask for missing info or retry with corrected parameters.
                         You must output a single JSON object only (no extra text).
@@ -0,0 +1,51 @@
+package com.nimbus.controller;
+
+import com.nimbus.config.CityConfig;
+import com.nimbus.service.ClothingAdviceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 运维操作（重新加载城市库、穿衣规则）
+ * <p>
+ * 默认不注册，需设置 {@code nimbus.admin.enabled=true}；开启后应只对内网或经鉴权的网关开放 /admin 路径。
+ *
+ * @author Nimbus Team
+ */
+@RestController
+@RequestMapping("/admin")
+@ConditionalOnProperty(prefix = "nimbus.admin", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final CityConfig cityConfig;
+    private final ClothingAdviceService clothingAdviceService;
+
+    /**
+     * 重新加载城市库 CSV（构建完成后整体替换，期间查询继续使用旧城市库）
+     *
+     * @return 加载结果；CSV 未变化时 changed=false
+     */
+    @PostMapping("/cities/reload")
+    public Mono<ResponseEntity<CityConfig.ReloadResult>> reloadCities() {
+        return Mono.fromFuture(cityConfig.reloadAsync()).map(ResponseEntity::ok);
+    }
+
+    /**
+     * 重新加载穿衣建议规则（编译完成后整体替换，期间继续使用旧规则）
+     *
+     * @return 加载结果；规则文件未变化时 changed=false
+     */
+    @PostMapping("/clothing/rules/reload")
+    public Mono<ResponseEntity<ClothingAdviceService.ReloadResult>> reloadClothingRules() {
+        return Mono.fromCallable(clothingAdviceService::reload)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+}
@@ -1,5 +1,6 @@
 package com.nimbus.controller;
 
+import com.nimbus.client.QuotaRateLimiter;
 import com.nimbus.config.CityConfig;
 import com.nimbus.model.City;
 import com.nimbus.model.ClothingAdvice;
@@ -8,8 +9,13 @@ import com.nimbus.model.WeatherResponse;
 import com.nimbus.service.WeatherQueryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -26,6 +32,11 @@ public class WeatherController {
 
     private final WeatherQueryService weatherQueryService;
     private final CityConfig cityConfig;
+    private final QuotaRateLimiter quotaRateLimiter;
+
+    /** 单次批量查询允许的最大城市数 */
+    @Value("${nimbus.weather.batch.max-cities:50}")
+    private int maxBatchCities;
 
     /**
      * 查询城市今日天气及穿衣建议
@@ -36,27 +47,48 @@ public class WeatherController {
 
     //http://localhost:14567/weather/%E5%8C%97%E4%BA%AC
     @GetMapping("/{city}")
-    public ResponseEntity<WeatherWithAdviceResponse> getWeatherWithAdvice(
+    public Mono<ResponseEntity<WeatherWithAdviceResponse>> getWeatherWithAdvice(
             @PathVariable String city) {
         log.info("收到查询请求: city={}", city);
 
-        try {
-            WeatherQueryService.WeatherResult result = weatherQueryService.queryToday(city);
+        return toWeatherWithAdvice(weatherQueryService.queryTodayAsync(city));
+    }
+
+    /**
+     * 按坐标查询最近城市的今日天气及穿衣建议（同一城市附近的请求共用该城市的缓存）
+     *
+     * @param lat 纬度
+     * @param lon 经度
+     * @return 天气及穿衣建议，city 为解析出的最近城市
+     */
+    @GetMapping("/near")
+    public Mono<ResponseEntity<WeatherWithAdviceResponse>> getWeatherNear(
+            @RequestParam double lat,
+            @RequestParam double lon) {
+        log.info("收到坐标查询请求: lat={}, lon={}", lat, lon);
 
-            WeatherWithAdviceResponse response = new WeatherWithAdviceResponse();
-            response.setSuccess(true);
-            response.setCity(result.getCity());
-            response.setWeather(result.getWeather());
-            response.setClothingAdvice(result.getAdvice());
+        return toWeatherWithAdvice(weatherQueryService.queryTodayNearAsync(lat, lon));
+    }
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("查询天气失败: {}", e.getMessage(), e);
-            WeatherWithAdviceResponse error = new WeatherWithAdviceResponse();
-            error.setSuccess(false);
-            error.setErrorMessage(e.getMessage());
-            return ResponseEntity.badRequest().body(error);
-        }
+    private Mono<ResponseEntity<WeatherWithAdviceResponse>> toWeatherWithAdvice(
+            Mono<WeatherQueryService.WeatherResult> query) {
+        return query
+                .map(result -> {
+                    WeatherWithAdviceResponse response = new WeatherWithAdviceResponse();
+                    response.setSuccess(true);
+                    response.setCity(result.getCity());
+                    response.setWeather(result.getWeather());
+                    response.setClothingAdvice(result.getAdvice());
+                    response.setStale(result.isStale());
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(e -> {
+                    log.error("查询天气失败: {}", e.getMessage(), e);
+                    WeatherWithAdviceResponse error = new WeatherWithAdviceResponse();
+                    error.setSuccess(false);
+                    error.setErrorMessage(e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().body(error));
+                });
     }
 
     /**
@@ -66,25 +98,61 @@ public class WeatherController {
      * @return 7天天气预报
      */
     @GetMapping("/{city}/forecast")
-    public ResponseEntity<ForecastResponse> get7DayForecast(
+    public Mono<ResponseEntity<ForecastResponse>> get7DayForecast(
             @PathVariable String city) {
         log.info("收到7天预报查询请求: city={}", city);
 
-        try {
-            WeatherResponse forecast = weatherQueryService.query7DayForecast(city);
-
-            ForecastResponse response = new ForecastResponse();
-            response.setSuccess(true);
-            response.setDaily(forecast.getDaily());
+        return weatherQueryService.query7DayForecastAsync(city)
+                .map(forecast -> {
+                    ForecastResponse response = new ForecastResponse();
+                    response.setSuccess(true);
+                    response.setDaily(forecast.getDaily());
+                    response.setStale(forecast.isStale());
+                    return ResponseEntity.ok(response);
+                })
+                .onErrorResume(e -> {
+                    log.error("查询天气预报失败: {}", e.getMessage(), e);
+                    ForecastResponse error = new ForecastResponse();
+                    error.setSuccess(false);
+                    error.setErrorMessage(e.getMessage());
+                    return Mono.just(ResponseEntity.badRequest().body(error));
+                });
+    }
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("查询天气预报失败: {}", e.getMessage(), e);
-            ForecastResponse error = new ForecastResponse();
+    /**
+     * 批量查询多个城市今日天气及穿衣建议（NDJSON 流式返回，每个城市完成即输出一行）
+     *
+     * @param request 城市名或 LocationID 列表
+     * @return 各城市结果流
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<BatchWeatherItem>> getWeatherBatch(@RequestBody BatchWeatherRequest request) {
+        List<String> queries = request != null && request.getCities() != null
+                ? request.getCities().stream().filter(StringUtils::hasText).map(String::trim).distinct().toList()
+                : List.of();
+        if (queries.isEmpty() || queries.size() > maxBatchCities) {
+            BatchWeatherItem error = new BatchWeatherItem();
             error.setSuccess(false);
-            error.setErrorMessage(e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+            error.setErrorMessage("cities 数量需在 1 到 " + maxBatchCities + " 之间");
+            return ResponseEntity.badRequest().body(Flux.just(error));
         }
+        log.info("收到批量查询请求: {} 个城市", queries.size());
+
+        Flux<BatchWeatherItem> items = weatherQueryService.queryTodayBatch(queries)
+                .map(item -> {
+                    BatchWeatherItem response = new BatchWeatherItem();
+                    response.setQuery(item.getQuery());
+                    response.setSuccess(item.isSuccess());
+                    response.setErrorMessage(item.getErrorMessage());
+                    if (item.getResult() != null) {
+                        response.setCity(item.getResult().getCity());
+                        response.setWeather(item.getResult().getWeather());
+                        response.setClothingAdvice(item.getResult().getAdvice());
+                        response.setStale(item.getResult().isStale());
+                    }
+                    return response;
+                });
+        return ResponseEntity.ok(items);
     }
 
     /**
@@ -103,6 +171,34 @@ public class WeatherController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * 城市输入联想：按中文名、英文名（拼音）或拼音首字母前缀匹配
+     *
+     * @param q     已输入的前缀，如 "北"、"beij"、"cy"
+     * @param limit 最多返回条数（不超过 nimbus.city.suggest.max-results）
+     * @return 候选城市，地级市与热门城市优先
+     */
+    @GetMapping("/cities/suggest")
+    public ResponseEntity<CityListResponse> suggestCities(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        CityListResponse response = new CityListResponse();
+        response.setSuccess(true);
+        response.setCities(cityConfig.suggest(q, limit));
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 和风 API 配额使用情况
+     *
+     * @return 剩余配额与各通道放行/拒绝计数
+     */
+    @GetMapping("/quota")
+    public ResponseEntity<QuotaRateLimiter.QuotaStats> getQuota() {
+        return ResponseEntity.ok(quotaRateLimiter.stats());
+    }
+
     // ========== 响应DTO ==========
 
     @lombok.Data
@@ -112,6 +208,23 @@ public class WeatherController {
         private City city;
         private DailyWeather weather;
         private ClothingAdvice clothingAdvice;
+        private boolean stale;
+    }
+
+    @lombok.Data
+    public static class BatchWeatherRequest {
+        private List<String> cities;
+    }
+
+    @lombok.Data
+    public static class BatchWeatherItem {
+        private String query;
+        private boolean success;
+        private String errorMessage;
+        private City city;
+        private DailyWeather weather;
+        private ClothingAdvice clothingAdvice;
+        private boolean stale;
     }
 
     @lombok.Data
@@ -119,6 +232,7 @@ public class WeatherController {
         private boolean success;
         private String errorMessage;
         private List<DailyWeather> daily;
+        private boolean stale;
     }
 
     @lombok.Data
@@ -22,6 +22,9 @@ public class City {
     /** 城市名称 */
     private String name;
 
+    /** 英文名称（多为拼音，如 Chaoyang、Xi'an） */
+    private String nameEn;
+
     /** 省级行政区 */
     private String adm1;
 
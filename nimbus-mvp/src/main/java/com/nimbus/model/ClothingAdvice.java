@@ -1,19 +1,19 @@
 package com.nimbus.model;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 /**
  * 穿衣建议
+ * <p>
+ * 不可变：{@link com.nimbus.service.ClothingAdviceService} 返回的是预先构建、所有请求共享的实例。
  *
  * @author Nimbus Team
  */
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
 public class ClothingAdvice {
 
     /** 建议概述 */
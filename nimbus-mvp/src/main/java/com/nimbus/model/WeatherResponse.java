@@ -1,5 +1,6 @@
 package com.nimbus.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
@@ -33,6 +34,10 @@ public class WeatherResponse {
     @JsonProperty("refer")
     private Refer refer;
 
+    /** 是否为天气服务不可用时返回的最近一次成功数据 */
+    @JsonIgnore
+    private boolean stale;
+
     /**
      * 请求是否成功
      */
@@ -1,129 +1,145 @@
 package com.nimbus.service;
 
+import com.nimbus.clothing.ClothingRuleTable;
+import com.nimbus.clothing.ClothingRules;
 import com.nimbus.model.ClothingAdvice;
 import com.nimbus.model.DailyWeather;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
 /**
- * 穿衣建议服务 - 基于规则的简单实现
+ * 穿衣建议服务 - 基于规则文件的决策表
+ * <p>
+ * 规则从 {@code nimbus.clothing.rules-location} 读取，启动时编译为 {@link ClothingRuleTable}，运行时只做查表，
+ * 返回共享的不可变实例。重新加载时重新编译并整体替换，期间查询继续使用旧规则。
  *
  * @author Nimbus Team
  */
 @Slf4j
 @Service
-public class ClothingAdviceService {
+public class ClothingAdviceService implements ResourceLoaderAware {
+
+    private static final ClothingAdvice NO_DATA = ClothingAdvice.builder()
+            .overview("暂无天气数据")
+            .build();
+
+    /**
+     * 当前规则，整体替换
+     */
+    private final AtomicReference<Loaded> current = new AtomicReference<>(
+            new Loaded(ClothingRuleTable.empty(), 0L));
+
+    private ResourceLoader resourceLoader = new DefaultResourceLoader();
+
+    private String rulesLocation = "classpath:clothing-rules.yml";
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        if (resourceLoader != null) {
+            this.resourceLoader = resourceLoader;
+        }
+    }
+
+    @Value("${nimbus.clothing.rules-location:classpath:clothing-rules.yml}")
+    public void setRulesLocation(String rulesLocation) {
+        if (rulesLocation != null && !rulesLocation.isBlank()) {
+            this.rulesLocation = rulesLocation.trim();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            byte[] bytes = readRules();
+            current.set(load(bytes, checksum(bytes)));
+        } catch (Exception e) {
+            throw new IllegalStateException("加载穿衣规则失败: " + rulesLocation, e);
+        }
+    }
+
+    /**
+     * 重新加载规则文件，编译完成后整体替换；加载失败时继续使用当前规则
+     *
+     * @return 加载结果；文件未变化时 changed=false
+     */
+    public synchronized ReloadResult reload() {
+        long start = System.nanoTime();
+        try {
+            byte[] bytes = readRules();
+            long checksum = checksum(bytes);
+            Loaded previous = current.get();
+            if (checksum == previous.checksum()) {
+                return ReloadResult.of(true, false, previous.table(), start, null);
+            }
+            Loaded loaded = load(bytes, checksum);
+            current.set(loaded);
+            return ReloadResult.of(true, true, loaded.table(), start, null);
+        } catch (Exception e) {
+            log.warn("重新加载穿衣规则失败，继续使用当前规则: {}", e.getMessage(), e);
+            return ReloadResult.of(false, false, current.get().table(), start, e.getMessage());
+        }
+    }
 
     /**
      * 根据天气生成穿衣建议
      *
      * @param weather 天气数据
-     * @return 穿衣建议
+     * @return 穿衣建议（共享实例，不可修改）
      */
     public ClothingAdvice generateAdvice(DailyWeather weather) {
         if (weather == null) {
-            return ClothingAdvice.builder()
-                    .overview("暂无天气数据")
-                    .build();
+            return NO_DATA;
         }
 
-        int avgTemp = weather.getAverageTemp();
-        boolean isRainy = weather.isRainy();
-        String weatherText = weather.getTextDay();
+        log.debug("生成穿衣建议: 平均温度={}, 天气={}", weather.getAverageTemp(), weather.getTextDay());
 
-        log.debug("生成穿衣建议: 平均温度={}, 天气={}", avgTemp, weatherText);
+        return current.get().table().evaluate(weather);
+    }
 
-        // 基于温度范围生成建议
-        ClothingAdvice advice = generateByTemperature(avgTemp);
+    private Loaded load(byte[] bytes, long checksum) {
+        ClothingRuleTable table = ClothingRuleTable.compile(ClothingRules.parse(new ByteArrayInputStream(bytes)));
+        log.info("已加载 {} 条穿衣规则，决策表 {} 格、{} 种建议", table.ruleCount(), table.cellCount(), table.adviceCount());
+        return new Loaded(table, checksum);
+    }
 
-        // 根据天气状况调整
-        if (isRainy) {
-            advice.setReminder("今天有" + weatherText + "，记得带伞 ☔");
-            advice.setShoes("防水鞋/雨鞋");
-            advice.setAccessories("雨伞");
-        } else if (weatherText != null && weatherText.contains("晴")) {
-            advice.setAccessories("太阳镜/遮阳帽");
+    private byte[] readRules() throws IOException {
+        try (InputStream in = resourceLoader.getResource(rulesLocation).getInputStream()) {
+            return in.readAllBytes();
         }
+    }
 
-        return advice;
+    private static long checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
     }
 
+    private record Loaded(ClothingRuleTable table, long checksum) {}
+
     /**
-     * 基于温度生成基础穿衣建议
+     * 规则加载结果
+     *
+     * @param success 规则加载失败、继续使用旧规则时为 false
+     * @param changed 文件未变化、未重新编译时为 false
      */
-    private ClothingAdvice generateByTemperature(int temp) {
-        if (temp < -10) {
-            return ClothingAdvice.simple(
-                    "极寒天气，注意保暖！",
-                    "厚羽绒服 + 保暖内衣 + 毛衣",
-                    "加绒裤/羽绒裤",
-                    "雪地靴/棉靴",
-                    "围巾、手套、帽子、口罩"
-            );
-        } else if (temp < 0) {
-            return ClothingAdvice.simple(
-                    "天气寒冷，全副武装",
-                    "羽绒服 + 毛衣",
-                    "厚裤子/加绒裤",
-                    "保暖鞋/靴子",
-                    "围巾、手套、帽子"
-            );
-        } else if (temp < 5) {
-            return ClothingAdvice.simple(
-                    "天气较冷，注意保暖",
-                    "羽绒服/厚棉服",
-                    "长裤/厚裤子",
-                    "运动鞋/休闲鞋",
-                    "围巾、手套"
-            );
-        } else if (temp < 10) {
-            return ClothingAdvice.simple(
-                    "天气凉爽",
-                    "大衣/棉服/夹克 + 薄毛衣",
-                    "长裤",
-                    "运动鞋/休闲鞋",
-                    "薄围巾"
-            );
-        } else if (temp < 15) {
-            return ClothingAdvice.simple(
-                    "舒适温度",
-                    "外套/风衣/卫衣",
-                    "长裤/牛仔裤",
-                    "运动鞋/休闲鞋",
-                    "根据需要携带薄外套"
-            );
-        } else if (temp < 20) {
-            return ClothingAdvice.simple(
-                    "温暖舒适",
-                    "薄外套/长袖衬衫/T恤",
-                    "长裤/休闲裤",
-                    "运动鞋/帆布鞋",
-                    ""
-            );
-        } else if (temp < 25) {
-            return ClothingAdvice.simple(
-                    "天气温暖",
-                    "T恤/衬衫",
-                    "长裤/薄裤",
-                    "运动鞋/休闲鞋",
-                    ""
-            );
-        } else if (temp < 30) {
-            return ClothingAdvice.simple(
-                    "天气较热",
-                    "短袖/薄衬衫",
-                    "短裤/薄长裤",
-                    "凉鞋/透气鞋",
-                    "遮阳帽"
-            );
-        } else {
-            return ClothingAdvice.simple(
-                    "天气炎热，注意防暑！",
-                    "短袖/背心/薄衣物",
-                    "短裤/裙装",
-                    "凉鞋/拖鞋",
-                    "遮阳帽、太阳镜、防晒霜"
-            );
+    public record ReloadResult(boolean success, boolean changed, int rules, int cells, long tookMs, String error) {
+
+        static ReloadResult of(boolean success, boolean changed, ClothingRuleTable table, long startNanos,
+                               String error) {
+            return new ReloadResult(success, changed, table.ruleCount(), table.cellCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), error);
         }
     }
 }
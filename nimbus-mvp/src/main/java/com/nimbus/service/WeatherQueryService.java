@@ -1,6 +1,7 @@
 package com.nimbus.service;
 
 import com.nimbus.client.QWeatherClient;
+import com.nimbus.client.QuotaRateLimiter;
 import com.nimbus.config.CityConfig;
 import com.nimbus.model.City;
 import com.nimbus.model.ClothingAdvice;
@@ -8,7 +9,13 @@ import com.nimbus.model.DailyWeather;
 import com.nimbus.model.WeatherResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * 天气查询服务
@@ -24,6 +31,10 @@ public class WeatherQueryService {
     private final CityConfig cityConfig;
     private final ClothingAdviceService clothingAdviceService;
 
+    /** 批量查询时同时在途的上游请求数 */
+    @Value("${nimbus.weather.batch.concurrency:8}")
+    private int batchConcurrency;
+
     /**
      * 查询城市今日天气及穿衣建议
      *
@@ -44,20 +55,45 @@ public class WeatherQueryService {
         // 2. 查询天气
         WeatherResponse response = weatherClient.get7DayForecast(city.getLocationId());
 
-        if (!response.isSuccess() || response.getToday() == null) {
-            throw new RuntimeException("获取天气数据失败");
-        }
+        // 3. 生成穿衣建议
+        return toWeatherResult(city, response);
+    }
 
-        DailyWeather today = response.getToday();
+    /**
+     * 异步查询城市今日天气及穿衣建议（全程不阻塞调用线程）
+     *
+     * @param cityName 城市名称
+     * @return Mono<天气及穿衣建议>
+     */
+    public Mono<WeatherResult> queryTodayAsync(String cityName) {
+        log.info("异步查询城市今日天气: {}", cityName);
 
-        // 3. 生成穿衣建议
-        ClothingAdvice advice = clothingAdviceService.generateAdvice(today);
+        return Mono.defer(() -> cityConfig.findByName(cityName)
+                .map(this::queryTodayAsync)
+                .orElseGet(() -> Mono.error(new RuntimeException("未找到城市: " + cityName))));
+    }
 
-        return WeatherResult.builder()
-                .city(city)
-                .weather(today)
-                .advice(advice)
-                .build();
+    /**
+     * 按坐标查询最近城市的今日天气及穿衣建议
+     *
+     * @param latitude  纬度
+     * @param longitude 经度
+     * @return Mono<天气及穿衣建议>
+     */
+    public Mono<WeatherResult> queryTodayNearAsync(double latitude, double longitude) {
+        return Mono.defer(() -> cityConfig.findNearest(latitude, longitude)
+                .map(this::queryTodayAsync)
+                .orElseGet(() -> Mono.error(new RuntimeException("附近没有可查询的城市: " + latitude + "," + longitude))));
+    }
+
+    public Mono<WeatherResult> queryTodayAsync(City city) {
+        return queryTodayAsync(city, QuotaRateLimiter.Lane.INTERACTIVE);
+    }
+
+    private Mono<WeatherResult> queryTodayAsync(City city, QuotaRateLimiter.Lane lane) {
+        return weatherClient.get7DayForecastAsync(city.getLocationId(), lane)
+                .switchIfEmpty(Mono.error(new RuntimeException("获取天气数据失败")))
+                .map(response -> toWeatherResult(city, response));
     }
 
     /**
@@ -79,6 +115,84 @@ public class WeatherQueryService {
         return weatherClient.get7DayForecast(city.getLocationId());
     }
 
+    /**
+     * 异步查询城市7天天气预报
+     *
+     * @param cityName 城市名称
+     * @return Mono<7天天气预报>
+     */
+    public Mono<WeatherResponse> query7DayForecastAsync(String cityName) {
+        log.info("异步查询城市7天预报: {}", cityName);
+
+        return Mono.defer(() -> cityConfig.findByName(cityName)
+                .map(city -> weatherClient.get7DayForecastAsync(city.getLocationId())
+                        .switchIfEmpty(Mono.error(new RuntimeException("获取天气数据失败"))))
+                .orElseGet(() -> Mono.error(new RuntimeException("未找到城市: " + cityName))));
+    }
+
+    /**
+     * 批量查询多个城市今日天气及穿衣建议
+     * <p>
+     * 支持城市名或 LocationID；以有限并发扇出，每个城市完成即发出结果，单个失败不影响其他城市。
+     * 批量查询走后台配额通道，不挤占交互请求的配额。
+     *
+     * @param queries 城市名或 LocationID 列表
+     * @return Flux<单城市结果>（按完成顺序）
+     */
+    public Flux<BatchItem> queryTodayBatch(List<String> queries) {
+        return Flux.fromIterable(queries)
+                .flatMap(query -> Mono.defer(() -> resolveCity(query)
+                                .map(city -> queryTodayAsync(city, QuotaRateLimiter.Lane.BACKGROUND))
+                                .orElseGet(() -> Mono.error(new RuntimeException("未找到城市: " + query))))
+                        .map(result -> BatchItem.success(query, result))
+                        .onErrorResume(e -> Mono.just(BatchItem.error(query, e.getMessage()))),
+                        Math.max(1, batchConcurrency));
+    }
+
+    private Optional<City> resolveCity(String query) {
+        if (query == null || query.isBlank()) {
+            return Optional.empty();
+        }
+        Optional<City> byId = cityConfig.findByLocationId(query);
+        return byId.isPresent() ? byId : cityConfig.findByName(query);
+    }
+
+    private WeatherResult toWeatherResult(City city, WeatherResponse response) {
+        if (response == null || !response.isSuccess() || response.getToday() == null) {
+            throw new RuntimeException("获取天气数据失败");
+        }
+
+        DailyWeather today = response.getToday();
+        ClothingAdvice advice = clothingAdviceService.generateAdvice(today);
+
+        return WeatherResult.builder()
+                .city(city)
+                .weather(today)
+                .advice(advice)
+                .stale(response.isStale())
+                .build();
+    }
+
+    /**
+     * 批量查询中单个城市的结果
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class BatchItem {
+        private String query;
+        private boolean success;
+        private String errorMessage;
+        private WeatherResult result;
+
+        public static BatchItem success(String query, WeatherResult result) {
+            return BatchItem.builder().query(query).success(true).result(result).build();
+        }
+
+        public static BatchItem error(String query, String errorMessage) {
+            return BatchItem.builder().query(query).success(false).errorMessage(errorMessage).build();
+        }
+    }
+
     /**
      * 天气查询结果
      */
@@ -88,5 +202,7 @@ public class WeatherQueryService {
         private City city;
         private DailyWeather weather;
         private ClothingAdvice advice;
+        /** 是否为天气服务不可用时的兜底数据 */
+        private boolean stale;
     }
 }
@@ -0,0 +1,58 @@
+package com.nimbus.bench;
+
+import com.nimbus.city.CityCsvFixture;
+import com.nimbus.city.CityCsvReader;
+import com.nimbus.city.CityStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 城市库 CSV 并行分块解析基准
+ * <p>
+ * 以内置城市表重复 {@code copies} 份生成 CSV（72 份约 28 MB），数据见 {@link CityCsvFixture}；
+ * 分块结果的正确性由 {@code CityCsvReaderTest} 检查。运行：
+ * <pre>
+ * mvn -f nimbus-mvp/pom.xml test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main CityCsvReaderBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Nimbus Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityCsvReaderBenchmark {
+
+    /** 内置城市表重复的份数 */
+    @Param({"1", "72"})
+    private int copies;
+
+    private byte[] csv;
+
+    @Setup
+    public void setup() throws IOException {
+        CityStore source = CityCsvFixture.bundled();
+        csv = CityCsvFixture.generate(source, source.size() * copies, true).csv();
+    }
+
+    @Benchmark
+    public CityStore read() {
+        return CityCsvReader.read(ByteBuffer.wrap(csv));
+    }
+}
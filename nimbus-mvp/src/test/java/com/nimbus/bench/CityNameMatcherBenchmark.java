@@ -0,0 +1,105 @@
+package com.nimbus.bench;
+
+import com.nimbus.city.CityCsvFixture;
+import com.nimbus.city.CityIndex;
+import com.nimbus.city.CityNameMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文本中城市名识别基准 - Aho-Corasick 自动机与原先按长度降序逐个 {@code String.contains} 的对比
+ * <p>
+ * 使用内置城市表的全部名称，对一组随机生成的用户消息轮流匹配。{@code mention} 为 {@code hit} 时消息含一个城市名
+ * （位置随机），为 {@code miss} 时不含，后者是逐个比较的最坏情况。两种方式结果一致由 {@code CityNameMatcherTest}
+ * 检查。运行：
+ * <pre>
+ * mvn -f nimbus-mvp/pom.xml test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main CityNameMatcherBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Nimbus Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityNameMatcherBenchmark {
+
+    private static final String[] PREFIXES = {"", "请问", "帮我查一下", "明天去", "我在", "周末想去"};
+
+    private static final String[] SUFFIXES = {"天气怎么样", "的天气", "会下雨吗？", "需要带伞吗", "穿什么合适", ""};
+
+    /** 消息是否含城市名 */
+    @Param({"hit", "miss"})
+    private String mention;
+
+    private CityNameMatcher matcher;
+
+    /** 原实现：长度不小于 2 的名称按长度降序排列 */
+    private String[] namesByLengthDesc;
+
+    private String[] messages;
+
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        CityIndex index = CityIndex.build(CityCsvFixture.bundled());
+        String[] names = index.matchNames();
+        matcher = index.nameMatcher();
+        namesByLengthDesc = Arrays.stream(names)
+                .filter(name -> name.length() >= 2)
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toArray(String[]::new);
+
+        Random random = new Random(42);
+        messages = new String[64];
+        for (int i = 0; i < messages.length; i++) {
+            String city = "hit".equals(mention) ? names[random.nextInt(names.length)] : "这里";
+            messages[i] = PREFIXES[random.nextInt(PREFIXES.length)] + city
+                    + SUFFIXES[random.nextInt(SUFFIXES.length)];
+        }
+    }
+
+    @Benchmark
+    public int automaton() {
+        return matcher.findLongest(nextMessage());
+    }
+
+    @Benchmark
+    public String containsLoop() {
+        return containsLoop(nextMessage());
+    }
+
+    private String containsLoop(String content) {
+        for (String name : namesByLengthDesc) {
+            if (content.contains(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private String nextMessage() {
+        String message = messages[next];
+        next = (next + 1) & (messages.length - 1);
+        return message;
+    }
+}
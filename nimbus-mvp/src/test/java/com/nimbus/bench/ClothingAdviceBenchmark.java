@@ -0,0 +1,72 @@
+package com.nimbus.bench;
+
+import com.nimbus.model.ClothingAdvice;
+import com.nimbus.model.DailyWeather;
+import com.nimbus.service.ClothingAdviceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 穿衣建议基准 - 稳态下 {@link ClothingAdviceService#generateAdvice} 应只做查表，不分配对象
+ * <p>
+ * 运行（配合 -prof gc 看 gc.alloc.rate.norm，应接近 0 B/op）：
+ * <pre>
+ * mvn -f nimbus-mvp/pom.xml test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ClothingAdviceBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Nimbus Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClothingAdviceBenchmark {
+
+    /** 天气文字，覆盖晴天、降水和其他三类 */
+    @Param({"晴", "小雨", "多云"})
+    private String textDay;
+
+    private ClothingAdviceService service;
+
+    /** 一组跨越全部温度分档的天气 */
+    private DailyWeather[] days;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        service = new ClothingAdviceService();
+        service.init();
+        String[][] temps = {{"-15", "-20"}, {"-2", "-8"}, {"6", "0"}, {"12", "4"}, {"16", "10"},
+                {"22", "14"}, {"26", "18"}, {"32", "24"}, {"38", "30"}};
+        days = new DailyWeather[temps.length];
+        for (int i = 0; i < temps.length; i++) {
+            DailyWeather day = new DailyWeather();
+            day.setTempMax(temps[i][0]);
+            day.setTempMin(temps[i][1]);
+            day.setTextDay(textDay);
+            days[i] = day;
+        }
+    }
+
+    @Benchmark
+    public ClothingAdvice generateAdvice() {
+        DailyWeather day = days[next];
+        next = next + 1 == days.length ? 0 : next + 1;
+        return service.generateAdvice(day);
+    }
+}
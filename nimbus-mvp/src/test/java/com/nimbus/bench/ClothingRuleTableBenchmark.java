@@ -0,0 +1,97 @@
+package com.nimbus.bench;
+
+import com.nimbus.clothing.ClothingRuleTable;
+import com.nimbus.clothing.ClothingRules;
+import com.nimbus.model.ClothingAdvice;
+import com.nimbus.model.DailyWeather;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 穿衣规则决策表基准 - 求值耗时应与规则条数无关
+ * <p>
+ * 在内置规则之后追加 N 条随机规则（气温、湿度、紫外线阈值），规则越多决策表越大，但每次求值的查表次数不变。
+ * 运行：
+ * <pre>
+ * mvn -f nimbus-mvp/pom.xml test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main ClothingRuleTableBenchmark -prof gc"
+ * </pre>
+ *
+ * @author Nimbus Team
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClothingRuleTableBenchmark {
+
+    private static final String[] TEXTS = {"晴", "多云", "阴", "小雨", "中雨", "雷阵雨", "小雪", "晴转多云"};
+
+    /** 追加的随机规则条数 */
+    @Param({"0", "10", "100", "1000"})
+    private int extraRules;
+
+    private ClothingRuleTable table;
+
+    /** 随机生成的一组天气，轮流求值 */
+    private DailyWeather[] days;
+
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        List<ClothingRules.Rule> rules;
+        try (InputStream in = ClothingRuleTableBenchmark.class.getResourceAsStream("/clothing-rules.yml")) {
+            rules = new ArrayList<>(ClothingRules.parse(in).rules());
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < extraRules; i++) {
+            ClothingRules.Range temp = new ClothingRules.Range(-30 + 5 * random.nextInt(10), null);
+            ClothingRules.Range humidity = new ClothingRules.Range(5 * random.nextInt(20), null);
+            ClothingRules.Range uvIndex = new ClothingRules.Range(null, 1 + random.nextInt(15));
+            ClothingAdvice set = ClothingAdvice.builder().reminder("规则 " + i).build();
+            rules.add(new ClothingRules.Rule("rule-" + i,
+                    new ClothingRules.Condition(temp, null, humidity, uvIndex, null), set));
+        }
+        table = ClothingRuleTable.compile(new ClothingRules(rules));
+
+        days = new DailyWeather[64];
+        for (int i = 0; i < days.length; i++) {
+            int max = -15 + random.nextInt(50);
+            DailyWeather day = new DailyWeather();
+            day.setTempMax(Integer.toString(max));
+            day.setTempMin(Integer.toString(max - random.nextInt(12)));
+            day.setTextDay(TEXTS[random.nextInt(TEXTS.length)]);
+            int wind = random.nextInt(8);
+            day.setWindScaleDay(wind + "-" + (wind + 1));
+            day.setHumidity(Integer.toString(random.nextInt(101)));
+            day.setUvIndex(Integer.toString(random.nextInt(12)));
+            days[i] = day;
+        }
+    }
+
+    @Benchmark
+    public ClothingAdvice evaluate() {
+        DailyWeather day = days[next];
+        next = (next + 1) & (days.length - 1);
+        return table.evaluate(day);
+    }
+}
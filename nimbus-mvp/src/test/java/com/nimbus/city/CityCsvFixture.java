@@ -0,0 +1,120 @@
+package com.nimbus.city;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 生成城市库 CSV 的测试数据，同时记下每行写入的值
+ * <p>
+ * 以内置城市表的各行为素材按 RFC 4180 写出，并混入容易切错块的内容：带逗号、双写引号和换行的引号字段，
+ * CRLF 行尾，不必要的引号，以及可选的一个比分块还长、内含换行的引号字段。
+ *
+ * @author Nimbus Team
+ */
+public final class CityCsvFixture {
+
+    private static final String HEADER = "China-City-List fixture,,,,,,,,,,,,,\n"
+            + "Location_ID,Location_Name_EN,Location_Name_ZH,ISO_3166_1,Country_Region_EN,Country_Region_ZH,"
+            + "Adm1_Name_EN,Adm1_Name_ZH,Adm2_Name_EN,Adm2_Name_ZH,Timezone,Latitude,Longitude,AD_code\r\n";
+
+    private final byte[] csv;
+    private final Row[] rows;
+
+    private CityCsvFixture(byte[] csv, Row[] rows) {
+        this.csv = csv;
+        this.rows = rows;
+    }
+
+    /**
+     * 内置城市表（classpath:assets/China-City-List-latest.csv）
+     */
+    public static CityStore bundled() throws IOException {
+        try (InputStream in = CityCsvFixture.class.getResourceAsStream("/assets/China-City-List-latest.csv")) {
+            if (in == null) {
+                throw new IOException("classpath 中没有 assets/China-City-List-latest.csv");
+            }
+            return CityCsvReader.read(in);
+        }
+    }
+
+    /**
+     * @param source    素材，按序循环取用
+     * @param rows      生成的行数
+     * @param longField 是否在中间一行写入约 600 KB 的引号字段
+     */
+    public static CityCsvFixture generate(CityStore source, int rows, boolean longField) {
+        Row[] written = new Row[rows];
+        StringBuilder out = new StringBuilder(rows * 140 + (longField ? 600_100 : 0)).append(HEADER);
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            int ordinal = i % source.size();
+            String nameEn = source.nameEn(ordinal);
+            String adm2 = source.adm2(ordinal);
+            if (i % 97 == 0) {
+                nameEn = (nameEn != null ? nameEn : "") + " \"q\",\nline2";
+            }
+            if (longField && i == rows / 2) {
+                nameEn = "X".repeat(600_000) + "\n\"\n" + "Y".repeat(10);
+            }
+            if (i % 31 == 0) {
+                adm2 = (adm2 != null ? adm2 : "") + ", " + i;
+            }
+            Row row = new Row(source.locationId(ordinal) + "-" + i / source.size(), source.name(ordinal), nameEn,
+                    source.adm1(ordinal), adm2, source.latitude(ordinal), source.longitude(ordinal));
+            written[i] = row;
+            row.writeTo(out, random.nextInt(8) == 0);
+            out.append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        return new CityCsvFixture(out.toString().getBytes(StandardCharsets.UTF_8), written);
+    }
+
+    public byte[] csv() {
+        return csv;
+    }
+
+    /**
+     * 第 {@code i} 行写入的值
+     */
+    public Row row(int i) {
+        return rows[i];
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * 读取器保留的各列
+     */
+    public record Row(String locationId, String name, String nameEn, String adm1, String adm2,
+                      float latitude, float longitude) {
+
+        public static Row of(CityStore store, int ordinal) {
+            return new Row(store.locationId(ordinal), store.name(ordinal), store.nameEn(ordinal),
+                    store.adm1(ordinal), store.adm2(ordinal), store.latitude(ordinal), store.longitude(ordinal));
+        }
+
+        /**
+         * 按表头的 14 列写出，不需要引号的字段也可以加引号
+         */
+        void writeTo(StringBuilder out, boolean quoteAll) {
+            field(out, locationId, quoteAll).append(',');
+            field(out, nameEn, quoteAll).append(',');
+            field(out, name, quoteAll).append(",CN,China,中国,,");
+            field(out, adm1, quoteAll).append(",,");
+            field(out, adm2, quoteAll).append(",Asia/Shanghai,");
+            field(out, Float.isNaN(latitude) ? null : Float.toString(latitude), quoteAll).append(',');
+            field(out, Float.isNaN(longitude) ? null : Float.toString(longitude), quoteAll).append(",0");
+        }
+
+        private static StringBuilder field(StringBuilder out, String value, boolean quoteAll) {
+            if (value == null) {
+                return out;
+            }
+            boolean quote = quoteAll || value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0;
+            return quote ? out.append('"').append(value.replace("\"", "\"\"")).append('"') : out.append(value);
+        }
+    }
+}
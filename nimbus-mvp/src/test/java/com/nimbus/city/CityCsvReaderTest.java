@@ -0,0 +1,72 @@
+package com.nimbus.city;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * CSV 读取：单块（调用线程）与多块（并行）解析的结果都须与逐行写入的值一致，分块边界落在引号字段内也不例外
+ *
+ * @author Nimbus Team
+ */
+class CityCsvReaderTest {
+
+    private static CityStore bundled;
+
+    @BeforeAll
+    static void loadBundled() throws IOException {
+        bundled = CityCsvFixture.bundled();
+    }
+
+    @Test
+    void parallelChunksMatchWrittenRows() {
+        // 约 9 MB，数十个分块
+        assertReadsBack(CityCsvFixture.generate(bundled, bundled.size() * 24, true));
+    }
+
+    @Test
+    void singleChunkMatchesWrittenRows() {
+        assertReadsBack(CityCsvFixture.generate(bundled, 500, false));
+    }
+
+    @Test
+    void bomCrlfAndQuotedFields() {
+        String csv = "\uFEFFv1,,\r\n"
+                + "Location_ID,Location_Name_EN,Location_Name_ZH,Adm1_Name_ZH,Adm2_Name_ZH,Latitude,Longitude\r\n"
+                + "101,\"Say \"\"hi\"\",\nthere\",北京,北京市,\"北京,市\",39.9,116.4\r\n"
+                + "\r\n"
+                + "102, Shanghai ,上海,上海市,上海市,,\n";
+        CityStore store = CityCsvReader.read(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.nameEn(0)).isEqualTo("Say \"hi\",\nthere");
+        assertThat(store.adm2(0)).isEqualTo("北京,市");
+        assertThat(store.latitude(0)).isEqualTo(39.9f);
+        assertThat(store.nameEn(1)).isEqualTo("Shanghai");
+        assertThat(store.latitude(1)).isNaN();
+    }
+
+    @Test
+    void missingRequiredColumnFails() {
+        String csv = "v1\nLocation_ID,Location_Name_ZH\n101,北京\n";
+
+        assertThatThrownBy(() -> CityCsvReader.read(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Adm1_Name_ZH");
+    }
+
+    private static void assertReadsBack(CityCsvFixture fixture) {
+        CityStore parsed = CityCsvReader.read(ByteBuffer.wrap(fixture.csv()));
+
+        assertThat(parsed.size()).isEqualTo(fixture.size());
+        for (int i = 0; i < fixture.size(); i++) {
+            assertThat(CityCsvFixture.Row.of(parsed, i)).as("row %d", i).isEqualTo(fixture.row(i));
+        }
+    }
+}
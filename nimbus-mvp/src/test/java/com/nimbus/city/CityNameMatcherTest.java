@@ -0,0 +1,110 @@
+package com.nimbus.city;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 城市名自动机：结果须与原先按长度降序逐个 {@code String.contains} 的做法一致
+ *
+ * @author Nimbus Team
+ */
+class CityNameMatcherTest {
+
+    private static final String[] PREFIXES = {"", "请问", "帮我查一下", "明天去", "我在", "周末想去", "从"};
+
+    private static final String[] SUFFIXES = {"天气怎么样", "的天气", "会下雨吗？", "需要带伞吗", "穿什么合适", "", "到"};
+
+    private static String[] names;
+
+    private static CityNameMatcher matcher;
+
+    /** 原实现：长度不小于 2 的名称按长度降序排列 */
+    private static String[] namesByLengthDesc;
+
+    @BeforeAll
+    static void build() throws IOException {
+        CityIndex index = CityIndex.build(CityCsvFixture.bundled());
+        names = index.matchNames();
+        matcher = index.nameMatcher();
+        namesByLengthDesc = Arrays.stream(names)
+                .filter(name -> name != null && name.length() >= 2)
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .toArray(String[]::new);
+    }
+
+    @Test
+    void findsEveryNameInContext() {
+        for (String name : namesByLengthDesc) {
+            String message = "请问" + name + "天气怎么样";
+            assertThat(foundLength(message)).as(message).isEqualTo(containsLoop(message).length());
+        }
+    }
+
+    @Test
+    void longestMatchAgreesWithContainsLoop() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder text = new StringBuilder();
+            // 0 到 2 个城市名，0 个时是逐个比较的最坏情况
+            int mentions = random.nextInt(3);
+            for (int m = 0; m < mentions; m++) {
+                text.append(PREFIXES[random.nextInt(PREFIXES.length)]).append(names[random.nextInt(names.length)]);
+            }
+            String message = text.append(SUFFIXES[random.nextInt(SUFFIXES.length)]).toString();
+
+            String expected = containsLoop(message);
+            assertThat(foundLength(message)).as(message).isEqualTo(expected != null ? expected.length() : 0);
+        }
+    }
+
+    @Test
+    void mentionsAreExactlyTheContainedNames() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            String message = PREFIXES[random.nextInt(PREFIXES.length)] + names[random.nextInt(names.length)]
+                    + "和" + names[random.nextInt(names.length)] + SUFFIXES[random.nextInt(SUFFIXES.length)];
+
+            Set<String> mentioned = new HashSet<>();
+            matcher.forEachMention(message, (ordinal, end) -> {
+                assertThat(message.substring(end - names[ordinal].length(), end)).isEqualTo(names[ordinal]);
+                mentioned.add(names[ordinal]);
+            });
+            Set<String> contained = new HashSet<>();
+            for (String name : namesByLengthDesc) {
+                if (message.contains(name)) {
+                    contained.add(name);
+                }
+            }
+            assertThat(mentioned).as(message).isEqualTo(contained);
+        }
+    }
+
+    @Test
+    void textWithoutCityFindsNothing() {
+        assertThat(matcher.findLongest("")).isEqualTo(-1);
+        assertThat(matcher.findLongest("这里天气怎么样")).isEqualTo(-1);
+    }
+
+    private static int foundLength(CharSequence message) {
+        int ordinal = matcher.findLongest(message);
+        return ordinal >= 0 ? names[ordinal].length() : 0;
+    }
+
+    private static String containsLoop(String content) {
+        for (String name : namesByLengthDesc) {
+            if (content.contains(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,206 @@
+package com.nimbus.client;
+
+import com.nimbus.client.UpstreamGuard.UpstreamUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 上游保护：熔断的关闭、打开、半开状态切换，以及舱壁拒绝超出并发上限的调用
+ *
+ * @author Nimbus Team
+ */
+class UpstreamGuardTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofMillis(200);
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private UpstreamGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        guard = new UpstreamGuard();
+        guard.setWindowSize(4);
+        guard.setMinCalls(4);
+        guard.setFailureRateThreshold(0.5);
+        guard.setOpenDuration(OPEN_DURATION);
+        guard.setMaxConcurrent(2);
+    }
+
+    @Test
+    void staysClosedBelowMinCalls() {
+        for (int i = 0; i < 3; i++) {
+            fail(new IllegalStateException("upstream down"));
+        }
+
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void staysClosedBelowFailureRate() {
+        // 任意连续 4 次调用中最多 1 次失败
+        for (int i = 0; i < 10; i++) {
+            succeed();
+            succeed();
+            succeed();
+            fail(new IllegalStateException("upstream down"));
+        }
+
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void opensAtFailureRateAndRejectsWithoutCalling() {
+        tripOpen();
+
+        int before = calls.get();
+        assertThatThrownBy(this::succeed)
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("熔断");
+        assertThat(calls).hasValue(before);
+    }
+
+    @Test
+    void clientErrorsDoNotOpen() {
+        for (int i = 0; i < 10; i++) {
+            fail(WebClientResponseException.create(404, "Not Found", null, null, null));
+        }
+
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void serverErrorsAndRateLimitsOpen() {
+        fail(WebClientResponseException.create(500, "Internal Server Error", null, null, null));
+        fail(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+        fail(WebClientResponseException.create(429, "Too Many Requests", null, null, null));
+        fail(WebClientResponseException.create(502, "Bad Gateway", null, null, null));
+
+        assertThatThrownBy(this::succeed).isInstanceOf(UpstreamUnavailableException.class);
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThroughAndClosesOnSuccess() throws InterruptedException {
+        tripOpen();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        Sinks.One<String> probe = Sinks.one();
+        AtomicInteger probeResults = new AtomicInteger();
+        guard.protect(() -> count(probe.asMono())).subscribe(value -> probeResults.incrementAndGet());
+        assertThatThrownBy(this::succeed)
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("熔断");
+
+        probe.tryEmitValue("ok");
+        assertThat(probeResults).hasValue(1);
+        assertThat(succeed()).isEqualTo("ok");
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void failedProbeOpensAgain() throws InterruptedException {
+        tripOpen();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        fail(new IllegalStateException("still down"));
+
+        int before = calls.get();
+        assertThatThrownBy(this::succeed).isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(calls).hasValue(before);
+
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void cancelledProbeLetsTheNextProbeThrough() throws InterruptedException {
+        tripOpen();
+        Thread.sleep(OPEN_DURATION.toMillis() + 50);
+
+        Disposable probe = guard.protect(() -> count(Mono.<String>never())).subscribe();
+        assertThatThrownBy(this::succeed).isInstanceOf(UpstreamUnavailableException.class);
+
+        probe.dispose();
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondMaxConcurrent() {
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        guard.protect(() -> count(first.asMono())).subscribe();
+        guard.protect(() -> count(second.asMono())).subscribe();
+
+        int before = calls.get();
+        assertThatThrownBy(this::succeed)
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("繁忙");
+        assertThat(calls).hasValue(before);
+
+        first.tryEmitValue("ok");
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void bulkheadRejectionsDoNotOpenTheBreaker() {
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        guard.protect(() -> count(first.asMono())).subscribe();
+        guard.protect(() -> count(second.asMono())).subscribe();
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(this::succeed).hasMessageContaining("繁忙");
+        }
+
+        first.tryEmitValue("ok");
+        second.tryEmitValue("ok");
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void slotIsReleasedWhenACallIsCancelled() {
+        Disposable first = guard.protect(() -> count(Mono.<String>never())).subscribe();
+        Disposable second = guard.protect(() -> count(Mono.<String>never())).subscribe();
+        assertThatThrownBy(this::succeed).hasMessageContaining("繁忙");
+
+        first.dispose();
+        second.dispose();
+        assertThat(succeed()).isEqualTo("ok");
+        assertThat(succeed()).isEqualTo("ok");
+    }
+
+    @Test
+    void latencyPercentileNeedsSamples() {
+        assertThat(guard.latencyPercentile(99)).isEqualTo(-1);
+
+        succeed();
+        assertThat(guard.latencyPercentile(99)).isGreaterThanOrEqualTo(0);
+    }
+
+    private void tripOpen() {
+        for (int i = 0; i < 4; i++) {
+            fail(new IllegalStateException("upstream down"));
+        }
+    }
+
+    private String succeed() {
+        return guard.protect(() -> count(Mono.just("ok"))).block();
+    }
+
+    private void fail(RuntimeException error) {
+        assertThatThrownBy(() -> guard.protect(() -> count(Mono.<String>error(error))).block()).isSameAs(error);
+    }
+
+    private <T> Mono<T> count(Mono<T> call) {
+        calls.incrementAndGet();
+        return call;
+    }
+}
@@ -0,0 +1,192 @@
+package com.nimbus.clothing;
+
+import com.nimbus.model.ClothingAdvice;
+import com.nimbus.model.DailyWeather;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 穿衣规则编译：内置规则须与原先写死的建议一致，格式错误或过大的规则须拒绝加载
+ *
+ * @author Nimbus Team
+ */
+class ClothingRuleTableTest {
+
+    private static final String[] TEXTS = {
+            null, "", "晴", "多云", "阴", "少云", "晴间多云", "雾", "霾", "扬沙", "小雨", "中雨", "大雨", "暴雨",
+            "雷阵雨", "阵雨转晴", "晴转小雨", "小雪", "大雪", "雨夹雪", "冻雨", "晴转阵雪", "未知"
+    };
+
+    @Test
+    void bundledRulesReproduceTheOldLadder() throws IOException {
+        ClothingRuleTable table = ClothingRuleTable.compile(bundled());
+        Random random = new Random(42);
+        int cases = 0;
+        for (int max = -70; max <= 70; max++) {
+            for (int spread = 0; spread <= 1; spread++) {
+                for (String text : TEXTS) {
+                    DailyWeather day = day(Integer.toString(max), Integer.toString(max - spread), text);
+                    // 内置规则不应受风力、湿度、紫外线影响
+                    int wind = random.nextInt(12);
+                    day.setWindScaleDay(random.nextBoolean() ? wind + "-" + (wind + 1) : null);
+                    day.setHumidity(random.nextBoolean() ? Integer.toString(random.nextInt(101)) : null);
+                    day.setUvIndex(random.nextBoolean() ? Integer.toString(random.nextInt(16)) : null);
+
+                    assertThat(table.evaluate(day)).as("%s/%s %s", day.getTempMax(), day.getTempMin(), text)
+                            .isEqualTo(oldAdvice(day));
+                    cases++;
+                }
+            }
+        }
+        assertThat(cases).isEqualTo(141 * 2 * TEXTS.length);
+    }
+
+    @Test
+    void unparseableTemperaturesMatchTheOldLadder() throws IOException {
+        ClothingRuleTable table = ClothingRuleTable.compile(bundled());
+        for (String temp : new String[] {null, "", "N/A", "12.5"}) {
+            DailyWeather day = day(temp, "3", "小雨");
+            assertThat(table.evaluate(day)).isEqualTo(oldAdvice(day));
+        }
+    }
+
+    @Test
+    void unknownKeysAreRejected() {
+        assertThatThrownBy(() -> parse("rules:\n  - name: 暖\n    when: {temperature: {min: 20}}\n    set: {top: T恤}\n"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("malformed clothing rules");
+        assertThatThrownBy(() -> parse("rules:\n  - name: 暖\n    when: {temp: {min: 20}}\n    set: {hat: 草帽}\n"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("malformed clothing rules");
+        assertThatThrownBy(() -> parse("rule:\n  - name: 暖\n"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("malformed clothing rules");
+    }
+
+    @Test
+    void tableLargerThanMaxCellsIsRejected() {
+        List<ClothingRules.Rule> rules = new ArrayList<>();
+        for (int t = -50; t <= 50; t++) {
+            rules.add(rule(new ClothingRules.Condition(range(t), null, range(t + 50), null, null)));
+        }
+        for (int w = 1; w <= 17; w++) {
+            rules.add(rule(new ClothingRules.Condition(null, range(w), null, range(w), null)));
+        }
+        ClothingRules tooLarge = new ClothingRules(rules);
+
+        assertThatThrownBy(() -> ClothingRuleTable.compile(tooLarge))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("too large");
+
+        ClothingRuleTable fits = ClothingRuleTable.compile(new ClothingRules(rules.subList(0, 101)));
+        assertThat(fits.cellCount()).isLessThanOrEqualTo(ClothingRuleTable.MAX_CELLS);
+    }
+
+    @Test
+    void tooManyTextConditionsAreRejected() {
+        List<ClothingRules.Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            rules.add(rule(new ClothingRules.Condition(null, null, null, null, List.of("关键词" + i))));
+        }
+
+        assertThatThrownBy(() -> ClothingRuleTable.compile(new ClothingRules(rules)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("text conditions");
+    }
+
+    @Test
+    void laterRulesOverrideFieldByField() {
+        ClothingRuleTable table = ClothingRuleTable.compile(parse("""
+                rules:
+                  - when: {temp: {below: 10}}
+                    set: {overview: 冷, top: 棉服}
+                  - when: {windScale: {min: 6}}
+                    set: {top: 防风外套}
+                  - when: {humidity: {min: 80}, text: [雨]}
+                    set: {reminder: "{text}，湿度高"}
+                """));
+
+        DailyWeather windy = day("5", "3", "小雨");
+        windy.setWindScaleDay("6-7");
+        windy.setHumidity("85");
+        assertThat(table.evaluate(windy)).isEqualTo(ClothingAdvice.builder()
+                .overview("冷").top("防风外套").reminder("小雨，湿度高").build());
+
+        // 没有风力、湿度数据时，这两个轴上的条件都不满足
+        assertThat(table.evaluate(day("5", "3", "小雨")))
+                .isEqualTo(ClothingAdvice.builder().overview("冷").top("棉服").build());
+    }
+
+    @Test
+    void levelTakesTheLargestNumber() {
+        assertThat(ClothingRuleTable.level("3-4")).isEqualTo(4);
+        assertThat(ClothingRuleTable.level("12")).isEqualTo(12);
+        assertThat(ClothingRuleTable.level("微风")).isEqualTo(Integer.MIN_VALUE);
+        assertThat(ClothingRuleTable.level(null)).isEqualTo(Integer.MIN_VALUE);
+    }
+
+    /**
+     * 改用规则文件之前 ClothingAdviceService 给出的建议：按温度分档，晴天加太阳镜，雨雪天换雨具并提醒带伞
+     */
+    private static ClothingAdvice oldAdvice(DailyWeather weather) {
+        int[] upper = {-10, 0, 5, 10, 15, 20, 25, 30};
+        String[][] ladder = {
+                {"极寒天气，注意保暖！", "厚羽绒服 + 保暖内衣 + 毛衣", "加绒裤/羽绒裤", "雪地靴/棉靴", "围巾、手套、帽子、口罩"},
+                {"天气寒冷，全副武装", "羽绒服 + 毛衣", "厚裤子/加绒裤", "保暖鞋/靴子", "围巾、手套、帽子"},
+                {"天气较冷，注意保暖", "羽绒服/厚棉服", "长裤/厚裤子", "运动鞋/休闲鞋", "围巾、手套"},
+                {"天气凉爽", "大衣/棉服/夹克 + 薄毛衣", "长裤", "运动鞋/休闲鞋", "薄围巾"},
+                {"舒适温度", "外套/风衣/卫衣", "长裤/牛仔裤", "运动鞋/休闲鞋", "根据需要携带薄外套"},
+                {"温暖舒适", "薄外套/长袖衬衫/T恤", "长裤/休闲裤", "运动鞋/帆布鞋", ""},
+                {"天气温暖", "T恤/衬衫", "长裤/薄裤", "运动鞋/休闲鞋", ""},
+                {"天气较热", "短袖/薄衬衫", "短裤/薄长裤", "凉鞋/透气鞋", "遮阳帽"},
+                {"天气炎热，注意防暑！", "短袖/背心/薄衣物", "短裤/裙装", "凉鞋/拖鞋", "遮阳帽、太阳镜、防晒霜"}
+        };
+        int temp = weather.getAverageTemp();
+        int bucket = (int) Arrays.stream(upper).filter(bound -> temp >= bound).count();
+        String[] row = ladder[bucket];
+        ClothingAdvice base = ClothingAdvice.simple(row[0], row[1], row[2], row[3], row[4]);
+        String text = weather.getTextDay();
+        if (weather.isRainy()) {
+            return base.toBuilder().shoes("防水鞋/雨鞋").accessories("雨伞")
+                    .reminder("今天有" + text + "，记得带伞 ☔").build();
+        }
+        return text != null && text.contains("晴") ? base.toBuilder().accessories("太阳镜/遮阳帽").build() : base;
+    }
+
+    private static ClothingRules bundled() throws IOException {
+        try (InputStream in = ClothingRuleTableTest.class.getResourceAsStream("/clothing-rules.yml")) {
+            return ClothingRules.parse(in);
+        }
+    }
+
+    private static ClothingRules parse(String yaml) {
+        return ClothingRules.parse(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ClothingRules.Rule rule(ClothingRules.Condition when) {
+        return new ClothingRules.Rule(null, when, ClothingAdvice.builder().overview(String.valueOf(when)).build());
+    }
+
+    private static ClothingRules.Range range(int min) {
+        return new ClothingRules.Range(min, null);
+    }
+
+    private static DailyWeather day(String tempMax, String tempMin, String text) {
+        DailyWeather day = new DailyWeather();
+        day.setTempMax(tempMax);
+        day.setTempMin(tempMin);
+        day.setTextDay(text);
+        return day;
+    }
+}
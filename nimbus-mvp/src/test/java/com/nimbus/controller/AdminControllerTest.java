@@ -0,0 +1,42 @@
+package com.nimbus.controller;
+
+import com.nimbus.config.CityConfig;
+import com.nimbus.service.ClothingAdviceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 运维接口默认不注册，只有 nimbus.admin.enabled=true 时才开放
+ *
+ * @author Nimbus Team
+ */
+class AdminControllerTest {
+
+    private final ApplicationContextRunner runner = new ApplicationContextRunner()
+            .withInitializer(context -> {
+                // 直接注册成品单例，mock 上的 @Value setter 不会被注入
+                context.getBeanFactory().registerSingleton("cityConfig", mock(CityConfig.class));
+                context.getBeanFactory().registerSingleton("clothingAdviceService", mock(ClothingAdviceService.class));
+            })
+            .withUserConfiguration(AdminController.class);
+
+    @Test
+    void notRegisteredByDefault() {
+        runner.run(context -> assertThat(context).doesNotHaveBean(AdminController.class));
+    }
+
+    @Test
+    void notRegisteredWhenDisabled() {
+        runner.withPropertyValues("nimbus.admin.enabled=false")
+                .run(context -> assertThat(context).doesNotHaveBean(AdminController.class));
+    }
+
+    @Test
+    void registeredWhenEnabled() {
+        runner.withPropertyValues("nimbus.admin.enabled=true")
+                .run(context -> assertThat(context).hasSingleBean(AdminController.class));
+    }
+}
@@ -0,0 +1,310 @@
+package com.nimbus.sim;
+
+import com.nimbus.city.CityCsvReader;
+import com.nimbus.city.CityStore;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地和风天气模拟器 - 基于 MockWebServer，用于压测和延迟测试，不消耗真实配额
+ * <p>
+ * 提供 /v7/weather/{3,7,10,15,30}d，覆盖城市库 CSV 中的全部 LocationID。
+ * 同一城市同一天生成的数据固定（按纬度和季节估算气温），可配置延迟分布、错误率和限流。
+ * <p>
+ * 启动：
+ * <pre>
+ * mvn -f nimbus-mvp/pom.xml test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.nimbus.sim.QWeatherSimulator \
+ *     -Dexec.args="--port=18080 --latency-median-ms=80 --latency-p99-ms=2000 --error-rate=0.01"
+ * </pre>
+ * 然后把 nimbus-mvp / nimbus-agent 的 nimbus.weather.base-url 指向 http://localhost:18080 即可。
+ * <p>
+ * 参数：
+ * <ul>
+ *   <li>--port 监听端口，默认 18080</li>
+ *   <li>--csv 城市库路径，默认 nimbus-mvp/assets/China-City-List-latest.csv</li>
+ *   <li>--latency-median-ms / --latency-p99-ms 对数正态延迟分布的中位数和 p99，默认 80 / 2000</li>
+ *   <li>--error-rate 返回 HTTP 500 的比例，默认 0</li>
+ *   <li>--rate-limit-per-minute 每分钟请求上限，超出返回 HTTP 429，默认 0（不限流）</li>
+ * </ul>
+ *
+ * @author Nimbus Team
+ */
+public class QWeatherSimulator {
+
+    private static final Set<Integer> SUPPORTED_DAYS = Set.of(3, 7, 10, 15, 30);
+    private static final Pattern FORECAST_PATH = Pattern.compile("/v7/weather/(\\d+)d");
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final DateTimeFormatter UPDATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mmXXX");
+    private static final DateTimeFormatter HH_MM = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static final String[][] WEATHER = {
+            // iconDay, textDay, iconNight, textNight, 雨雪
+            {"100", "晴", "150", "晴", "0"},
+            {"101", "多云", "151", "多云", "0"},
+            {"102", "少云", "152", "少云", "0"},
+            {"104", "阴", "104", "阴", "0"},
+            {"305", "小雨", "305", "小雨", "1"},
+            {"306", "中雨", "306", "中雨", "1"},
+            {"307", "大雨", "307", "大雨", "1"},
+            {"302", "雷阵雨", "350", "阵雨", "1"},
+            {"501", "雾", "501", "雾", "0"},
+    };
+    private static final String[][] SNOW = {
+            {"400", "小雪", "400", "小雪"},
+            {"401", "中雪", "401", "中雪"},
+            {"404", "雨夹雪", "404", "雨夹雪"},
+    };
+    private static final String[] WIND_DIRS = {"北风", "东北风", "东风", "东南风", "南风", "西南风", "西风", "西北风"};
+    private static final String[] WIND_SCALES = {"1-3", "1-3", "3-4", "4-5", "5-6"};
+    private static final String[] MOON_PHASES = {"新月", "蛾眉月", "上弦月", "盈凸月", "满月", "亏凸月", "下弦月", "残月"};
+
+    private final Map<String, Double> latitudes;
+    private final double latencyMu;
+    private final double latencySigma;
+    private final double errorRate;
+    private final int rateLimitPerMinute;
+
+    private final AtomicLong windowStartMs = new AtomicLong(System.currentTimeMillis());
+    private final AtomicLong windowCount = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+
+    public QWeatherSimulator(Map<String, Double> latitudes, long latencyMedianMs, long latencyP99Ms,
+                             double errorRate, int rateLimitPerMinute) {
+        this.latitudes = latitudes;
+        long median = Math.max(1, latencyMedianMs);
+        this.latencyMu = Math.log(median);
+        // p99 = exp(mu + 2.326 * sigma)
+        this.latencySigma = Math.max(0, Math.log(Math.max(median, latencyP99Ms) / (double) median) / 2.326);
+        this.errorRate = errorRate;
+        this.rateLimitPerMinute = rateLimitPerMinute;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseArgs(args);
+        Path csv = Path.of(options.getOrDefault("csv", "nimbus-mvp/assets/China-City-List-latest.csv"));
+        if (!Files.exists(csv)) {
+            csv = Path.of("assets/China-City-List-latest.csv");
+        }
+        QWeatherSimulator simulator = new QWeatherSimulator(
+                loadLatitudes(csv),
+                Long.parseLong(options.getOrDefault("latency-median-ms", "80")),
+                Long.parseLong(options.getOrDefault("latency-p99-ms", "2000")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Integer.parseInt(options.getOrDefault("rate-limit-per-minute", "0")));
+
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(simulator.dispatcher());
+        server.start(Integer.parseInt(options.getOrDefault("port", "18080")));
+        System.out.printf("和风天气模拟器已启动: http://localhost:%d (%d 个城市)%n",
+                server.getPort(), simulator.latitudes.size());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.shutdown();
+            } catch (IOException ignored) {
+                // 退出时忽略
+            }
+        }));
+    }
+
+    public Dispatcher dispatcher() {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return handle(request);
+            }
+        };
+    }
+
+    public long servedCount() {
+        return served.get();
+    }
+
+    MockResponse handle(RecordedRequest request) {
+        served.incrementAndGet();
+        HttpUrl url = request.getRequestUrl();
+        Matcher matcher = url != null ? FORECAST_PATH.matcher(url.encodedPath()) : null;
+        if (matcher == null || !matcher.matches() || !SUPPORTED_DAYS.contains(Integer.parseInt(matcher.group(1)))) {
+            return json(404, "{\"code\":\"404\"}");
+        }
+        if (url.queryParameter("key") == null || url.queryParameter("key").isBlank()) {
+            return json(401, "{\"code\":\"401\"}");
+        }
+        if (isRateLimited()) {
+            return json(429, "{\"code\":\"429\"}");
+        }
+        long delayMs = sampleLatencyMs();
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return json(500, "{\"code\":\"500\"}").setHeadersDelay(delayMs, TimeUnit.MILLISECONDS);
+        }
+        String locationId = url.queryParameter("location");
+        Double latitude = locationId != null ? latitudes.get(locationId) : null;
+        if (latitude == null) {
+            return json(200, "{\"code\":\"404\"}").setHeadersDelay(delayMs, TimeUnit.MILLISECONDS);
+        }
+        String body = forecast(locationId, latitude, Integer.parseInt(matcher.group(1)), ZonedDateTime.now(ZONE));
+        return json(200, body).setHeadersDelay(delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 生成预报 JSON，字段与和风 v7 每日预报一致
+     */
+    static String forecast(String locationId, double latitude, int days, ZonedDateTime now) {
+        StringBuilder sb = new StringBuilder(days * 700 + 256);
+        sb.append("{\"code\":\"200\",\"updateTime\":\"").append(now.format(UPDATE_TIME))
+                .append("\",\"fxLink\":\"https://www.qweather.com/weather/sim-").append(locationId).append(".html\",\"daily\":[");
+        LocalDate today = now.toLocalDate();
+        for (int i = 0; i < days; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendDay(sb, locationId, latitude, today.plusDays(i));
+        }
+        sb.append("],\"refer\":{\"sources\":[\"QWeather\"],\"license\":[\"QWeather Developers License\"]}}");
+        return sb.toString();
+    }
+
+    private static void appendDay(StringBuilder sb, String locationId, double latitude, LocalDate date) {
+        Random random = new Random(locationId.hashCode() * 31L + date.toEpochDay());
+        int dayOfYear = date.getDayOfYear();
+
+        // 年均温随纬度降低，年较差随纬度升高；最冷约在 1 月中旬
+        double annualMean = 28 - 0.55 * (latitude - 18);
+        double amplitude = 4 + 0.45 * Math.max(0, latitude - 18);
+        double seasonal = annualMean - amplitude * Math.cos(2 * Math.PI * (dayOfYear - 15) / 365.0);
+        int tempMax = (int) Math.round(seasonal + 4 + random.nextGaussian() * 2);
+        int tempMin = (int) Math.round(seasonal - 5 + random.nextGaussian() * 2);
+        if (tempMin > tempMax) {
+            tempMin = tempMax - 1;
+        }
+
+        String[] weather = WEATHER[random.nextInt(WEATHER.length)];
+        boolean wet = "1".equals(weather[4]);
+        if (wet && tempMax <= 2) {
+            weather = SNOW[random.nextInt(SNOW.length)];
+        }
+        String precip = wet ? String.format(Locale.ROOT, "%.1f", 0.5 + random.nextDouble() * (weather[1].contains("大") ? 40 : 12)) : "0.0";
+
+        // 日长近似：赤纬 23.44 * sin(...)
+        double declination = Math.toRadians(23.44 * Math.sin(2 * Math.PI * (dayOfYear - 81) / 365.0));
+        double cosHour = -Math.tan(Math.toRadians(latitude)) * Math.tan(declination);
+        double dayLengthHours = 2 * Math.toDegrees(Math.acos(Math.max(-1, Math.min(1, cosHour)))) / 15;
+        LocalTime noon = LocalTime.of(12, 30);
+        LocalTime sunrise = noon.minusMinutes((long) (dayLengthHours * 30));
+        LocalTime sunset = noon.plusMinutes((long) (dayLengthHours * 30));
+        LocalTime moonrise = LocalTime.of(random.nextInt(24), random.nextInt(60));
+
+        int windDay = random.nextInt(WIND_DIRS.length);
+        int windNight = random.nextInt(WIND_DIRS.length);
+        int phase = (int) Math.floorMod(date.toEpochDay(), 29L) * MOON_PHASES.length / 29;
+
+        sb.append("{\"fxDate\":\"").append(date)
+                .append("\",\"sunrise\":\"").append(sunrise.format(HH_MM))
+                .append("\",\"sunset\":\"").append(sunset.format(HH_MM))
+                .append("\",\"moonrise\":\"").append(moonrise.format(HH_MM))
+                .append("\",\"moonset\":\"").append(moonrise.plusHours(12).plusMinutes(random.nextInt(60)).format(HH_MM))
+                .append("\",\"moonPhase\":\"").append(MOON_PHASES[phase])
+                .append("\",\"moonPhaseIcon\":\"").append(800 + phase)
+                .append("\",\"tempMax\":\"").append(tempMax)
+                .append("\",\"tempMin\":\"").append(tempMin)
+                .append("\",\"iconDay\":\"").append(weather[0])
+                .append("\",\"textDay\":\"").append(weather[1])
+                .append("\",\"iconNight\":\"").append(weather[2])
+                .append("\",\"textNight\":\"").append(weather[3])
+                .append("\",\"wind360Day\":\"").append(windDay * 45)
+                .append("\",\"windDirDay\":\"").append(WIND_DIRS[windDay])
+                .append("\",\"windScaleDay\":\"").append(WIND_SCALES[random.nextInt(WIND_SCALES.length)])
+                .append("\",\"windSpeedDay\":\"").append(3 + random.nextInt(25))
+                .append("\",\"wind360Night\":\"").append(windNight * 45)
+                .append("\",\"windDirNight\":\"").append(WIND_DIRS[windNight])
+                .append("\",\"windScaleNight\":\"").append(WIND_SCALES[random.nextInt(2)])
+                .append("\",\"windSpeedNight\":\"").append(1 + random.nextInt(15))
+                .append("\",\"humidity\":\"").append(wet ? 70 + random.nextInt(30) : 20 + random.nextInt(60))
+                .append("\",\"precip\":\"").append(precip)
+                .append("\",\"pressure\":\"").append(995 + random.nextInt(35))
+                .append("\",\"vis\":\"").append(wet ? 5 + random.nextInt(10) : 15 + random.nextInt(20))
+                .append("\",\"cloud\":\"").append(wet ? 60 + random.nextInt(41) : random.nextInt(60))
+                .append("\",\"uvIndex\":\"").append(wet ? 1 + random.nextInt(3) : 2 + random.nextInt(10))
+                .append("\"}");
+    }
+
+    private boolean isRateLimited() {
+        if (rateLimitPerMinute <= 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long start = windowStartMs.get();
+        if (now - start >= 60_000 && windowStartMs.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() > rateLimitPerMinute;
+    }
+
+    private long sampleLatencyMs() {
+        double sample = Math.exp(latencyMu + latencySigma * ThreadLocalRandom.current().nextGaussian());
+        return Math.min(60_000, Math.round(sample));
+    }
+
+    private static MockResponse json(int status, String body) {
+        return new MockResponse()
+                .setResponseCode(status)
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(body);
+    }
+
+    /**
+     * 读取 LocationID -> 纬度；CSV 中含逗号的字段带引号，需要按引号切分
+     */
+    /**
+     * 按表头找列（{@link CityCsvReader}），列顺序不同的城市表也能读对
+     */
+    static Map<String, Double> loadLatitudes(Path csv) throws IOException {
+        CityStore cities;
+        try (InputStream in = Files.newInputStream(csv)) {
+            cities = CityCsvReader.read(in);
+        }
+        Map<String, Double> latitudes = new HashMap<>(cities.size() * 2);
+        for (int i = 0; i < cities.size(); i++) {
+            float latitude = cities.latitude(i);
+            // 跳过坐标缺失的行
+            if (!Float.isNaN(latitude)) {
+                latitudes.put(cities.locationId(i), (double) latitude);
+            }
+        }
+        return latitudes;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
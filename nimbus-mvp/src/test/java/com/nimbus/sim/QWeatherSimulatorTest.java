@@ -0,0 +1,48 @@
+package com.nimbus.sim;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 模拟器读取城市纬度：按表头找列，列顺序变化时也不会读错
+ *
+ * @author Nimbus Team
+ */
+class QWeatherSimulatorTest {
+
+    @Test
+    void latitudesFollowTheHeaderNotTheColumnOrder(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("cities.csv");
+        Files.writeString(csv, "China-City-List reordered,,,,,\n"
+                + "Latitude,Longitude,Location_ID,Location_Name_ZH,Adm1_Name_ZH,Adm2_Name_ZH\n"
+                + "45.75,126.65,101050101,哈尔滨,黑龙江省,哈尔滨\n"
+                + "18.25,109.51,101310201,三亚,海南省,三亚\n"
+                + ",,101320101,香港,香港,香港\n", StandardCharsets.UTF_8);
+
+        Map<String, Double> latitudes = QWeatherSimulator.loadLatitudes(csv);
+
+        assertThat(latitudes).containsOnlyKeys("101050101", "101310201");
+        assertThat(latitudes.get("101050101")).isCloseTo(45.75, within(1e-4));
+        assertThat(latitudes.get("101310201")).isCloseTo(18.25, within(1e-4));
+    }
+
+    @Test
+    void bundledCityListHasLatitudes() throws IOException, URISyntaxException {
+        Path csv = Path.of(QWeatherSimulatorTest.class.getResource("/assets/China-City-List-latest.csv").toURI());
+
+        Map<String, Double> latitudes = QWeatherSimulator.loadLatitudes(csv);
+
+        assertThat(latitudes).hasSizeGreaterThan(3000);
+        assertThat(latitudes.get("101010100")).isCloseTo(39.9, within(0.1));
+    }
+}